@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Asynchronous counterpart to {@link Facebook}.
+ * In addition to the low-level {@link AsyncGraphApi} operations, it offers asynchronous counterparts to {@link Facebook}'s
+ * user and feed sub-APIs. Operations of the other sub-APIs (pages, media, friends, and so on) can be performed
+ * with {@link #submit(Function, Executor)}.
+ */
+public interface AsyncFacebook extends AsyncGraphApi {
+
+	/**
+	 * API for performing operations on feeds.
+	 * @return {@link AsyncFeedOperations}
+	 */
+	AsyncFeedOperations feedOperations();
+
+	/**
+	 * API for performing operations on Facebook user profiles.
+	 * @return {@link AsyncUserOperations}
+	 */
+	AsyncUserOperations userOperations();
+
+	/**
+	 * Performs any {@link Facebook} operation asynchronously, for the sub-APIs that have no asynchronous counterpart here.
+	 * For example, <code>submit(facebook -&gt; facebook.pageOperations().getPage(pageId), executor)</code>.
+	 * Unlike the other operations, it blocks one of the executor's threads while its requests are in flight, so the executor
+	 * bounds how many such operations are performed at once.
+	 * @param operation the operation to perform, against a {@link Facebook} for the same access token and app secret
+	 * @param executor the executor to perform the operation on
+	 * @param <T> the type of the operation's result
+	 * @return a future that completes with the operation's result, or exceptionally with the exception it throws.
+	 */
+	<T> CompletableFuture<T> submit(Function<? super Facebook, ? extends T> operation, Executor executor);
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart to {@link FeedOperations}.
+ * Each operation returns immediately with a {@link CompletableFuture} that is completed with the result of the operation,
+ * or completed exceptionally with the exception that the corresponding {@link FeedOperations} operation would have thrown.
+ */
+public interface AsyncFeedOperations {
+
+	/**
+	 * Retrieves recent posts for the authenticated user.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getFeed()
+	 */
+	CompletableFuture<PagedList<Post>> getFeed();
+
+	/**
+	 * Retrieves a page of posts for the authenticated user.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getFeed(PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getFeed(PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves recent feed entries for a given user.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getFeed(String)
+	 */
+	CompletableFuture<PagedList<Post>> getFeed(String ownerId);
+
+	/**
+	 * Retrieves a page of feed entries for a given user.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getFeed(String, PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getFeed(String ownerId, PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves the user's home feed.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getHomeFeed()
+	 */
+	CompletableFuture<PagedList<Post>> getHomeFeed();
+
+	/**
+	 * Retrieves a page of the user's home feed.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getHomeFeed(PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getHomeFeed(PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a single post.
+	 * @param entryId the post's ID
+	 * @return the future {@link Post}.
+	 * @see FeedOperations#getPost(String)
+	 */
+	CompletableFuture<Post> getPost(String entryId);
+
+	/**
+	 * Retrieves a list of status updates for the authenticated user.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getStatuses()
+	 */
+	CompletableFuture<PagedList<Post>> getStatuses();
+
+	/**
+	 * Retrieves a page of status updates for the authenticated user.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getStatuses(PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getStatuses(PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a list of status updates for the specified user.
+	 * @param userId the user's ID
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getStatuses(String)
+	 */
+	CompletableFuture<PagedList<Post>> getStatuses(String userId);
+
+	/**
+	 * Retrieves a page of status updates for the specified user.
+	 * @param userId the user's ID
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getStatuses(String, PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getStatuses(String userId, PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a list of links posted by the authenticated user.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getLinks()
+	 */
+	CompletableFuture<PagedList<Post>> getLinks();
+
+	/**
+	 * Retrieves a page of links posted by the authenticated user.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getLinks(PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getLinks(PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a list of links posted by the specified user.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getLinks(String)
+	 */
+	CompletableFuture<PagedList<Post>> getLinks(String ownerId);
+
+	/**
+	 * Retrieves a page of links posted by the specified user.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getLinks(String, PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getLinks(String ownerId, PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a list of posts by the authenticated user.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getPosts()
+	 */
+	CompletableFuture<PagedList<Post>> getPosts();
+
+	/**
+	 * Retrieves a page of posts by the authenticated user.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getPosts(PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getPosts(PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a list of posts by the specified user.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getPosts(String)
+	 */
+	CompletableFuture<PagedList<Post>> getPosts(String ownerId);
+
+	/**
+	 * Retrieves a page of posts by the specified user.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getPosts(String, PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getPosts(String ownerId, PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a list of posts that the authenticated user is tagged in.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getTagged()
+	 */
+	CompletableFuture<PagedList<Post>> getTagged();
+
+	/**
+	 * Retrieves a page of posts that the authenticated user is tagged in.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getTagged(PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getTagged(PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves a list of posts that the specified user is tagged in.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getTagged(String)
+	 */
+	CompletableFuture<PagedList<Post>> getTagged(String ownerId);
+
+	/**
+	 * Retrieves a page of posts that the specified user is tagged in.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getTagged(String, PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getTagged(String ownerId, PagingParameters pagedListParameters);
+
+	/**
+	 * Posts a status update to the authenticated user's feed.
+	 * @param message the message to post.
+	 * @return the future ID of the new feed entry.
+	 * @see FeedOperations#updateStatus(String)
+	 */
+	CompletableFuture<String> updateStatus(String message);
+
+	/**
+	 * Posts a link to the authenticated user's feed.
+	 * @param message the message to post.
+	 * @param link the {@link FacebookLink} object to post
+	 * @return the future ID of the new feed entry.
+	 * @see FeedOperations#postLink(String, FacebookLink)
+	 */
+	CompletableFuture<String> postLink(String message, FacebookLink link);
+
+	/**
+	 * Posts a message to a feed.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @param message the message to post.
+	 * @return the future ID of the new feed entry.
+	 * @see FeedOperations#post(String, String)
+	 */
+	CompletableFuture<String> post(String ownerId, String message);
+
+	/**
+	 * Adds a Post to a feed.
+	 * @param post the new post
+	 * @return the future ID of the new feed entry.
+	 * @see FeedOperations#post(PostData)
+	 */
+	CompletableFuture<String> post(PostData post);
+
+	/**
+	 * Posts a link to a feed.
+	 * @param ownerId the feed owner ID. Could be a user ID or a page ID.
+	 * @param message the message to post.
+	 * @param link the {@link FacebookLink} object to post
+	 * @return the future ID of the new feed entry.
+	 * @see FeedOperations#postLink(String, String, FacebookLink)
+	 */
+	CompletableFuture<String> postLink(String ownerId, String message, FacebookLink link);
+
+	/**
+	 * Deletes a post.
+	 * @param id the feed entry ID
+	 * @return a future that is completed when the post has been deleted.
+	 * @see FeedOperations#deletePost(String)
+	 */
+	CompletableFuture<Void> deletePost(String id);
+
+	/**
+	 * Retrieves a list of up to 25 recent checkins for the authenticated user.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getCheckins()
+	 */
+	CompletableFuture<PagedList<Post>> getCheckins();
+
+	/**
+	 * Retrieves a list of checkins for the authenticated user.
+	 * @param pagedListParameters the parameters defining the bounds of the list to return.
+	 * @return a future list of {@link Post}s.
+	 * @see FeedOperations#getCheckins(PagingParameters)
+	 */
+	CompletableFuture<PagedList<Post>> getCheckins(PagingParameters pagedListParameters);
+
+	/**
+	 * Retrieves details for a single checkin.
+	 * @param checkinId the checkin ID
+	 * @return the future {@link Post}.
+	 * @see FeedOperations#getCheckin(String)
+	 */
+	CompletableFuture<Post> getCheckin(String checkinId);
+
+}
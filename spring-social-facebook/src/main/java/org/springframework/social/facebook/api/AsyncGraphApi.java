@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Asynchronous counterpart to {@link GraphApi}.
+ * Each operation returns immediately with a {@link CompletableFuture} that is completed with the result of the operation,
+ * or completed exceptionally with the exception that the corresponding {@link GraphApi} operation would have thrown.
+ */
+public interface AsyncGraphApi {
+
+	/**
+	 * Fetches an object, extracting it into the given Java type
+	 * Requires appropriate permission to fetch the object.
+	 * @param objectId the Facebook object's ID
+	 * @param type the Java type to fetch
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a future Java object representing the requested Facebook object.
+	 */
+	<T> CompletableFuture<T> fetchObject(String objectId, Class<T> type);
+
+	/**
+	 * Fetches an object, extracting it into the given Java type
+	 * Requires appropriate permission to fetch the object.
+	 * @param objectId the Facebook object's ID
+	 * @param type the Java type to fetch
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a future Java object representing the requested Facebook object.
+	 */
+	<T> CompletableFuture<T> fetchObject(String objectId, Class<T> type, String... fields);
+
+	/**
+	 * Fetches an object, extracting it into the given Java type
+	 * Requires appropriate permission to fetch the object.
+	 * @param objectId the Facebook object's ID
+	 * @param type the Java type to fetch
+	 * @param queryParameters query parameters to include in the request
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a future Java object representing the requested Facebook object.
+	 */
+	<T> CompletableFuture<T> fetchObject(String objectId, Class<T> type, MultiValueMap<String, String> queryParameters);
+
+	/**
+	 * Fetches an object, extracting it into the given Java type
+	 * Requires appropriate permission to fetch the object.
+	 * @param objectId the Facebook object's ID
+	 * @param type the Java type to fetch
+	 * @param fields the fields to include in the response, possibly including connections to fetch along with the object.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a future Java object representing the requested Facebook object.
+	 */
+	<T> CompletableFuture<T> fetchObject(String objectId, Class<T> type, Fields fields);
+
+	/**
+	 * Fetches several objects, extracting them into the given Java type.
+	 * Requires appropriate permission to fetch the objects.
+	 * @param objectIds the Facebook objects' IDs
+	 * @param type the Java type to fetch
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook objects to
+	 * @return a future map of Java objects representing the requested Facebook objects, keyed by their IDs.
+	 * @see GraphApi#fetchObjects(List, Class, String...)
+	 */
+	<T> CompletableFuture<Map<String, T>> fetchObjects(List<String> objectIds, Class<T> type, String... fields);
+
+	/**
+	 * Fetches connections, extracting them into a collection of the given Java type
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a future list of Java objects representing the Facebook objects in the connections.
+	 */
+	<T> CompletableFuture<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, String... fields);
+
+	/**
+	 * Fetches connections, extracting them into a collection of the given Java type
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param fields the fields to include in the response, possibly including connections of each entry to fetch along with it.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a future list of Java objects representing the Facebook objects in the connections.
+	 */
+	<T> CompletableFuture<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, Fields fields);
+
+	/**
+	 * Fetches connections, extracting them into a collection of the given Java type
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param queryParameters query parameters to include in the request
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a future list of Java objects representing the Facebook objects in the connections.
+	 */
+	<T> CompletableFuture<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters);
+
+	/**
+	 * Fetches an image as an array of bytes.
+	 * @param objectId the object ID
+	 * @param connectionName the connection name
+	 * @param imageType the type of image to retrieve (eg., small, normal, large, or square)
+	 * @return a future image as an array of bytes.
+	 */
+	CompletableFuture<byte[]> fetchImage(String objectId, String connectionName, ImageType imageType);
+
+	/**
+	 * Fetches an image as an array of bytes.
+	 * @param objectId the object ID
+	 * @param connectionName the connection name
+	 * @param width desired width of the image (optional)
+	 * @param height desired height of the image (optional)
+	 * @return a future image as an array of bytes.
+	 */
+	CompletableFuture<byte[]> fetchImage(String objectId, String connectionName, Integer width, Integer height);
+
+	/**
+	 * Publishes data to an object's connection.
+	 * Requires appropriate permission to publish to the object connection.
+	 * @param objectId the object ID to publish to.
+	 * @param connectionName the connection name to publish to.
+	 * @param data the data to publish to the connection.
+	 * @return the future ID of the newly published object.
+	 */
+	CompletableFuture<String> publish(String objectId, String connectionName, MultiValueMap<String, Object> data);
+
+	/**
+	 * Publishes data to an object.
+	 * Requires appropriate permission to publish to the object connection.
+	 * @param objectId the object ID to publish to.
+	 * @param data the data to publish to the object.
+	 * @return a future that is completed when the data has been posted.
+	 */
+	CompletableFuture<Void> post(String objectId, MultiValueMap<String, Object> data);
+
+	/**
+	 * Publishes data to an object's connection.
+	 * Requires appropriate permission to publish to the object connection.
+	 * @param objectId the object ID to publish to.
+	 * @param connectionName the connection name to publish to.
+	 * @param data the data to publish to the connection.
+	 * @return a future that is completed when the data has been posted.
+	 */
+	CompletableFuture<Void> post(String objectId, String connectionName, MultiValueMap<String, Object> data);
+
+	/**
+	 * Deletes an object.
+	 * Requires appropriate permission to delete the object.
+	 * @param objectId the object ID
+	 * @return a future that is completed when the object has been deleted.
+	 */
+	CompletableFuture<Void> delete(String objectId);
+
+	/**
+	 * Deletes an object connection.
+	 * Requires appropriate permission to delete the object connection.
+	 * @param objectId the object ID
+	 * @param connectionName the connection name
+	 * @return a future that is completed when the object connection has been deleted.
+	 */
+	CompletableFuture<Void> delete(String objectId, String connectionName);
+
+	/**
+	 * @return The base URL for the Graph API.
+	 */
+	String getBaseGraphApiUrl();
+
+}
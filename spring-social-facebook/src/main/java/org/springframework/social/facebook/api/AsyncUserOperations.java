@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart to {@link UserOperations}.
+ * Each operation returns immediately with a {@link CompletableFuture} that is completed with the result of the operation,
+ * or completed exceptionally with the exception that the corresponding {@link UserOperations} operation would have thrown.
+ */
+public interface AsyncUserOperations {
+
+	/**
+	 * Retrieves the profile for the authenticated user.
+	 * @return the user's future profile information.
+	 * @see UserOperations#getUserProfile()
+	 */
+	CompletableFuture<User> getUserProfile();
+
+	/**
+	 * Retrieves the profile for the specified user.
+	 * @param userId the Facebook user ID to retrieve profile data for.
+	 * @return the user's future profile information.
+	 * @see UserOperations#getUserProfile(String)
+	 */
+	CompletableFuture<User> getUserProfile(String userId);
+
+	/**
+	 * Retrieves the profiles for the specified users.
+	 * @param userIds the Facebook user IDs to retrieve profile data for.
+	 * @return the users' future profile information, keyed by user ID.
+	 * @see UserOperations#getUserProfiles(List)
+	 */
+	CompletableFuture<Map<String, User>> getUserProfiles(List<String> userIds);
+
+	/**
+	 * Retrieves the user's profile image. Returns the image in Facebook's "normal" type.
+	 * @return the user's future profile image
+	 * @see UserOperations#getUserProfileImage()
+	 */
+	CompletableFuture<byte[]> getUserProfileImage();
+
+	/**
+	 * Retrieves the user's profile image. Returns the image in Facebook's "normal" type.
+	 * @param userId the Facebook user ID.
+	 * @return the user's future profile image
+	 * @see UserOperations#getUserProfileImage(String)
+	 */
+	CompletableFuture<byte[]> getUserProfileImage(String userId);
+
+	/**
+	 * Retrieves the user's profile image.
+	 * @param imageType the image type (eg., small, normal, large. square)
+	 * @return the user's future profile image
+	 * @see UserOperations#getUserProfileImage(ImageType)
+	 */
+	CompletableFuture<byte[]> getUserProfileImage(ImageType imageType);
+
+	/**
+	 * Retrieves the user's profile image.
+	 * @param userId the Facebook user ID.
+	 * @param imageType the image type (eg., small, normal, large. square)
+	 * @return the user's future profile image
+	 * @see UserOperations#getUserProfileImage(String, ImageType)
+	 */
+	CompletableFuture<byte[]> getUserProfileImage(String userId, ImageType imageType);
+
+	/**
+	 * Retrieves the user's profile image.
+	 * @param width the desired image width
+	 * @param height the desired image height
+	 * @return the user's future profile image
+	 * @see UserOperations#getUserProfileImage(Integer, Integer)
+	 */
+	CompletableFuture<byte[]> getUserProfileImage(Integer width, Integer height);
+
+	/**
+	 * Retrieves the user's profile image.
+	 * @param userId the Facebook user ID.
+	 * @param width the desired image width
+	 * @param height the desired image height
+	 * @return the user's future profile image
+	 * @see UserOperations#getUserProfileImage(String, Integer, Integer)
+	 */
+	CompletableFuture<byte[]> getUserProfileImage(String userId, Integer width, Integer height);
+
+	/**
+	 * Retrieves a list of permissions that the application has been granted for the authenticating user.
+	 * @return the future permissions granted for the user.
+	 * @see UserOperations#getUserPermissions()
+	 */
+	CompletableFuture<List<Permission>> getUserPermissions();
+
+	/**
+	 * Fetches IDs that the user has on any applications associated with the calling application via Facebook's Business Mapping API.
+	 * @return a future list of business user IDs.
+	 * @see UserOperations#getIdsForBusiness()
+	 */
+	CompletableFuture<List<UserIdForApp>> getIdsForBusiness();
+
+	/**
+	 * Fetches a list of places that the user has checked into or has been tagged at.
+	 * @return a future list of place tags for the user.
+	 * @see UserOperations#getTaggedPlaces()
+	 */
+	CompletableFuture<List<PlaceTag>> getTaggedPlaces();
+
+	/**
+	 * Searches for users.
+	 * @param query the search query (e.g., "Michael Scott")
+	 * @return a future list of {@link Reference}s, each representing a user who matched the given query.
+	 * @see UserOperations#search(String)
+	 */
+	CompletableFuture<PagedList<Reference>> search(String query);
+
+}
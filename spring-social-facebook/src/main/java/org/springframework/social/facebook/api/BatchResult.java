@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+/**
+ * The outcome of a single operation in a {@link GraphBatch}.
+ * @param <T> the type of the operation's result
+ */
+public interface BatchResult<T> {
+
+	/**
+	 * @return true if the batch containing this operation has been executed.
+	 */
+	boolean isExecuted();
+
+	/**
+	 * @return true if Facebook reported an error for this operation.
+	 */
+	boolean isError();
+
+	/**
+	 * @return the HTTP status code reported by Facebook for this operation or null if the operation has not been executed
+	 * or did not complete.
+	 */
+	Integer getStatusCode();
+
+	/**
+	 * @return the error reported by Facebook for this operation. May be null if the operation succeeded or if the
+	 * error response did not carry Facebook error details.
+	 */
+	FacebookError getError();
+
+	/**
+	 * Returns the result of the operation.
+	 * If Facebook reported an error for the operation, the exception that the same error would have caused
+	 * for a non-batched request is thrown.
+	 * @return the result of the operation. May be null for operations that do not produce a value.
+	 * @throws IllegalStateException if the batch has not been executed yet.
+	 */
+	T get();
+
+}
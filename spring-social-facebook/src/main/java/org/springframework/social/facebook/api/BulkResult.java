@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+/**
+ * The outcome of an operation performed on behalf of a single access token as part of a bulk execution.
+ * @param <T> the type of the operation's result
+ * @see org.springframework.social.facebook.api.impl.FacebookBulkExecutor
+ */
+public interface BulkResult<T> {
+
+	/**
+	 * @return the access token the operation was performed on behalf of.
+	 */
+	String getAccessToken();
+
+	/**
+	 * @return true if the operation threw an exception.
+	 */
+	boolean isError();
+
+	/**
+	 * @return the exception thrown by the operation, or null if it succeeded.
+	 */
+	RuntimeException getException();
+
+	/**
+	 * Returns the result of the operation.
+	 * If the operation threw an exception, that exception is thrown.
+	 * @return the result of the operation. May be null for operations that do not produce a value.
+	 */
+	T get();
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import org.springframework.social.ApiException;
+
+/**
+ * Exception thrown instead of making a request when the circuit breaker for the request's endpoint is open,
+ * because recent requests to the same endpoint failed or were too slow.
+ */
+@SuppressWarnings("serial")
+public class CircuitBreakerOpenException extends ApiException {
+
+	private final String circuit;
+
+	public CircuitBreakerOpenException(String circuit) {
+		super("facebook", "Requests to " + circuit + " are being rejected because recent requests failed or were too slow");
+		this.circuit = circuit;
+	}
+
+	/**
+	 * @return the circuit that is open, made of the host and the endpoint family (e.g., "graph.facebook.com/feed").
+	 */
+	public String getCircuit() {
+		return circuit;
+	}
+
+}
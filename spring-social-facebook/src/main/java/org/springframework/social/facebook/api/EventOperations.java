@@ -15,6 +15,9 @@
  */
 package org.springframework.social.facebook.api;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.social.ApiException;
 import org.springframework.social.InsufficientPermissionException;
 import org.springframework.social.MissingAuthorizationException;
@@ -33,6 +36,14 @@ public interface EventOperations {
 	 * @throws ApiException if there is an error while communicating with Facebook.
 	 */
 	Event getEvent(String eventId);
+
+	/**
+	 * Retrieves event data for the specified events, fetching up to {@link GraphApi#MAX_OBJECTS_PER_REQUEST} events per request.
+	 * @param eventIds the event IDs
+	 * @return a map of {@link Event} objects, keyed by event ID
+	 * @throws ApiException if there is an error while communicating with Facebook.
+	 */
+	Map<String, Event> getEvents(List<String> eventIds);
 	
 	/**
 	 * Retrieves an event's image as an array of bytes. Returns the image in Facebook's "normal" type.
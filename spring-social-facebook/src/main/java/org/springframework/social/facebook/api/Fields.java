@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * A selection of fields to request from the Graph API, including connections whose entries should be returned
+ * along with the object they belong to (Graph API "field expansion").
+ * For example, the following selection fetches a post along with its first 10 comments, each with its author and message:
+ * <pre>
+ * fields("id", "message", connection("comments").limit(10).summary(true).fields("from", "message"))
+ * </pre>
+ * which renders as <code>id,message,comments.limit(10).summary(true){from,message}</code>.
+ * Connections requested this way are bound into {@link PagedList}s on the model types that carry them, such as {@link Post#getComments()}.
+ */
+public final class Fields {
+
+	private final List<Object> fields;
+
+	private Fields(Object[] fields) {
+		List<Object> fieldList = new ArrayList<Object>(fields.length);
+		for (Object field : fields) {
+			Assert.isTrue(field instanceof String || field instanceof Connection, "A field must be a String or a Connection");
+			fieldList.add(field);
+		}
+		this.fields = Collections.unmodifiableList(fieldList);
+	}
+
+	/**
+	 * Creates a field selection.
+	 * @param fields the fields to select, each either a field name or a {@link Connection} created with {@link #connection(String)}.
+	 * @return the field selection
+	 */
+	public static Fields fields(Object... fields) {
+		return new Fields(fields);
+	}
+
+	/**
+	 * Creates a connection to be expanded within a field selection.
+	 * @param name the connection name (e.g., "comments")
+	 * @return the connection, for further configuration of its entries
+	 */
+	public static Connection connection(String name) {
+		return new Connection(name);
+	}
+
+	/**
+	 * @return true if no fields are selected.
+	 */
+	public boolean isEmpty() {
+		return fields.isEmpty();
+	}
+
+	/**
+	 * @return the field selection in Graph API syntax, suitable as the value of the "fields" parameter.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Object field : fields) {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(field);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * A connection expanded within a {@link Fields} selection.
+	 */
+	public static final class Connection {
+
+		private final String name;
+
+		private final Map<String, String> modifiers = new LinkedHashMap<String, String>();
+
+		private Fields fields;
+
+		private Connection(String name) {
+			Assert.hasText(name, "A connection name is required");
+			this.name = name;
+		}
+
+		/**
+		 * @param limit the maximum number of the connection's entries to return
+		 * @return this connection
+		 */
+		public Connection limit(int limit) {
+			modifiers.put("limit", String.valueOf(limit));
+			return this;
+		}
+
+		/**
+		 * @param summary whether to include the connection's summary (e.g., its total count)
+		 * @return this connection
+		 */
+		public Connection summary(boolean summary) {
+			modifiers.put("summary", String.valueOf(summary));
+			return this;
+		}
+
+		/**
+		 * @param fields the fields to select for each of the connection's entries, each either a field name or a nested {@link Connection}.
+		 * @return this connection
+		 */
+		public Connection fields(Object... fields) {
+			this.fields = new Fields(fields);
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder(name);
+			for (Map.Entry<String, String> modifier : modifiers.entrySet()) {
+				builder.append('.').append(modifier.getKey()).append('(').append(modifier.getValue()).append(')');
+			}
+			if (fields != null && !fields.isEmpty()) {
+				builder.append('{').append(fields).append('}');
+			}
+			return builder.toString();
+		}
+
+	}
+
+}
@@ -15,6 +15,10 @@
  */
 package org.springframework.social.facebook.api;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 import org.springframework.util.MultiValueMap;
 
 /**
@@ -22,6 +26,11 @@ import org.springframework.util.MultiValueMap;
  * @author Craig Walls
  */
 public interface GraphApi {
+
+	/**
+	 * The maximum number of IDs that Facebook accepts in a single <code>?ids=</code> request.
+	 */
+	static final int MAX_OBJECTS_PER_REQUEST = 50;
 	
 	/**
 	 * Fetches an object, extracting it into the given Java type
@@ -55,6 +64,30 @@ public interface GraphApi {
 	 */
 	<T> T fetchObject(String objectId, Class<T> type, MultiValueMap<String, String> queryParameters);
 
+	/**
+	 * Fetches an object, extracting it into the given Java type
+	 * Requires appropriate permission to fetch the object.
+	 * @param objectId the Facebook object's ID
+	 * @param type the Java type to fetch
+	 * @param fields the fields to include in the response, possibly including connections to fetch along with the object.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return an Java object representing the requested Facebook object.
+	 */
+	<T> T fetchObject(String objectId, Class<T> type, Fields fields);
+
+	/**
+	 * Fetches several objects, extracting them into the given Java type.
+	 * The objects are fetched with Graph API's <code>?ids=</code> form, in as few requests as the limit of
+	 * {@link #MAX_OBJECTS_PER_REQUEST} IDs per request and the maximum URL length allow.
+	 * Requires appropriate permission to fetch the objects.
+	 * @param objectIds the Facebook objects' IDs
+	 * @param type the Java type to fetch
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook objects to
+	 * @return a map of Java objects representing the requested Facebook objects, keyed by the IDs they were requested with.
+	 */
+	<T> Map<String, T> fetchObjects(List<String> objectIds, Class<T> type, String... fields);
+
 	/**
 	 * Fetches connections, extracting them into a collection of the given Java type 
 	 * Requires appropriate permission to fetch the object connection.
@@ -66,6 +99,18 @@ public interface GraphApi {
 	 * @return a list of Java objects representing the Facebook objects in the connections.
 	 */
 	<T> PagedList<T> fetchConnections(String objectId, String connectionName, Class<T> type, String... fields);
+
+	/**
+	 * Fetches connections, extracting them into a collection of the given Java type 
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param fields the fields to include in the response, possibly including connections of each entry to fetch along with it.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a list of Java objects representing the Facebook objects in the connections.
+	 */
+	<T> PagedList<T> fetchConnections(String objectId, String connectionName, Class<T> type, Fields fields);
 	
 	/**
 	 * Fetches connections, extracting them into a collection of the given Java type 
@@ -92,6 +137,36 @@ public interface GraphApi {
 	 */
 	<T> PagedList<T> fetchConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters, String... fields);
 
+	/**
+	 * Streams all of a connection's entries, extracting them into the given Java type.
+	 * The connection's next page is fetched in the background while the entries of the current page are being consumed,
+	 * and the stream ends after the connection's last page.
+	 * Closing the stream (or walking its {@link Stream#iterator() iterator} to the end) stops any further page fetches.
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a sequential stream of Java objects representing the Facebook objects in the connection.
+	 */
+	<T> Stream<T> streamConnections(String objectId, String connectionName, Class<T> type, String... fields);
+
+	/**
+	 * Streams all of a connection's entries, extracting them into the given Java type.
+	 * The connection's next page is fetched in the background while the entries of the current page are being consumed,
+	 * and the stream ends after the connection's last page.
+	 * Closing the stream (or walking its {@link Stream#iterator() iterator} to the end) stops any further page fetches.
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param queryParameters query parameters to include in the request for the first page (e.g., limit)
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a sequential stream of Java objects representing the Facebook objects in the connection.
+	 */
+	<T> Stream<T> streamConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters);
+
 	/**
 	 * Fetches an image as an array of bytes.
 	 * @param objectId the object ID
@@ -166,6 +241,13 @@ public interface GraphApi {
 	 */
 	void delete(String objectId, String connectionName, MultiValueMap<String, String> data);
 
+	/**
+	 * Creates a new batch for sending several Graph API operations to Facebook in a single request.
+	 * Operations added to the batch are not sent until {@link GraphBatch#execute()} is called.
+	 * @return a new, empty {@link GraphBatch}
+	 */
+	GraphBatch batch();
+
 	/**
 	 * @return The application namespace associated with this GraphApi instance. Useful for interacting with Facebook's OpenGraph actions.
 	 * 			May be null if no namespace was specified.
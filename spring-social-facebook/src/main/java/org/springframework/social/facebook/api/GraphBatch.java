@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Collects low-level Graph API operations so that they can be sent to Facebook together as a batch request.
+ * Each operation returns a {@link BatchResult} that is populated when {@link #execute()} is called.
+ * Facebook accepts at most {@link #MAX_BATCH_SIZE} operations per batch request; larger batches are sent
+ * as several consecutive batch requests.
+ */
+public interface GraphBatch {
+
+	/**
+	 * The maximum number of operations that Facebook accepts in a single batch request.
+	 */
+	static final int MAX_BATCH_SIZE = 50;
+
+	/**
+	 * Adds a request to fetch an object to the batch.
+	 * @param objectId the Facebook object's ID
+	 * @param type the Java type to fetch
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a {@link BatchResult} that will carry the fetched object once the batch is executed.
+	 */
+	<T> BatchResult<T> fetchObject(String objectId, Class<T> type, String... fields);
+
+	/**
+	 * Adds a request to fetch an object to the batch.
+	 * @param objectId the Facebook object's ID
+	 * @param type the Java type to fetch
+	 * @param queryParameters query parameters to include in the request
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a {@link BatchResult} that will carry the fetched object once the batch is executed.
+	 */
+	<T> BatchResult<T> fetchObject(String objectId, Class<T> type, MultiValueMap<String, String> queryParameters);
+
+	/**
+	 * Adds a request to fetch an object's connections to the batch.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook objects to
+	 * @return a {@link BatchResult} that will carry the fetched connections once the batch is executed.
+	 */
+	<T> BatchResult<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, String... fields);
+
+	/**
+	 * Adds a request to fetch an object's connections to the batch.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param queryParameters query parameters to include in the request
+	 * @param <T> The Java type to bind the Facebook objects to
+	 * @return a {@link BatchResult} that will carry the fetched connections once the batch is executed.
+	 */
+	<T> BatchResult<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters);
+
+	/**
+	 * Adds a request to publish data to an object's connection to the batch.
+	 * Binary data (such as photo or video uploads) cannot be published in a batch.
+	 * @param objectId the object ID to publish to.
+	 * @param connectionName the connection name to publish to.
+	 * @param data the data to publish to the connection.
+	 * @return a {@link BatchResult} that will carry the ID of the newly published object once the batch is executed.
+	 */
+	BatchResult<String> publish(String objectId, String connectionName, MultiValueMap<String, Object> data);
+
+	/**
+	 * Adds a request to post data to an object to the batch.
+	 * Binary data (such as photo or video uploads) cannot be posted in a batch.
+	 * @param objectId the object ID to publish to.
+	 * @param data the data to publish to the object.
+	 * @return a {@link BatchResult} that completes without a value once the batch is executed.
+	 */
+	BatchResult<Void> post(String objectId, MultiValueMap<String, Object> data);
+
+	/**
+	 * Adds a request to post data to an object's connection to the batch.
+	 * Binary data (such as photo or video uploads) cannot be posted in a batch.
+	 * @param objectId the object ID to publish to.
+	 * @param connectionName the connection name to publish to.
+	 * @param data the data to publish to the connection.
+	 * @return a {@link BatchResult} that completes without a value once the batch is executed.
+	 */
+	BatchResult<Void> post(String objectId, String connectionName, MultiValueMap<String, Object> data);
+
+	/**
+	 * Adds a request to delete an object to the batch.
+	 * @param objectId the object ID
+	 * @return a {@link BatchResult} that completes without a value once the batch is executed.
+	 */
+	BatchResult<Void> delete(String objectId);
+
+	/**
+	 * Adds a request to delete an object connection to the batch.
+	 * @param objectId the object ID
+	 * @param connectionName the connection name
+	 * @return a {@link BatchResult} that completes without a value once the batch is executed.
+	 */
+	BatchResult<Void> delete(String objectId, String connectionName);
+
+	/**
+	 * @return the number of operations collected in this batch that have not been executed yet.
+	 */
+	int size();
+
+	/**
+	 * Sends all collected operations to Facebook and populates their {@link BatchResult}s.
+	 * Errors reported by Facebook for individual operations do not cause this method to fail; they are
+	 * carried by the corresponding {@link BatchResult}s instead.
+	 * If sending a batch fails, the exception is thrown after it has been carried by the results of every operation that
+	 * was not completed, including those of any later batches, which are not sent.
+	 * Operations added after this method returns are sent the next time it is called.
+	 */
+	void execute();
+
+}
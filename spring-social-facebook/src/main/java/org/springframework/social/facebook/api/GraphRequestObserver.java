@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+/**
+ * Observes the Graph API requests made by a FacebookTemplate, receiving a breakdown of where the time went for each of them.
+ * Observers are called on the thread that made the request, once its response has been read and closed (or once it has failed),
+ * so implementations should be quick and must be thread-safe if shared by several FacebookTemplates.
+ * @see org.springframework.social.facebook.api.impl.FacebookTemplate#setRequestObserver(GraphRequestObserver)
+ */
+@FunctionalInterface
+public interface GraphRequestObserver {
+
+	/**
+	 * Called when a request has completed, successfully or not.
+	 * @param timings the timings of the request
+	 */
+	void requestCompleted(GraphRequestTimings timings);
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import java.net.URI;
+import java.time.Duration;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * A breakdown of the time taken by a single Graph API request, as reported to a {@link GraphRequestObserver},
+ * along with the headers Facebook returns for tracing the request on its side.
+ * <p>
+ * The phases follow one another:
+ * queue time (until the request is sent), time to first byte (until the response headers arrive), and then
+ * body read time and binding time, which interleave since responses are bound as they are read.
+ * Connection acquire, connect, and TLS handshake times are part of the time to first byte, and are only reported by
+ * transports that can measure them (such as one created by {@link org.springframework.social.facebook.api.impl.GraphTransport}
+ * with Apache HttpComponents HttpClient on the classpath).
+ * If a request was retried, the times after the queue time are those of its last attempt.
+ * </p>
+ */
+public interface GraphRequestTimings {
+
+	/**
+	 * @return the HTTP method of the request.
+	 */
+	HttpMethod getMethod();
+
+	/**
+	 * @return the URI of the request.
+	 */
+	URI getUri();
+
+	/**
+	 * @return the number of times the request was sent. Zero if it was rejected before being sent.
+	 */
+	int getAttempts();
+
+	/**
+	 * @return the HTTP status code of the response, or null if no response was received.
+	 */
+	Integer getStatusCode();
+
+	/**
+	 * @return the exception that failed the request before a response was received, or null.
+	 * Error responses are reported through {@link #getStatusCode()}, not as exceptions.
+	 */
+	Throwable getException();
+
+	/**
+	 * @return the time from the request being made until its last attempt was sent, such as time spent paced by a rate limiter,
+	 * or in earlier attempts and the backoff between them. Null if the request was never sent.
+	 */
+	Duration getQueueTime();
+
+	/**
+	 * @return the time taken to acquire a connection from the connection pool, or null if not reported by the transport.
+	 */
+	Duration getConnectionAcquireTime();
+
+	/**
+	 * @return the time taken to open a new connection, including the TLS handshake; zero if a pooled connection was reused.
+	 * Null if not reported by the transport.
+	 */
+	Duration getConnectTime();
+
+	/**
+	 * @return the time taken by the TLS handshake of a new connection; zero if a pooled connection was reused.
+	 * Null if not reported by the transport.
+	 */
+	Duration getTlsHandshakeTime();
+
+	/**
+	 * @return the time from sending the request until the response status and headers were received, including acquiring
+	 * a connection and writing the request. Null if no response was received.
+	 */
+	Duration getTimeToFirstByte();
+
+	/**
+	 * @return the time spent waiting on the network while reading the response body.
+	 */
+	Duration getBodyReadTime();
+
+	/**
+	 * @return the time spent binding the response to Java objects, not counting the time spent reading the body.
+	 * Null if the response was not bound by {@link GraphApi#fetchObject(String, Class) fetchObject()} or
+	 * {@link GraphApi#fetchConnections(String, String, Class, String...) fetchConnections()}.
+	 */
+	Duration getBindingTime();
+
+	/**
+	 * @return the time from the request being made until its response was closed or it failed.
+	 */
+	Duration getTotalTime();
+
+	/**
+	 * @return the <code>x-fb-trace-id</code> header of the response, identifying the request to Facebook support. May be null.
+	 */
+	String getTraceId();
+
+	/**
+	 * @return the <code>x-fb-rev</code> header of the response, the revision of Facebook's code that served the request. May be null.
+	 */
+	String getRevision();
+
+	/**
+	 * @return the <code>x-fb-debug</code> header of the response, an opaque value for Facebook to debug the request with. May be null.
+	 */
+	String getDebug();
+
+}
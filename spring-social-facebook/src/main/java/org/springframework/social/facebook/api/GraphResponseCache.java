@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * A read-through cache of Graph API responses, consulted by {@link GraphApi#fetchObject(String, Class, org.springframework.util.MultiValueMap) fetchObject()}
+ * and {@link GraphApi#fetchConnections(String, String, Class, org.springframework.util.MultiValueMap) fetchConnections()}.
+ * Since a cache is typically shared by many FacebookTemplates, implementations must be thread-safe.
+ * Cached objects are handed to every caller that asks for the same response, so they should be treated as read-only.
+ */
+public interface GraphResponseCache {
+
+	/**
+	 * Returns the cached response for the given key.
+	 * If there is no cached response for the key, or it has expired, the response is fetched with the given loader
+	 * and (if not null) cached.
+	 * @param key the key identifying the response
+	 * @param loader fetches the response from Facebook
+	 * @param <T> the type of the response
+	 * @return the response
+	 */
+	<T> T get(Key key, Supplier<T> loader);
+
+	/**
+	 * Removes all cached responses.
+	 */
+	void clear();
+
+	/**
+	 * Identifies a cached response by the access token it was fetched with, the request URI (including the requested fields),
+	 * and the Java type the response was bound to.
+	 */
+	final class Key {
+
+		private final String scope;
+
+		private final String uri;
+
+		private final Class<?> type;
+
+		private final boolean connection;
+
+		/**
+		 * @param scope the access token (or other value identifying whose view of the Graph the response reflects)
+		 * @param uri the normalized request URI
+		 * @param type the Java type of the response or, for a connection, of each of its entries
+		 * @param connection true if the response is a page of a connection
+		 */
+		public Key(String scope, String uri, Class<?> type, boolean connection) {
+			Assert.notNull(uri, "URI must not be null");
+			Assert.notNull(type, "Type must not be null");
+			this.scope = scope != null ? scope : "";
+			this.uri = uri;
+			this.type = type;
+			this.connection = connection;
+		}
+
+		public String getScope() {
+			return scope;
+		}
+
+		public String getUri() {
+			return uri;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		public boolean isConnection() {
+			return connection;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) other;
+			return connection == that.connection && type == that.type && uri.equals(that.uri) && scope.equals(that.scope);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = scope.hashCode();
+			result = 31 * result + uri.hashCode();
+			result = 31 * result + type.hashCode();
+			return 31 * result + (connection ? 1 : 0);
+		}
+
+		@Override
+		public String toString() {
+			// leaves out the scope so that access tokens don't end up in logs
+			return (connection ? "connection of " : "") + type.getSimpleName() + " at " + uri;
+		}
+
+	}
+
+}
@@ -15,6 +15,9 @@
  */
 package org.springframework.social.facebook.api;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.social.ApiException;
 import org.springframework.social.InsufficientPermissionException;
 import org.springframework.social.MissingAuthorizationException;
@@ -33,6 +36,14 @@ public interface GroupOperations {
 	 * @throws ApiException if there is an error while communicating with Facebook.
 	 */
 	Group getGroup(String groupId);
+
+	/**
+	 * Retrieve data for the specified groups, fetching up to {@link GraphApi#MAX_OBJECTS_PER_REQUEST} groups per request.
+	 * @param groupIds the IDs of the groups
+	 * @return a map of {@link Group} objects, keyed by group ID
+	 * @throws ApiException if there is an error while communicating with Facebook.
+	 */
+	Map<String, Group> getGroups(List<String> groupIds);
 	
 	/**
 	 * Retrieves a group's image as an array of bytes. Returns the image in Facebook's "normal" type.
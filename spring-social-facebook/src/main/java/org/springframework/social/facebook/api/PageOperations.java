@@ -15,6 +15,9 @@
  */
 package org.springframework.social.facebook.api;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -34,6 +37,13 @@ public interface PageOperations {
 	 * @return a {@link Page}
 	 */
 	Page getPage(String pageId);
+
+	/**
+	 * Retrieves data for the specified pages, fetching up to {@link GraphApi#MAX_OBJECTS_PER_REQUEST} pages per request.
+	 * @param pageIds the page IDs.
+	 * @return a map of {@link Page}s, keyed by page ID
+	 */
+	Map<String, Page> getPages(List<String> pageIds);
 	
 	/**
 	 * Updates page information.
@@ -38,6 +38,8 @@ public class Post extends FacebookObject {
 
 	private String caption;
 
+	private PagedList<Comment> comments;
+
 	private Date createdTime;
 
 	private String description;
@@ -50,6 +52,8 @@ public class Post extends FacebookObject {
 	
 	private boolean isPublished;
 	
+	private PagedList<Reference> likes;
+
 	private String link;
 	
 	private String message;
@@ -106,6 +110,13 @@ public class Post extends FacebookObject {
 		return caption;
 	}
 	
+	/**
+	 * @return the post's comments if the "comments" connection was requested as a nested field (e.g., with {@link Fields#connection(String)}), otherwise null.
+	 */
+	public PagedList<Comment> getComments() {
+		return comments;
+	}
+
 	public Date getCreatedTime() {
 		return createdTime;
 	}
@@ -130,6 +141,13 @@ public class Post extends FacebookObject {
 		return isPublished;
 	}
 	
+	/**
+	 * @return the users who like the post if the "likes" connection was requested as a nested field (e.g., with {@link Fields#connection(String)}), otherwise null.
+	 */
+	public PagedList<Reference> getLikes() {
+		return likes;
+	}
+
 	public String getLink() {
 		return link;
 	}
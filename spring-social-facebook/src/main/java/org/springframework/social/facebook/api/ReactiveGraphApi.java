@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import org.springframework.util.MultiValueMap;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive view of a Graph API connection that follows the connection's paging cursors until the last page has been read.
+ * Pages are only requested as subscribers signal demand for them, optionally prefetching ahead of the page being consumed.
+ * Requires Reactor on the classpath.
+ */
+public interface ReactiveGraphApi {
+
+	/**
+	 * Fetches all pages of a connection, extracting them into the given Java type.
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a {@link Flux} of the connection's pages, completing after the last non-empty page.
+	 */
+	<T> Flux<PagedList<T>> fetchPages(String objectId, String connectionName, Class<T> type, String... fields);
+
+	/**
+	 * Fetches all pages of a connection, extracting them into the given Java type.
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param queryParameters query parameters to include in the request for the first page (e.g., limit)
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a {@link Flux} of the connection's pages, completing after the last non-empty page.
+	 */
+	<T> Flux<PagedList<T>> fetchPages(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters);
+
+	/**
+	 * Fetches all of a connection's entries, following the connection's paging cursors as the entries are consumed.
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param fields the fields to include in the response.
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a {@link Flux} of Java objects representing the Facebook objects in the connection.
+	 */
+	<T> Flux<T> fetchConnections(String objectId, String connectionName, Class<T> type, String... fields);
+
+	/**
+	 * Fetches all of a connection's entries, following the connection's paging cursors as the entries are consumed.
+	 * Requires appropriate permission to fetch the object connection.
+	 * @param objectId the ID of the object to retrieve the connections for.
+	 * @param connectionName the connection name.
+	 * @param type the Java type of each connection.
+	 * @param queryParameters query parameters to include in the request for the first page (e.g., limit)
+	 * @param <T> The Java type to bind the Facebook object to
+	 * @return a {@link Flux} of Java objects representing the Facebook objects in the connection.
+	 */
+	<T> Flux<T> fetchConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters);
+
+}
@@ -16,6 +16,7 @@
 package org.springframework.social.facebook.api;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.social.ApiException;
 import org.springframework.social.MissingAuthorizationException;
@@ -40,6 +41,14 @@ public interface UserOperations {
 	 */
 	User getUserProfile(String userId);
 
+	/**
+	 * Retrieves the profiles for the specified users, fetching up to {@link GraphApi#MAX_OBJECTS_PER_REQUEST} users per request.
+	 * @param userIds the Facebook user IDs to retrieve profile data for.
+	 * @return the users' profile information, keyed by user ID.
+	 * @throws ApiException if there is an error while communicating with Facebook.
+	 */
+	Map<String, User> getUserProfiles(List<String> userIds);
+
 	/**
 	 * Retrieves the user's profile image. Returns the image in Facebook's "normal" type.
 	 * @return an array of bytes containing the user's profile image.
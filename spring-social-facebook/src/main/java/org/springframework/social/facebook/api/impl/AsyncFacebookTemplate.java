@@ -0,0 +1,399 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.social.UncategorizedApiException;
+import org.springframework.social.facebook.api.AsyncFacebook;
+import org.springframework.social.facebook.api.AsyncFeedOperations;
+import org.springframework.social.facebook.api.AsyncUserOperations;
+import org.springframework.social.facebook.api.Facebook;
+import org.springframework.social.facebook.api.Fields;
+import org.springframework.social.facebook.api.ImageType;
+import org.springframework.social.facebook.api.PagedList;
+import org.springframework.social.facebook.security.AppSecretProofProvider;
+import org.springframework.social.support.URIBuilder;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link AsyncFacebook} implementation that makes its requests with a non-blocking {@link WebClient}.
+ * No thread waits while a request is in flight: each future is completed on one of the client's I/O threads once the response
+ * has been read and bound, so stages that block should be chained with the <code>*Async</code> methods of {@link CompletableFuture}
+ * rather than run on that thread.
+ * <p>
+ * Responses are bound with the ObjectMapper shared by all FacebookTemplates, and error responses are translated into the same
+ * exceptions that {@link FacebookTemplate} throws.
+ * Requires Spring WebFlux on the classpath, along with Reactor Netty unless another {@link ClientHttpConnector} is given.
+ * A connector may be shared by any number of templates, which then share its connections and I/O threads.
+ * </p>
+ */
+public class AsyncFacebookTemplate implements AsyncFacebook {
+
+	private static final int MAX_REDIRECTS = 5;
+
+	private static final byte[] EMPTY_BODY = new byte[0];
+
+	private final String accessToken;
+
+	private final String appSecret;
+
+	private final AppSecretProofProvider proofProvider;
+
+	private final WebClient webClient;
+
+	private final ObjectMapper objectMapper = FacebookTemplate.getSharedObjectMapper();
+
+	private final FacebookErrorHandler errorHandler = new FacebookErrorHandler();
+
+	private String apiVersion = Facebook.DEFAULT_API_VERSION;
+
+	private volatile AsyncFeedOperations feedOperations;
+
+	private volatile AsyncUserOperations userOperations;
+
+	private volatile Facebook facebook;
+
+	/**
+	 * Create a new instance of AsyncFacebookTemplate that makes its requests with Reactor Netty.
+	 * @param accessToken An access token given by Facebook after a successful OAuth 2 authentication (or through Facebook's JS library).
+	 */
+	public AsyncFacebookTemplate(String accessToken) {
+		this(accessToken, null);
+	}
+
+	/**
+	 * Create a new instance of AsyncFacebookTemplate that makes its requests with Reactor Netty.
+	 * @param accessToken An access token given by Facebook after a successful OAuth 2 authentication (or through Facebook's JS library).
+	 * @param appSecret the application's App Secret as assigned by Facebook. If not null, requests will carry an appsecret_proof parameter.
+	 */
+	public AsyncFacebookTemplate(String accessToken, String appSecret) {
+		this(accessToken, appSecret, new ReactorClientHttpConnector());
+	}
+
+	/**
+	 * Create a new instance of AsyncFacebookTemplate.
+	 * @param accessToken An access token given by Facebook after a successful OAuth 2 authentication (or through Facebook's JS library).
+	 * @param appSecret the application's App Secret as assigned by Facebook. If not null, requests will carry an appsecret_proof parameter.
+	 * @param connector the non-blocking HTTP client connector to make requests with
+	 */
+	public AsyncFacebookTemplate(String accessToken, String appSecret, ClientHttpConnector connector) {
+		Assert.hasText(accessToken, "Access token must not be empty");
+		Assert.notNull(connector, "ClientHttpConnector must not be null");
+		this.accessToken = accessToken;
+		this.appSecret = appSecret;
+		this.proofProvider = appSecret != null ? AppSecretProofProvider.forAppSecret(appSecret) : null;
+		this.webClient = WebClient.builder().clientConnector(connector).build();
+	}
+
+	/**
+	 * Set the Graph API version (e.g., "2.10"). If set to null, the version will be left out of the request URLs to the
+	 * Graph API.
+	 * @param apiVersion the API version. Default is "2.10".
+	 */
+	public void setApiVersion(String apiVersion) {
+		this.apiVersion = apiVersion;
+	}
+
+	/**
+	 * Set the {@link Facebook} that operations given to {@link #submit(Function, Executor)} are performed against, such as one
+	 * created by a {@link FacebookTemplateFactory} so that it shares the factory's request factory and settings.
+	 * @param facebook the Facebook to perform submitted operations against. By default, a FacebookTemplate for the same
+	 * access token, app secret, and API version is created when an operation is first submitted.
+	 */
+	public void setFacebook(Facebook facebook) {
+		this.facebook = facebook;
+	}
+
+	public AsyncFeedOperations feedOperations() {
+		AsyncFeedOperations operations = feedOperations;
+		if (operations == null) {
+			operations = new AsyncFeedTemplate(this, objectMapper);
+			feedOperations = operations;
+		}
+		return operations;
+	}
+
+	public AsyncUserOperations userOperations() {
+		AsyncUserOperations operations = userOperations;
+		if (operations == null) {
+			operations = new AsyncUserTemplate(this);
+			userOperations = operations;
+		}
+		return operations;
+	}
+
+	public <T> CompletableFuture<T> submit(Function<? super Facebook, ? extends T> operation, Executor executor) {
+		Assert.notNull(operation, "Operation must not be null");
+		Assert.notNull(executor, "Executor must not be null");
+		return CompletableFuture.<T>supplyAsync(() -> operation.apply(getFacebook()), executor);
+	}
+
+	// low-level Graph API operations
+	public <T> CompletableFuture<T> fetchObject(String objectId, Class<T> type) {
+		return fetchObject(objectId, type, new LinkedMultiValueMap<String, String>());
+	}
+
+	public <T> CompletableFuture<T> fetchObject(String objectId, Class<T> type, String... fields) {
+		return fetchObject(objectId, type, fieldsParameter(fields));
+	}
+
+	public <T> CompletableFuture<T> fetchObject(String objectId, Class<T> type, MultiValueMap<String, String> queryParameters) {
+		URI uri = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId).queryParams(queryParameters).build();
+		return fetch(uri, objectMapper.readerFor(type));
+	}
+
+	public <T> CompletableFuture<T> fetchObject(String objectId, Class<T> type, Fields fields) {
+		return fetchObject(objectId, type, fieldsParameter(fields));
+	}
+
+	public <T> CompletableFuture<Map<String, T>> fetchObjects(List<String> objectIds, Class<T> type, String... fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		queryParameters.set("ids", "");
+		queryParameters.putAll(fieldsParameter(fields));
+		ObjectReader reader = objectMapper.readerFor(objectMapper.getTypeFactory().constructMapType(Map.class, String.class, type));
+		// the chunks are fetched concurrently and merged in order once all of them have been fetched
+		List<CompletableFuture<Map<String, T>>> chunks = new ArrayList<CompletableFuture<Map<String, T>>>();
+		for (List<String> chunk : FacebookTemplate.chunkObjectIds(getBaseGraphApiUrl(), objectIds, queryParameters)) {
+			queryParameters.set("ids", StringUtils.collectionToCommaDelimitedString(chunk));
+			chunks.add(this.<Map<String, T>>fetch(URIBuilder.fromUri(getBaseGraphApiUrl()).queryParams(queryParameters).build(), reader));
+		}
+		return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[chunks.size()])).thenApply(done -> {
+			Map<String, T> objects = new LinkedHashMap<String, T>();
+			for (CompletableFuture<Map<String, T>> chunk : chunks) {
+				Map<String, T> chunkObjects = chunk.join();
+				if (chunkObjects != null) {
+					objects.putAll(chunkObjects);
+				}
+			}
+			return objects;
+		});
+	}
+
+	public <T> CompletableFuture<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, String... fields) {
+		return fetchConnections(objectId, connectionName, type, fieldsParameter(fields));
+	}
+
+	public <T> CompletableFuture<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, Fields fields) {
+		return fetchConnections(objectId, connectionName, type, fieldsParameter(fields));
+	}
+
+	public <T> CompletableFuture<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters) {
+		String connectionPath = connectionName != null && connectionName.length() > 0 ? "/" + connectionName : "";
+		URI uri = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId + connectionPath).queryParams(queryParameters).build();
+		return fetch(uri, objectMapper.readerFor(objectMapper.getTypeFactory().constructParametricType(PagedList.class, type)));
+	}
+
+	public CompletableFuture<byte[]> fetchImage(String objectId, String connectionName, ImageType imageType) {
+		return fetchImage(objectId, connectionName, imageType, null, null);
+	}
+
+	public CompletableFuture<byte[]> fetchImage(String objectId, String connectionName, Integer width, Integer height) {
+		return fetchImage(objectId, connectionName, null, width, height);
+	}
+
+	public CompletableFuture<String> publish(String objectId, String connectionName, MultiValueMap<String, Object> data) {
+		URI uri = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId + "/" + connectionName).build();
+		return exchange(HttpMethod.POST, uri, formData(data), body -> (String) objectMapper.readValue(body, Map.class).get("id"));
+	}
+
+	public CompletableFuture<Void> post(String objectId, MultiValueMap<String, Object> data) {
+		return post(objectId, null, data);
+	}
+
+	public CompletableFuture<Void> post(String objectId, String connectionName, MultiValueMap<String, Object> data) {
+		String connectionPath = connectionName != null ? "/" + connectionName : "";
+		URI uri = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId + connectionPath).build();
+		return exchange(HttpMethod.POST, uri, formData(data), body -> null);
+	}
+
+	public CompletableFuture<Void> delete(String objectId) {
+		return delete(URIBuilder.fromUri(getBaseGraphApiUrl() + objectId).build());
+	}
+
+	public CompletableFuture<Void> delete(String objectId, String connectionName) {
+		return delete(URIBuilder.fromUri(getBaseGraphApiUrl() + objectId + "/" + connectionName).build());
+	}
+
+	public String getBaseGraphApiUrl() {
+		if (apiVersion != null) {
+			return "https://graph.facebook.com/v" + apiVersion + "/";
+		}
+		return "https://graph.facebook.com/";
+	}
+
+	/**
+	 * Performs a GET request, binding the response with the given reader.
+	 */
+	<T> CompletableFuture<T> fetch(URI uri, ObjectReader reader) {
+		return exchange(HttpMethod.GET, uri, null, reader::readValue);
+	}
+
+	// private helpers
+
+	private Facebook getFacebook() {
+		Facebook api = facebook;
+		if (api == null) {
+			// racing threads may each create a template; any of them is equally usable
+			FacebookTemplate template = new FacebookTemplate(accessToken, null, null, appSecret);
+			template.setApiVersion(apiVersion);
+			api = template;
+			facebook = api;
+		}
+		return api;
+	}
+
+	private CompletableFuture<byte[]> fetchImage(String objectId, String connectionName, ImageType type, Integer width, Integer height) {
+		URIBuilder uriBuilder = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId + "/" + connectionName);
+		if (type != null) {
+			uriBuilder.queryParam("type", type.toString().toLowerCase());
+		}
+		if (width != null) {
+			uriBuilder.queryParam("width", width.toString());
+		}
+		if (height != null) {
+			uriBuilder.queryParam("height", height.toString());
+		}
+		return exchange(HttpMethod.GET, uriBuilder.build(), null, body -> body);
+	}
+
+	private CompletableFuture<Void> delete(URI uri) {
+		MultiValueMap<String, String> deleteRequest = new LinkedMultiValueMap<String, String>();
+		deleteRequest.set("method", "delete");
+		return exchange(HttpMethod.POST, uri, BodyInserters.fromFormData(deleteRequest), body -> null);
+	}
+
+	private <T> CompletableFuture<T> exchange(HttpMethod method, URI uri, BodyInserter<?, ? super ClientHttpRequest> body, ResponseBinder<T> binder) {
+		if (proofProvider != null) {
+			uri = UriComponentsBuilder.fromUri(uri).queryParam("appsecret_proof", proofProvider.getProof(accessToken)).build(true).toUri();
+		}
+		return send(method, uri, body, true, MAX_REDIRECTS).map(response -> bind(response, binder)).toFuture();
+	}
+
+	/**
+	 * Sends a request and reads its response's body, following redirects of GET requests (as to the CDN that images are served from).
+	 * The access token is only sent to the host of the original request.
+	 */
+	private Mono<Response> send(HttpMethod method, URI uri, BodyInserter<?, ? super ClientHttpRequest> body, boolean authorized, int redirects) {
+		WebClient.RequestBodySpec request = webClient.method(method).uri(uri);
+		if (authorized) {
+			request = request.header(HttpHeaders.AUTHORIZATION, "OAuth " + accessToken);
+		}
+		WebClient.RequestHeadersSpec<?> exchange = body != null ? request.body(body) : request;
+		return exchange.exchange().flatMap(response -> response.bodyToMono(byte[].class).defaultIfEmpty(EMPTY_BODY).flatMap(responseBody -> {
+			HttpHeaders headers = response.headers().asHttpHeaders();
+			URI location = headers.getLocation();
+			if (response.statusCode().is3xxRedirection() && location != null && method == HttpMethod.GET && redirects > 0) {
+				URI redirect = uri.resolve(location);
+				return send(HttpMethod.GET, redirect, null, authorized && uri.getHost().equalsIgnoreCase(redirect.getHost()), redirects - 1);
+			}
+			return Mono.just(new Response(response.statusCode(), headers, responseBody));
+		}));
+	}
+
+	private <T> T bind(Response response, ResponseBinder<T> binder) {
+		if (response.status.isError()) {
+			errorHandler.handleError(response.status, response.headers, response.body);
+		}
+		try {
+			return binder.bind(response.body);
+		} catch (IOException e) {
+			throw new UncategorizedApiException("facebook", "Error binding Graph API response", e);
+		}
+	}
+
+	/**
+	 * Writes the data as a form, as RestTemplate's FormHttpMessageConverter would: URL-encoded if every value is a String,
+	 * and multipart otherwise (e.g., when uploading a file).
+	 */
+	private BodyInserter<?, ? super ClientHttpRequest> formData(MultiValueMap<String, Object> data) {
+		MultiValueMap<String, String> form = new LinkedMultiValueMap<String, String>();
+		for (Map.Entry<String, List<Object>> entry : data.entrySet()) {
+			for (Object value : entry.getValue()) {
+				if (value != null && !(value instanceof String)) {
+					return BodyInserters.fromMultipartData(data);
+				}
+				form.add(entry.getKey(), (String) value);
+			}
+		}
+		return BodyInserters.fromFormData(form);
+	}
+
+	private MultiValueMap<String, String> fieldsParameter(String[] fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		if (fields.length > 0) {
+			queryParameters.set("fields", StringUtils.arrayToCommaDelimitedString(fields));
+		}
+		return queryParameters;
+	}
+
+	private MultiValueMap<String, String> fieldsParameter(Fields fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		if (!fields.isEmpty()) {
+			queryParameters.set("fields", fields.toString());
+		}
+		return queryParameters;
+	}
+
+	private interface ResponseBinder<T> {
+
+		T bind(byte[] body) throws IOException;
+
+	}
+
+	private static class Response {
+
+		private final HttpStatus status;
+
+		private final HttpHeaders headers;
+
+		private final byte[] body;
+
+		public Response(HttpStatus status, HttpHeaders headers, byte[] body) {
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+		}
+
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import static org.springframework.social.facebook.api.impl.PagedListUtils.*;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.social.facebook.api.AsyncFeedOperations;
+import org.springframework.social.facebook.api.FacebookLink;
+import org.springframework.social.facebook.api.PagedList;
+import org.springframework.social.facebook.api.PagingParameters;
+import org.springframework.social.facebook.api.Post;
+import org.springframework.social.facebook.api.Post.PostType;
+import org.springframework.social.facebook.api.PostData;
+import org.springframework.social.facebook.api.impl.json.FacebookModule;
+import org.springframework.social.support.URIBuilder;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+class AsyncFeedTemplate implements AsyncFeedOperations {
+
+	private static final PagingParameters FIRST_PAGE = new PagingParameters(25, null, null, null);
+
+	private final AsyncFacebookTemplate graphApi;
+
+	private final ObjectMapper objectMapper;
+
+	public AsyncFeedTemplate(AsyncFacebookTemplate graphApi, ObjectMapper objectMapper) {
+		this.graphApi = graphApi;
+		this.objectMapper = objectMapper;
+	}
+
+	public CompletableFuture<PagedList<Post>> getFeed() {
+		return getFeed("me", FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getFeed(PagingParameters pagedListParameters) {
+		return getFeed("me", pagedListParameters);
+	}
+
+	public CompletableFuture<PagedList<Post>> getFeed(String ownerId) {
+		return getFeed(ownerId, FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getFeed(String ownerId, PagingParameters pagedListParameters) {
+		return fetchPosts(graphApi.getBaseGraphApiUrl() + ownerId + "/feed", pagedListParameters, null);
+	}
+
+	public CompletableFuture<PagedList<Post>> getHomeFeed() {
+		return getHomeFeed(FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getHomeFeed(PagingParameters pagedListParameters) {
+		return fetchPosts(graphApi.getBaseGraphApiUrl() + "me/home", pagedListParameters, null);
+	}
+
+	public CompletableFuture<PagedList<Post>> getStatuses() {
+		return getStatuses("me", FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getStatuses(PagingParameters pagedListParameters) {
+		return getStatuses("me", pagedListParameters);
+	}
+
+	public CompletableFuture<PagedList<Post>> getStatuses(String userId) {
+		return getStatuses(userId, FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getStatuses(String userId, PagingParameters pagedListParameters) {
+		return fetchPosts(graphApi.getBaseGraphApiUrl() + userId + "/statuses", pagedListParameters, PostType.STATUS);
+	}
+
+	public CompletableFuture<PagedList<Post>> getLinks() {
+		return getLinks("me", FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getLinks(PagingParameters pagedListParameters) {
+		return getLinks("me", pagedListParameters);
+	}
+
+	public CompletableFuture<PagedList<Post>> getLinks(String ownerId) {
+		return getLinks(ownerId, FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getLinks(String ownerId, PagingParameters pagedListParameters) {
+		return fetchPosts(graphApi.getBaseGraphApiUrl() + ownerId + "/links", pagedListParameters, PostType.LINK);
+	}
+
+	public CompletableFuture<PagedList<Post>> getPosts() {
+		return getPosts("me", FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getPosts(PagingParameters pagedListParameters) {
+		return getPosts("me", pagedListParameters);
+	}
+
+	public CompletableFuture<PagedList<Post>> getPosts(String ownerId) {
+		return getPosts(ownerId, FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getPosts(String ownerId, PagingParameters pagedListParameters) {
+		return fetchPosts(graphApi.getBaseGraphApiUrl() + ownerId + "/posts", pagedListParameters, null);
+	}
+
+	public CompletableFuture<PagedList<Post>> getTagged() {
+		return getTagged("me", FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getTagged(PagingParameters pagedListParameters) {
+		return getTagged("me", pagedListParameters);
+	}
+
+	public CompletableFuture<PagedList<Post>> getTagged(String ownerId) {
+		return getTagged(ownerId, FIRST_PAGE);
+	}
+
+	public CompletableFuture<PagedList<Post>> getTagged(String ownerId, PagingParameters pagedListParameters) {
+		return fetchPosts(graphApi.getBaseGraphApiUrl() + ownerId + "/tagged", pagedListParameters, null);
+	}
+
+	public CompletableFuture<Post> getPost(String entryId) {
+		return graphApi.fetchObject(entryId, Post.class);
+	}
+
+	public CompletableFuture<String> updateStatus(String message) {
+		return post("me", message);
+	}
+
+	public CompletableFuture<String> postLink(String message, FacebookLink link) {
+		return postLink("me", message, link);
+	}
+
+	public CompletableFuture<String> postLink(String ownerId, String message, FacebookLink link) {
+		MultiValueMap<String, Object> map = new LinkedMultiValueMap<String, Object>();
+		map.set("link", link.getLink());
+		map.set("name", link.getName());
+		map.set("caption", link.getCaption());
+		map.set("description", link.getDescription());
+		map.set("message", message);
+		if (link.getPicture() != null) map.set("picture", link.getPicture());
+		return graphApi.publish(ownerId, "feed", map);
+	}
+
+	public CompletableFuture<String> post(PostData post) {
+		return graphApi.publish(post.getTargetFeedId(), "feed", post.toRequestParameters());
+	}
+
+	public CompletableFuture<String> post(String ownerId, String message) {
+		MultiValueMap<String, Object> map = new LinkedMultiValueMap<String, Object>();
+		map.set("message", message);
+		return graphApi.publish(ownerId, "feed", map);
+	}
+
+	public CompletableFuture<Void> deletePost(String id) {
+		return graphApi.delete(id);
+	}
+
+	public CompletableFuture<PagedList<Post>> getCheckins() {
+		return getCheckins(new PagingParameters(25, 0, null, null));
+	}
+
+	public CompletableFuture<PagedList<Post>> getCheckins(PagingParameters pagedListParameters) {
+		MultiValueMap<String, String> params = getPagingParameters(pagedListParameters);
+		params.set("with", "location");
+		return graphApi.fetchConnections("me", "posts", Post.class, params);
+	}
+
+	public CompletableFuture<Post> getCheckin(String checkinId) {
+		return graphApi.fetchObject(checkinId, Post.class);
+	}
+
+	// private helpers
+
+	private CompletableFuture<PagedList<Post>> fetchPosts(String baseUri, PagingParameters pagedListParameters, PostType postType) {
+		URIBuilder uriBuilder = FeedTemplate.appendPagedListParameters(pagedListParameters, URIBuilder.fromUri(baseUri));
+		uriBuilder.queryParam("fields", StringUtils.arrayToCommaDelimitedString(FeedTemplate.ALL_POST_FIELDS));
+		URI uri = uriBuilder.build();
+		ObjectReader reader = objectMapper.readerFor(objectMapper.getTypeFactory().constructParametricType(PagedList.class, Post.class));
+		if (postType != null) {
+			// some connections only contain posts of one type, but don't always say so in each post
+			reader = reader.withAttribute(FacebookModule.POST_TYPE_ATTRIBUTE, postType);
+		}
+		return graphApi.fetch(uri, reader);
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import static org.springframework.social.facebook.api.UserOperations.PROFILE_FIELDS;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.social.facebook.api.AsyncGraphApi;
+import org.springframework.social.facebook.api.AsyncUserOperations;
+import org.springframework.social.facebook.api.ImageType;
+import org.springframework.social.facebook.api.PagedList;
+import org.springframework.social.facebook.api.Permission;
+import org.springframework.social.facebook.api.PlaceTag;
+import org.springframework.social.facebook.api.Reference;
+import org.springframework.social.facebook.api.User;
+import org.springframework.social.facebook.api.UserIdForApp;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+class AsyncUserTemplate implements AsyncUserOperations {
+
+	private final AsyncGraphApi graphApi;
+
+	public AsyncUserTemplate(AsyncGraphApi graphApi) {
+		this.graphApi = graphApi;
+	}
+
+	public CompletableFuture<User> getUserProfile() {
+		return getUserProfile("me");
+	}
+
+	public CompletableFuture<User> getUserProfile(String facebookId) {
+		return graphApi.fetchObject(facebookId, User.class, PROFILE_FIELDS);
+	}
+
+	public CompletableFuture<Map<String, User>> getUserProfiles(List<String> facebookIds) {
+		return graphApi.fetchObjects(facebookIds, User.class, PROFILE_FIELDS);
+	}
+
+	public CompletableFuture<byte[]> getUserProfileImage() {
+		return getUserProfileImage("me", ImageType.NORMAL);
+	}
+
+	public CompletableFuture<byte[]> getUserProfileImage(String userId) {
+		return getUserProfileImage(userId, ImageType.NORMAL);
+	}
+
+	public CompletableFuture<byte[]> getUserProfileImage(ImageType imageType) {
+		return getUserProfileImage("me", imageType);
+	}
+
+	public CompletableFuture<byte[]> getUserProfileImage(String userId, ImageType imageType) {
+		return graphApi.fetchImage(userId, "picture", imageType);
+	}
+
+	public CompletableFuture<byte[]> getUserProfileImage(Integer width, Integer height) {
+		return getUserProfileImage("me", width, height);
+	}
+
+	public CompletableFuture<byte[]> getUserProfileImage(String userId, Integer width, Integer height) {
+		return graphApi.fetchImage(userId, "picture", width, height);
+	}
+
+	public CompletableFuture<List<Permission>> getUserPermissions() {
+		return graphApi.fetchObject("me/permissions", JsonNode.class).thenApply(UserTemplate::deserializePermissionsNodeToList);
+	}
+
+	public CompletableFuture<List<UserIdForApp>> getIdsForBusiness() {
+		return graphApi.fetchConnections("me", "ids_for_business", UserIdForApp.class).thenApply(ids -> ids);
+	}
+
+	public CompletableFuture<List<PlaceTag>> getTaggedPlaces() {
+		return graphApi.fetchConnections("me", "tagged_places", PlaceTag.class).thenApply(places -> places);
+	}
+
+	public CompletableFuture<PagedList<Reference>> search(String query) {
+		MultiValueMap<String, String> queryMap = new LinkedMultiValueMap<String, String>();
+		queryMap.add("q", query);
+		queryMap.add("type", "user");
+		return graphApi.fetchConnections("search", null, Reference.class, queryMap);
+	}
+
+}
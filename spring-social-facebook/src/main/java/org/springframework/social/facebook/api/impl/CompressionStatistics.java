@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes of gzip-compressed Graph API responses as transferred and after decompression.
+ * A single CompressionStatistics may be shared by several FacebookTemplates (as it is by the templates created by a
+ * {@link FacebookTemplateFactory}) to count the responses to all of them.
+ * Only response bytes that have actually been read are counted.
+ */
+public final class CompressionStatistics {
+
+	private final LongAdder compressedResponses = new LongAdder();
+
+	private final LongAdder compressedBytes = new LongAdder();
+
+	private final LongAdder uncompressedBytes = new LongAdder();
+
+	/**
+	 * @return the number of responses received gzip-compressed.
+	 */
+	public long getCompressedResponses() {
+		return compressedResponses.sum();
+	}
+
+	/**
+	 * @return the number of bytes of compressed responses as transferred.
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes.sum();
+	}
+
+	/**
+	 * @return the number of bytes of compressed responses after decompression.
+	 */
+	public long getUncompressedBytes() {
+		return uncompressedBytes.sum();
+	}
+
+	/**
+	 * @return the ratio of compressed to uncompressed bytes (e.g., 0.1 when compression saved 90% of the bytes),
+	 * or 1 if no compressed responses have been read.
+	 */
+	public double getCompressionRatio() {
+		long uncompressed = getUncompressedBytes();
+		return uncompressed > 0 ? (double) getCompressedBytes() / uncompressed : 1;
+	}
+
+	void recordResponse() {
+		compressedResponses.increment();
+	}
+
+	void recordCompressedBytes(long count) {
+		compressedBytes.add(count);
+	}
+
+	void recordUncompressedBytes(long count) {
+		uncompressedBytes.add(count);
+	}
+
+}
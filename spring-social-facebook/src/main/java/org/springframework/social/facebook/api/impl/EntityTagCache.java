@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.social.facebook.api.GraphResponseCache.Key;
+import org.springframework.util.Assert;
+
+/**
+ * Remembers the entity tags (ETags) of Graph API responses along with the objects bound from them, so that later requests
+ * for the same data can be made conditional with an If-None-Match header.
+ * When Facebook replies 304 Not Modified, the remembered object is reused without transferring or binding the response body.
+ * Up to a given number of responses are remembered, forgetting the least recently used response when full.
+ * <p>
+ * Unlike a {@link org.springframework.social.facebook.api.GraphResponseCache}, an EntityTagCache never serves a response
+ * without asking Facebook whether it is still current, so it never returns stale data.
+ * Remembered objects are handed to every caller that asks for the same response, so they should be treated as read-only.
+ * </p>
+ */
+public class EntityTagCache {
+
+	private final LinkedHashMap<Key, Entry> entries;
+
+	/**
+	 * Create a new instance of EntityTagCache.
+	 * @param maximumSize the maximum number of responses to remember.
+	 */
+	public EntityTagCache(final int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "Maximum size must be greater than 0");
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/**
+	 * @return the number of responses remembered.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Forgets all remembered responses.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	Entry get(Key key) {
+		synchronized (entries) {
+			return entries.get(key);
+		}
+	}
+
+	void put(Key key, String entityTag, Object value) {
+		synchronized (entries) {
+			entries.put(key, new Entry(entityTag, value));
+		}
+	}
+
+	static class Entry {
+
+		private final String entityTag;
+
+		private final Object value;
+
+		Entry(String entityTag, Object value) {
+			this.entityTag = entityTag;
+			this.value = value;
+		}
+
+		String getEntityTag() {
+			return entityTag;
+		}
+
+		Object getValue() {
+			return value;
+		}
+
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * {@link ClientHttpRequestFactory} decorator that buffers the body of a response in memory only when the response
+ * doesn't have a 2xx status code.
+ * Error responses can be read repeatedly (for example, by {@link FacebookErrorHandler} and then by the caller),
+ * while successful responses, which may be large connection pages or media, are streamed straight from the connection.
+ * Request bodies are written through to the underlying request without being copied.
+ */
+class ErrorBufferingClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	public ErrorBufferingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
+		this.requestFactory = requestFactory;
+	}
+
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		return new ErrorBufferingClientHttpRequest(requestFactory.createRequest(uri, httpMethod));
+	}
+
+	private static class ErrorBufferingClientHttpRequest implements ClientHttpRequest {
+
+		private final ClientHttpRequest request;
+
+		public ErrorBufferingClientHttpRequest(ClientHttpRequest request) {
+			this.request = request;
+		}
+
+		public HttpMethod getMethod() {
+			return request.getMethod();
+		}
+
+		public String getMethodValue() {
+			return request.getMethodValue();
+		}
+
+		public URI getURI() {
+			return request.getURI();
+		}
+
+		public HttpHeaders getHeaders() {
+			return request.getHeaders();
+		}
+
+		public OutputStream getBody() throws IOException {
+			return request.getBody();
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			ClientHttpResponse response = request.execute();
+			int statusCode = response.getRawStatusCode();
+			if (statusCode >= 200 && statusCode < 300) {
+				return response;
+			}
+			return new BufferedClientHttpResponse(response);
+		}
+
+	}
+
+	static class BufferedClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private byte[] body;
+
+		public BufferedClientHttpResponse(ClientHttpResponse response) {
+			this.response = response;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				body = StreamUtils.copyToByteArray(response.getBody());
+			}
+			return new ByteArrayInputStream(body);
+		}
+
+		public void close() {
+			response.close();
+		}
+
+	}
+
+}
@@ -17,6 +17,9 @@ package org.springframework.social.facebook.api.impl;
 
 import static org.springframework.social.facebook.api.impl.PagedListUtils.*;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.social.facebook.api.Event;
 import org.springframework.social.facebook.api.EventInvitee;
 import org.springframework.social.facebook.api.EventOperations;
@@ -39,6 +42,10 @@ class EventTemplate implements EventOperations {
 	public Event getEvent(String eventId) {
 		return graphApi.fetchObject(eventId, Event.class, ALL_FIELDS);
 	}
+
+	public Map<String, Event> getEvents(List<String> eventIds) {
+		return graphApi.fetchObjects(eventIds, Event.class, ALL_FIELDS);
+	}
 	
 	public byte[] getEventImage(String eventId) {
 		return getEventImage(eventId, ImageType.NORMAL);
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.social.facebook.api.BulkResult;
+import org.springframework.social.facebook.api.Facebook;
+import org.springframework.util.Assert;
+
+/**
+ * Performs operations on behalf of many access tokens concurrently, such as refreshing the profiles of all connected users.
+ * <p>
+ * Each operation is performed against a FacebookTemplate created for its access token by a {@link FacebookTemplateFactory},
+ * so all operations share the factory's request factory (and its connection pool), the shared ObjectMapper, and anything
+ * else the factory has been configured with, such as a rate limiter or circuit breaker.
+ * Such a FacebookTemplate is cheap to create, since its sub-APIs are only created when used.
+ * </p>
+ * <p>
+ * At most {@link #setMaxConcurrency(int) maxConcurrency} operations are performed at once across all executions by this executor,
+ * and at most {@link #setMaxConcurrencyPerToken(int) maxConcurrencyPerToken} at once for any single access token.
+ * An operation whose access token is busy is set aside, without holding up operations for other access tokens, and started
+ * once the token is free.
+ * Results are returned as operations complete, and operations are only started as earlier results are consumed,
+ * so that the operations to perform can be streamed from a database without all of them (or their results) being held in memory.
+ * </p>
+ * <p>
+ * Unless an executor is set, operations are performed on virtual threads when running on a Java version that has them,
+ * and otherwise on a shared pool of daemon threads.
+ * </p>
+ */
+public class FacebookBulkExecutor {
+
+	private final FacebookTemplateFactory templateFactory;
+
+	private final ConcurrentMap<String, Integer> tokensInUse = new ConcurrentHashMap<String, Integer>();
+
+	private final Object tokenReleased = new Object();
+
+	private int maxConcurrency = 64;
+
+	private int maxConcurrencyPerToken = 1;
+
+	private Semaphore permits = new Semaphore(maxConcurrency);
+
+	private Executor executor;
+
+	/**
+	 * Create a new instance of FacebookBulkExecutor.
+	 * @param templateFactory the factory to create a FacebookTemplate for each operation's access token with
+	 */
+	public FacebookBulkExecutor(FacebookTemplateFactory templateFactory) {
+		Assert.notNull(templateFactory, "FacebookTemplateFactory must not be null");
+		this.templateFactory = templateFactory;
+	}
+
+	/**
+	 * Set the maximum number of operations performed at once.
+	 * Should be set before any operations are executed.
+	 * @param maxConcurrency the maximum number of concurrent operations. Default is 64.
+	 */
+	public void setMaxConcurrency(int maxConcurrency) {
+		Assert.isTrue(maxConcurrency > 0, "Maximum concurrency must be greater than 0");
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency);
+	}
+
+	/**
+	 * Set the maximum number of operations performed at once on behalf of the same access token.
+	 * @param maxConcurrencyPerToken the maximum number of concurrent operations per access token. Default is 1.
+	 */
+	public void setMaxConcurrencyPerToken(int maxConcurrencyPerToken) {
+		Assert.isTrue(maxConcurrencyPerToken > 0, "Maximum concurrency per token must be greater than 0");
+		this.maxConcurrencyPerToken = maxConcurrencyPerToken;
+	}
+
+	/**
+	 * Set the executor to perform operations on.
+	 * Since operations block on Graph API requests, it should be able to run {@link #setMaxConcurrency(int) maxConcurrency}
+	 * operations at once.
+	 * @param executor the executor to perform operations on.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Performs the same operation on behalf of each of the given access tokens.
+	 * For example, <code>execute(accessTokens, facebook -&gt; facebook.userOperations().getUserProfile())</code>.
+	 * @param accessTokens the access tokens to perform the operation on behalf of
+	 * @param operation the operation to perform
+	 * @param <T> the type of the operation's result
+	 * @return the results of the operations, in the order they complete.
+	 * Operations are started as the stream is consumed, so it must be consumed for all of them to be performed.
+	 */
+	public <T> Stream<BulkResult<T>> execute(Iterable<String> accessTokens, Function<? super Facebook, ? extends T> operation) {
+		Assert.notNull(operation, "Operation must not be null");
+		Iterable<Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>> operations = () -> {
+			Iterator<String> tokens = accessTokens.iterator();
+			return new Iterator<Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>>() {
+				public boolean hasNext() {
+					return tokens.hasNext();
+				}
+
+				public Map.Entry<String, ? extends Function<? super Facebook, ? extends T>> next() {
+					return new AbstractMap.SimpleImmutableEntry<String, Function<? super Facebook, ? extends T>>(tokens.next(), operation);
+				}
+			};
+		};
+		return execute(operations);
+	}
+
+	/**
+	 * Performs each of the given operations on behalf of its access token.
+	 * @param operations the operations to perform, each keyed by the access token to perform it on behalf of
+	 * @param <T> the type of the operations' results
+	 * @return the results of the operations, in the order they complete.
+	 * Operations are started as the stream is consumed, so it must be consumed for all of them to be performed.
+	 */
+	public <T> Stream<BulkResult<T>> execute(Iterable<? extends Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>> operations) {
+		BulkExecution<T> execution = new BulkExecution<T>(operations.iterator(), permits);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(execution, Spliterator.NONNULL), false);
+	}
+
+	// private helpers
+
+	private <T> BulkResult<T> perform(String accessToken, Function<? super Facebook, ? extends T> operation) {
+		try {
+			return new OperationResult<T>(accessToken, operation.apply(templateFactory.createFacebookTemplate(accessToken)), null);
+		} catch (RuntimeException e) {
+			return new OperationResult<T>(accessToken, null, e);
+		}
+	}
+
+	/**
+	 * Claims one of the access token's maxConcurrencyPerToken slots, if one is free.
+	 */
+	private boolean tryAcquireToken(String accessToken) {
+		while (true) {
+			Integer inUse = tokensInUse.get(accessToken);
+			if (inUse == null) {
+				if (tokensInUse.putIfAbsent(accessToken, 1) == null) {
+					return true;
+				}
+			} else if (inUse >= maxConcurrencyPerToken) {
+				return false;
+			} else if (tokensInUse.replace(accessToken, inUse, inUse + 1)) {
+				return true;
+			}
+		}
+	}
+
+	private void acquireToken(String accessToken) throws InterruptedException {
+		synchronized (tokenReleased) {
+			while (!tryAcquireToken(accessToken)) {
+				tokenReleased.wait();
+			}
+		}
+	}
+
+	private void releaseToken(String accessToken) {
+		// tokens are forgotten once no operation is using them
+		tokensInUse.computeIfPresent(accessToken, (token, inUse) -> inUse > 1 ? inUse - 1 : null);
+		synchronized (tokenReleased) {
+			tokenReleased.notifyAll();
+		}
+	}
+
+	private Executor executor() {
+		return executor != null ? executor : DefaultExecutor.INSTANCE;
+	}
+
+	/**
+	 * Starts operations as results are consumed, keeping no more than maxConcurrency operations started but not yet consumed.
+	 * An operation only takes a permit once its access token is free, so that operations waiting for a busy token never
+	 * hold permits that operations for other tokens could use; until then, it is set aside and retried before later operations.
+	 */
+	private class BulkExecution<T> implements Iterator<BulkResult<T>> {
+
+		private final Iterator<? extends Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>> operations;
+
+		private final Semaphore permits;
+
+		private final BlockingQueue<BulkResult<T>> results = new LinkedBlockingQueue<BulkResult<T>>();
+
+		private final Deque<Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>> deferred =
+				new ArrayDeque<Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>>();
+
+		private int pending;
+
+		public BulkExecution(Iterator<? extends Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>> operations, Semaphore permits) {
+			this.operations = operations;
+			this.permits = permits;
+		}
+
+		public boolean hasNext() {
+			start();
+			return pending > 0;
+		}
+
+		public BulkResult<T> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			try {
+				BulkResult<T> result = results.take();
+				pending--;
+				return result;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for bulk operation results", e);
+			}
+		}
+
+		private void start() {
+			while (pending < maxConcurrency) {
+				Map.Entry<String, ? extends Function<? super Facebook, ? extends T>> operation = nextOperation();
+				if (operation == null) {
+					return;
+				}
+				String accessToken = operation.getKey();
+				// only wait for another execution to free up a permit if there are no results of this one to wait for instead
+				if (pending > 0 && !permits.tryAcquire()) {
+					releaseToken(accessToken);
+					deferred.addFirst(operation);
+					return;
+				} else if (pending == 0) {
+					try {
+						permits.acquire();
+					} catch (InterruptedException e) {
+						releaseToken(accessToken);
+						deferred.addFirst(operation);
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException("Interrupted while waiting to start bulk operations", e);
+					}
+				}
+				try {
+					executor().execute(() -> {
+						BulkResult<T> result = null;
+						try {
+							result = perform(accessToken, operation.getValue());
+						} catch (Error e) {
+							// an operation that fails with an Error still produces a result, so that the consumer isn't left waiting for it
+							result = new OperationResult<T>(accessToken, null, new IllegalStateException("Operation failed with an error", e));
+							throw e;
+						} finally {
+							releaseToken(accessToken);
+							permits.release();
+							results.add(result);
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					releaseToken(accessToken);
+					permits.release();
+					throw e;
+				}
+				pending++;
+			}
+		}
+
+		/**
+		 * Returns the next operation whose access token has been claimed, or null if none can be started yet.
+		 */
+		private Map.Entry<String, ? extends Function<? super Facebook, ? extends T>> nextOperation() {
+			for (Iterator<Map.Entry<String, ? extends Function<? super Facebook, ? extends T>>> iterator = deferred.iterator(); iterator.hasNext();) {
+				Map.Entry<String, ? extends Function<? super Facebook, ? extends T>> operation = iterator.next();
+				if (tryAcquireToken(operation.getKey())) {
+					iterator.remove();
+					return operation;
+				}
+			}
+			// set aside no more than maxConcurrency operations, so that a stream of operations for one token isn't read into memory
+			while (deferred.size() < maxConcurrency && operations.hasNext()) {
+				Map.Entry<String, ? extends Function<? super Facebook, ? extends T>> operation = operations.next();
+				if (tryAcquireToken(operation.getKey())) {
+					return operation;
+				}
+				deferred.add(operation);
+			}
+			if (pending > 0 || deferred.isEmpty()) {
+				return null;
+			}
+			// the tokens are busy with other executions' operations, and there are no results of this one to wait for instead
+			Map.Entry<String, ? extends Function<? super Facebook, ? extends T>> operation = deferred.removeFirst();
+			try {
+				acquireToken(operation.getKey());
+			} catch (InterruptedException e) {
+				deferred.addFirst(operation);
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting to start bulk operations", e);
+			}
+			return operation;
+		}
+
+	}
+
+	private static class OperationResult<T> implements BulkResult<T> {
+
+		private final String accessToken;
+
+		private final T value;
+
+		private final RuntimeException exception;
+
+		public OperationResult(String accessToken, T value, RuntimeException exception) {
+			this.accessToken = accessToken;
+			this.value = value;
+			this.exception = exception;
+		}
+
+		public String getAccessToken() {
+			return accessToken;
+		}
+
+		public boolean isError() {
+			return exception != null;
+		}
+
+		public RuntimeException getException() {
+			return exception;
+		}
+
+		public T get() {
+			if (exception != null) {
+				throw exception;
+			}
+			return value;
+		}
+
+	}
+
+	/**
+	 * Lazily-created executor that operations are performed on when no executor has been set.
+	 */
+	private static class DefaultExecutor {
+
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		static final Executor INSTANCE = createExecutor();
+
+		private static Executor createExecutor() {
+			try {
+				// Java 21 and later
+				return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException e) {
+				return Executors.newCachedThreadPool(task -> {
+					Thread thread = new Thread(task, "facebook-bulk-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+		}
+
+	}
+
+}
@@ -17,13 +17,13 @@ package org.springframework.social.facebook.api.impl;
 
 import static org.springframework.social.facebook.api.FacebookErrors.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.social.DuplicateStatusException;
@@ -36,12 +36,15 @@ import org.springframework.social.RevokedAuthorizationException;
 import org.springframework.social.ServerException;
 import org.springframework.social.UncategorizedApiException;
 import org.springframework.social.facebook.api.FacebookError;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 
 import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 
 /**
  * Subclass of {@link DefaultResponseErrorHandler} that handles errors from Facebook's
@@ -53,6 +56,8 @@ class FacebookErrorHandler extends DefaultResponseErrorHandler {
 	private static final String FACEBOOK_PROVIDER_ID = "facebook";
 	private final static Log logger = LogFactory.getLog(FacebookErrorHandler.class);
 
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
 	@Override
 	public void handleError(ClientHttpResponse response) throws IOException {
 		FacebookError error = extractErrorFromResponse(response);
@@ -94,52 +99,119 @@ class FacebookErrorHandler extends DefaultResponseErrorHandler {
 
 	}
 	
+	/**
+	 * Examines an error response whose body has already been read, as {@link AsyncFacebookTemplate} does, and throws the most applicable exception.
+	 * A response without Facebook error details results in the exception that {@link DefaultResponseErrorHandler} would have thrown for it.
+	 * @param statusCode the response's status code
+	 * @param headers the response's headers
+	 * @param body the response's body
+	 */
+	void handleError(HttpStatus statusCode, HttpHeaders headers, byte[] body) {
+		handleFacebookError(statusCode, extractError(body));
+		Charset charset = headers.getContentType() != null ? headers.getContentType().getCharset() : null;
+		if (statusCode.is4xxClientError()) {
+			throw new HttpClientErrorException(statusCode, statusCode.getReasonPhrase(), headers, body, charset);
+		}
+		throw new HttpServerErrorException(statusCode, statusCode.getReasonPhrase(), headers, body, charset);
+	}
+
 	private FacebookError extractErrorFromResponse(ClientHttpResponse response) throws IOException {
-		String json = readResponseJson(response);
 		try {
-			ObjectMapper mapper = new ObjectMapper(new JsonFactory());
-			JsonNode jsonNode = mapper.readValue(json, JsonNode.class);
-			if (jsonNode.has("error")) {
-				JsonNode errorNode = jsonNode.get("error");
-				Integer code = errorNode.has("code") ? errorNode.get("code").intValue() : null;
-				String type = errorNode.has("type") ? errorNode.get("type").asText() : null;
-				String message = errorNode.has("message") ? errorNode.get("message").asText() : null;
-				Integer subcode = errorNode.has("error_subcode") ? errorNode.get("error_subcode").intValue() : null;
-				String userMessage = errorNode.has("error_user_msg") ? errorNode.get("error_user_msg").asText() : null;
-				String userTitle = errorNode.has("error_user_title") ? errorNode.get("error_user_title").asText() : null;
-				
-				FacebookError error = new FacebookError(code, type, message, subcode, userMessage, userTitle);
-				if (logger.isDebugEnabled()) {
-					logger.debug("Facebook error: ");
-					logger.debug("   CODE        : " + error.getCode());
-					logger.debug("   TYPE        : " + error.getType());
-					logger.debug("   SUBCODE     : " + error.getSubcode());
-					logger.debug("   MESSAGE     : " + error.getMessage());
-					logger.debug("   USER TITLE  : " + error.getUserTitle());
-					logger.debug("   USER MESSAGE: " + error.getUserMessage());
-				}
-				return error;
+			if (logger.isDebugEnabled()) {
+				byte[] body = StreamUtils.copyToByteArray(response.getBody());
+				logger.debug("Error from Facebook: " + new String(body, StandardCharsets.UTF_8));
+				return extractError(JSON_FACTORY.createParser(body));
 			}
-		} catch (JsonParseException e) {
+			return extractError(JSON_FACTORY.createParser(response.getBody()));
+		} catch (JsonProcessingException e) {
 			return null;
 		}
-		return null;
 	}
 
-	private String readResponseJson(ClientHttpResponse response) throws IOException {
-		String json = readFully(response.getBody());
-		if (logger.isDebugEnabled()) {
-			logger.debug("Error from Facebook: " + json);
+	/**
+	 * Extracts the Facebook error details from the body of an error response.
+	 * @param body the error response body
+	 * @return the error details or null if the body isn't JSON or doesn't carry an "error" object
+	 */
+	FacebookError extractError(String body) {
+		if (body == null) {
+			return null;
+		}
+		try {
+			return extractError(JSON_FACTORY.createParser(body));
+		} catch (IOException e) {
+			return null;
 		}
-		return json;
 	}
-	
-	private String readFully(InputStream in) throws IOException {
-		BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-		StringBuilder sb = new StringBuilder();
-		while (reader.ready()) {
-			sb.append(reader.readLine());
+
+	private FacebookError extractError(byte[] body) {
+		try {
+			return extractError(JSON_FACTORY.createParser(body));
+		} catch (IOException e) {
+			return null;
 		}
-		return sb.toString();
 	}
+
+	/**
+	 * Pulls the error details out of the top-level "error" object, skipping over everything else in the response.
+	 * Parsing stops as soon as the "error" object has been read.
+	 */
+	private FacebookError extractError(JsonParser parser) throws IOException {
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if ("error".equals(fieldName)) {
+					return token == JsonToken.START_OBJECT ? readError(parser) : null;
+				}
+				parser.skipChildren();
+			}
+			return null;
+		} finally {
+			parser.close();
+		}
+	}
+
+	private FacebookError readError(JsonParser parser) throws IOException {
+		Integer code = null;
+		String type = null;
+		String message = null;
+		Integer subcode = null;
+		String userMessage = null;
+		String userTitle = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			if ("code".equals(fieldName)) {
+				code = parser.getValueAsInt();
+			} else if ("type".equals(fieldName)) {
+				type = parser.getValueAsString();
+			} else if ("message".equals(fieldName)) {
+				message = parser.getValueAsString();
+			} else if ("error_subcode".equals(fieldName)) {
+				subcode = parser.getValueAsInt();
+			} else if ("error_user_msg".equals(fieldName)) {
+				userMessage = parser.getValueAsString();
+			} else if ("error_user_title".equals(fieldName)) {
+				userTitle = parser.getValueAsString();
+			} else {
+				parser.skipChildren();
+			}
+		}
+		FacebookError error = new FacebookError(code, type, message, subcode, userMessage, userTitle);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Facebook error: ");
+			logger.debug("   CODE        : " + error.getCode());
+			logger.debug("   TYPE        : " + error.getType());
+			logger.debug("   SUBCODE     : " + error.getSubcode());
+			logger.debug("   MESSAGE     : " + error.getMessage());
+			logger.debug("   USER TITLE  : " + error.getUserTitle());
+			logger.debug("   USER MESSAGE: " + error.getUserMessage());
+		}
+		return error;
+	}
+
 }
@@ -15,34 +15,55 @@
  */
 package org.springframework.social.facebook.api.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
-import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.springframework.core.ResolvableType;
 import org.springframework.http.*;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.social.NotAuthorizedException;
-import org.springframework.social.UncategorizedApiException;
 import org.springframework.social.facebook.api.*;
 import org.springframework.social.facebook.api.impl.json.FacebookModule;
 import org.springframework.social.facebook.security.FacebookAppSecretProofInterceptor;
-import org.springframework.social.oauth2.AbstractOAuth2ApiBinding;
 import org.springframework.social.oauth2.OAuth2Version;
 import org.springframework.social.support.ClientHttpRequestFactorySelector;
 import org.springframework.social.support.URIBuilder;
+import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-
-import static org.springframework.social.facebook.api.impl.PagedListUtils.getPagedListParameters;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <p>This is the central class for interacting with Facebook.</p>
@@ -55,7 +76,16 @@ import static org.springframework.social.facebook.api.impl.PagedListUtils.getPag
  * </p>
  * @author Craig Walls
  */
-public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebook {
+public class FacebookTemplate implements Facebook {
+
+	// keeps multi-ID requests well within the URL lengths accepted by Facebook and by proxies along the way
+	private static final int MAX_URL_LENGTH = 2000;
+
+	private static final int MAX_IMAGE_REDIRECTS = 5;
+
+	private static volatile ObjectMapper sharedObjectMapper;
+
+	private static volatile MappingJackson2HttpMessageConverter sharedJsonMessageConverter;
 
 	private String appId;
 
@@ -63,37 +93,76 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 
 	private String accessToken;
 
-	private AchievementOperations achievementOperations;
+	private final RestTemplate restTemplate;
+
+	// Sub-APIs are created when first asked for, since most uses of a FacebookTemplate need only one or two of them.
+	// Each is a stateless view over this template, so racing threads may each create one and any of them is equally usable.
+	private volatile AchievementOperations achievementOperations;
 	
-	private UserOperations userOperations;
+	private volatile UserOperations userOperations;
 	
-	private FriendOperations friendOperations;
+	private volatile FriendOperations friendOperations;
 	
-	private FeedOperations feedOperations;
+	private volatile FeedOperations feedOperations;
 	
-	private GroupOperations groupOperations;
+	private volatile GroupOperations groupOperations;
 	
-	private CommentOperations commentOperations;
+	private volatile CommentOperations commentOperations;
 	
-	private LikeOperations likeOperations;
+	private volatile LikeOperations likeOperations;
 	
-	private EventOperations eventOperations;
+	private volatile EventOperations eventOperations;
 	
-	private MediaOperations mediaOperations;
+	private volatile MediaOperations mediaOperations;
 	
-	private PageOperations pageOperations;
+	private volatile PageOperations pageOperations;
 	
-	private OpenGraphOperations openGraphOperations;
+	private volatile OpenGraphOperations openGraphOperations;
 	
-	private SocialContextOperations socialContextOperations;
+	private volatile SocialContextOperations socialContextOperations;
 	
-	private TestUserOperations testUserOperations;
+	private volatile TestUserOperations testUserOperations;
 	
 	private ObjectMapper objectMapper;
 
 	private String applicationNamespace;
 
 	private String apiVersion = DEFAULT_API_VERSION;
+
+	private Executor prefetchExecutor;
+
+	private GraphResponseCache responseCache;
+
+	private EntityTagCache entityTagCache;
+
+	private RequestCoalescer requestCoalescer;
+
+	private ClientHttpRequestInterceptor rateLimitingInterceptor;
+
+	private ClientHttpRequestInterceptor circuitBreakingInterceptor;
+
+	private GraphRetryPolicy retryPolicy;
+
+	private ClientHttpRequestInterceptor retryingInterceptor;
+
+	// the rate limiting, circuit breaking, and retrying interceptors currently in the chain
+	private List<ClientHttpRequestInterceptor> resilienceInterceptors = new ArrayList<ClientHttpRequestInterceptor>();
+
+	private ClientHttpRequestInterceptor meteringInterceptor;
+
+	private GraphMetrics metrics;
+
+	private ClientHttpRequestInterceptor observingInterceptor;
+
+	private GraphRequestObserver requestObserver;
+
+	private ClientHttpRequestFactory requestFactory;
+
+	private boolean bufferAllResponses;
+
+	private boolean compressResponses = true;
+
+	private CompressionStatistics compressionStatistics = new CompressionStatistics();
 	
 	/**
 	 * Create a new instance of FacebookTemplate.
@@ -113,22 +182,87 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 	}
 
 	public FacebookTemplate(String accessToken, String applicationNamespace, String appId, String appSecret) {
-		super(accessToken);
+		this(accessToken, applicationNamespace, appId, appSecret, null);
+	}
+
+	/**
+	 * Creates a FacebookTemplate that makes its requests through the given request factory, typically one shared with other templates.
+	 * A template creates no request factory of its own, so creating one per access token costs no more than a few objects.
+	 * @param requestFactory the request factory to make requests through, or null to use the one created by a default {@link GraphTransport}
+	 * and shared by all templates created without one.
+	 */
+	FacebookTemplate(String accessToken, String applicationNamespace, String appId, String appSecret, ClientHttpRequestFactory requestFactory) {
 		this.appSecret = appSecret;
 		this.accessToken = accessToken;
 		this.applicationNamespace = applicationNamespace;
 		this.appId = appId;
-		initialize();
+		this.restTemplate = createRestTemplate(accessToken);
+		initialize(requestFactory != null ? requestFactory : DefaultRequestFactory.INSTANCE);
 
 		if (appSecret != null) {
 			setAppSecretInterceptor(getRestTemplate());
 		}
 	}
 	
-	@Override
+	/**
+	 * Set the request factory that requests are made through.
+	 * The request factory is decorated to decompress responses and buffer error responses, as configured on this template.
+	 * @param requestFactory the request factory.
+	 */
 	public void setRequestFactory(ClientHttpRequestFactory requestFactory) {
-		// Wrap the request factory with a BufferingClientHttpRequestFactory so that the error handler can do repeat reads on the response.getBody()
-		super.setRequestFactory(ClientHttpRequestFactorySelector.bufferRequests(requestFactory));
+		Assert.notNull(requestFactory, "The requestFactory property cannot be null");
+		this.requestFactory = requestFactory;
+		restTemplate.setRequestFactory(decorateRequestFactory(requestFactory));
+	}
+
+	public boolean isAuthorized() {
+		return accessToken != null;
+	}
+
+	/**
+	 * @return the RestTemplate that requests are made through, with the access token and the configured interceptors applied.
+	 */
+	public RestTemplate getRestTemplate() {
+		return restTemplate;
+	}
+
+	/**
+	 * Set whether the bodies of all responses should be buffered in memory.
+	 * By default, only the bodies of error responses are buffered (so that they can be read by the error handler and
+	 * again by the caller) and successful responses are streamed.
+	 * @param bufferAllResponses true to buffer every request and response body, as done by a BufferingClientHttpRequestFactory.
+	 */
+	public void setBufferAllResponses(boolean bufferAllResponses) {
+		this.bufferAllResponses = bufferAllResponses;
+		restTemplate.setRequestFactory(decorateRequestFactory(requestFactory));
+	}
+
+	/**
+	 * Set whether responses should be requested gzip-compressed.
+	 * Compressed responses are decompressed as they are read, before they are bound to Java objects.
+	 * @param compressResponses true to request compressed responses. Default is true.
+	 */
+	public void setCompressResponses(boolean compressResponses) {
+		this.compressResponses = compressResponses;
+		restTemplate.setRequestFactory(decorateRequestFactory(requestFactory));
+	}
+
+	/**
+	 * Set the statistics to count the bytes of compressed responses in, so that they can be shared with other FacebookTemplates.
+	 * @param compressionStatistics the compression statistics.
+	 */
+	public void setCompressionStatistics(CompressionStatistics compressionStatistics) {
+		Assert.notNull(compressionStatistics, "CompressionStatistics must not be null");
+		this.compressionStatistics = compressionStatistics;
+		restTemplate.setRequestFactory(decorateRequestFactory(requestFactory));
+	}
+
+	/**
+	 * @return the compressed and uncompressed bytes of the compressed responses received by this template.
+	 * Responses that were decompressed by the underlying HTTP client (as the default HttpComponents client does) aren't counted.
+	 */
+	public CompressionStatistics getCompressionStatistics() {
+		return compressionStatistics;
 	}
 	
 	/**
@@ -140,44 +274,206 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 		this.apiVersion = apiVersion;
 	}
 
+	/**
+	 * Set the executor that {@link #streamConnections(String, String, Class, MultiValueMap)} fetches pages ahead on.
+	 * If not set, pages are prefetched on a shared pool of daemon threads.
+	 * @param prefetchExecutor the executor to prefetch pages on.
+	 */
+	public void setPrefetchExecutor(Executor prefetchExecutor) {
+		this.prefetchExecutor = prefetchExecutor;
+	}
+
+	/**
+	 * Set a cache for the responses of {@link #fetchObject(String, Class, MultiValueMap) fetchObject()} and
+	 * {@link #fetchConnections(String, String, Class, MultiValueMap) fetchConnections()} (and therefore of the
+	 * sub-API operations built on them).
+	 * Responses are cached per access token, so a single cache may be shared by FacebookTemplates for different users.
+	 * If not set, every request is sent to Facebook.
+	 * @param responseCache the response cache.
+	 */
+	public void setResponseCache(GraphResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	/**
+	 * Set a cache of response entity tags to make the requests of {@link #fetchObject(String, Class, MultiValueMap) fetchObject()}
+	 * and {@link #fetchConnections(String, String, Class, MultiValueMap) fetchConnections()} conditional.
+	 * When Facebook replies that a response hasn't changed since it was last fetched, the object bound from the earlier
+	 * response is returned without transferring or binding the response body.
+	 * Responses are remembered per access token, so a single cache may be shared by FacebookTemplates for different users.
+	 * If not set, requests are not conditional.
+	 * @param entityTagCache the entity tag cache.
+	 */
+	public void setEntityTagCache(EntityTagCache entityTagCache) {
+		this.entityTagCache = entityTagCache;
+	}
+
+	/**
+	 * Enable or disable the coalescing of identical concurrent reads made by {@link #fetchObject(String, Class, MultiValueMap) fetchObject()}
+	 * and {@link #fetchConnections(String, String, Class, MultiValueMap) fetchConnections()}.
+	 * When enabled, a read made while an identical read (same access token, URI and type) is already in flight, through this or any other
+	 * FacebookTemplate, doesn't send a request of its own but waits for the in-flight request and shares its result or exception.
+	 * Every waiting caller is handed the same result object, so it must not be modified, and a failed request fails all of
+	 * its waiting callers with the same exception.
+	 * @param coalesceRequests true to coalesce identical concurrent reads. Default is false.
+	 */
+	public void setCoalesceRequests(boolean coalesceRequests) {
+		this.requestCoalescer = coalesceRequests ? RequestCoalescer.SHARED : null;
+	}
+
+	/**
+	 * Set a rate limiter to pace the requests made by this template according to the rate limit utilization reported by Facebook.
+	 * A rate limiter should be shared by all FacebookTemplates for the same application.
+	 * If not set, requests are sent regardless of utilization until Facebook rejects them.
+	 * @param rateLimiter the rate limiter, or null to stop pacing requests.
+	 */
+	public void setRateLimiter(GraphRateLimiter rateLimiter) {
+		rateLimitingInterceptor = rateLimiter != null ? rateLimiter.interceptor(accessToken) : null;
+		updateResilienceInterceptors();
+	}
+
+	/**
+	 * Set a circuit breaker to reject requests to Graph API endpoints that are failing or responding slowly.
+	 * The circuit breaker sees every attempt of a retried request, and times each attempt on its own.
+	 * A circuit breaker should be shared by all FacebookTemplates.
+	 * If not set, requests are always sent.
+	 * @param circuitBreaker the circuit breaker, or null to stop rejecting requests.
+	 */
+	public void setCircuitBreaker(GraphCircuitBreaker circuitBreaker) {
+		circuitBreakingInterceptor = circuitBreaker != null ? circuitBreaker.interceptor() : null;
+		updateResilienceInterceptors();
+	}
+
+	/**
+	 * Set a policy for retrying idempotent requests that fail transiently.
+	 * Retries are made beneath all other interceptors, so that each retry is an exact repeat of the original request,
+	 * except for the rate limiter and circuit breaker, which pace and count every attempt.
+	 * If not set, requests are not retried.
+	 * @param retryPolicy the retry policy, or null to stop retrying requests.
+	 */
+	public void setRetryPolicy(GraphRetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		updateResilienceInterceptors();
+	}
+
+	/**
+	 * Set the metrics to record each Graph API request in, along with the time taken to bind responses to Java objects.
+	 * Requests are recorded before the other interceptors (except a request observer), so that requests rejected by the rate limiter or circuit breaker
+	 * are recorded too, and a retried request is recorded once.
+	 * If not set, no metrics are recorded.
+	 * @param metrics the metrics, or null to stop recording metrics.
+	 */
+	public void setMetrics(GraphMetrics metrics) {
+		ClientHttpRequestInterceptor previous = meteringInterceptor;
+		this.metrics = metrics;
+		meteringInterceptor = metrics != null ? metrics.interceptor() : null;
+		replaceInterceptor(previous, meteringInterceptor);
+	}
+
+	/**
+	 * Set an observer to receive a breakdown of the time taken by each Graph API request: time spent queued (e.g., paced by
+	 * the rate limiter or retrying), acquiring and opening connections, waiting for the first byte of the response, reading
+	 * its body, and binding it to Java objects, along with the headers Facebook returns for tracing the request.
+	 * Requests are observed before all other interceptors, and the network phases beneath all decorations of the request factory.
+	 * If not set, requests are not observed.
+	 * @param requestObserver the observer, or null to stop observing requests.
+	 */
+	public void setRequestObserver(GraphRequestObserver requestObserver) {
+		ClientHttpRequestInterceptor previous = observingInterceptor;
+		this.requestObserver = requestObserver;
+		observingInterceptor = requestObserver != null ? RequestTimings.interceptor(requestObserver) : null;
+		replaceInterceptor(previous, observingInterceptor);
+		restTemplate.setRequestFactory(decorateRequestFactory(requestFactory));
+	}
+
 	public AchievementOperations achievementOperations() {
-		return achievementOperations;
+		AchievementOperations operations = achievementOperations;
+		if (operations == null) {
+			operations = new AchievementTemplate(this);
+			achievementOperations = operations;
+		}
+		return operations;
 	}
 	
 	public UserOperations userOperations() {
-		return userOperations;
+		UserOperations operations = userOperations;
+		if (operations == null) {
+			operations = new UserTemplate(this, getRestTemplate());
+			userOperations = operations;
+		}
+		return operations;
 	}
 	
 	public LikeOperations likeOperations() {
-		return likeOperations;
+		LikeOperations operations = likeOperations;
+		if (operations == null) {
+			operations = new LikeTemplate(this);
+			likeOperations = operations;
+		}
+		return operations;
 	}
 
 	public FriendOperations friendOperations() {
-		return friendOperations;
+		FriendOperations operations = friendOperations;
+		if (operations == null) {
+			operations = new FriendTemplate(this, getRestTemplate());
+			friendOperations = operations;
+		}
+		return operations;
 	}
 	
 	public FeedOperations feedOperations() {
-		return feedOperations;
+		FeedOperations operations = feedOperations;
+		if (operations == null) {
+			operations = new FeedTemplate(this, getRestTemplate(), objectMapper);
+			feedOperations = operations;
+		}
+		return operations;
 	}
 	
 	public GroupOperations groupOperations() {
-		return groupOperations;
+		GroupOperations operations = groupOperations;
+		if (operations == null) {
+			operations = new GroupTemplate(this);
+			groupOperations = operations;
+		}
+		return operations;
 	}
 
 	public CommentOperations commentOperations() {
-		return commentOperations;
+		CommentOperations operations = commentOperations;
+		if (operations == null) {
+			operations = new CommentTemplate(this);
+			commentOperations = operations;
+		}
+		return operations;
 	}
 	
 	public EventOperations eventOperations() {
-		return eventOperations;
+		EventOperations operations = eventOperations;
+		if (operations == null) {
+			operations = new EventTemplate(this);
+			eventOperations = operations;
+		}
+		return operations;
 	}
 	
 	public MediaOperations mediaOperations() {
-		return mediaOperations;
+		MediaOperations operations = mediaOperations;
+		if (operations == null) {
+			operations = new MediaTemplate(this, getRestTemplate());
+			mediaOperations = operations;
+		}
+		return operations;
 	}
 	
 	public PageOperations pageOperations() {
-		return pageOperations;
+		PageOperations operations = pageOperations;
+		if (operations == null) {
+			operations = new PageTemplate(this);
+			pageOperations = operations;
+		}
+		return operations;
 	}
 	
 	public RestOperations restOperations() {
@@ -185,11 +481,21 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 	}
 	
 	public OpenGraphOperations openGraphOperations() {
-		return openGraphOperations;
+		OpenGraphOperations operations = openGraphOperations;
+		if (operations == null) {
+			operations = new OpenGraphTemplate(this);
+			openGraphOperations = operations;
+		}
+		return operations;
 	}
 	
 	public SocialContextOperations socialContextOperations() {
-		return socialContextOperations;
+		SocialContextOperations operations = socialContextOperations;
+		if (operations == null) {
+			operations = new SocialContextTemplate(this, getRestTemplate());
+			socialContextOperations = operations;
+		}
+		return operations;
 	}
 	
 	public String getApplicationNamespace() {
@@ -197,13 +503,18 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 	}
 	
 	public TestUserOperations testUserOperations() {
-		return testUserOperations;
+		TestUserOperations operations = testUserOperations;
+		if (operations == null) {
+			operations = new TestUserTemplate(this, getRestTemplate(), appId);
+			testUserOperations = operations;
+		}
+		return operations;
 	}
 	
 	// low-level Graph API operations
 	public <T> T fetchObject(String objectId, Class<T> type) {
 		URI uri = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId).build();
-		return getRestTemplate().getForObject(uri, type);
+		return fetchObject(uri, type);
 	}
 
 	public <T> T fetchObject(String objectId, Class<T> type, String... fields) {
@@ -217,7 +528,32 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 
 	public <T> T fetchObject(String objectId, Class<T> type, MultiValueMap<String, String> queryParameters) {
 		URI uri = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId).queryParams(queryParameters).build();
-		return getRestTemplate().getForObject(uri, type);
+		return fetchObject(uri, type);
+	}
+
+	public <T> T fetchObject(String objectId, Class<T> type, Fields fields) {
+		return fetchObject(objectId, type, fieldsParameter(fields));
+	}
+
+	public <T> Map<String, T> fetchObjects(List<String> objectIds, Class<T> type, String... fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		queryParameters.set("ids", "");
+		if(fields.length > 0) {
+			queryParameters.set("fields", join(fields));
+		}
+		RestTemplate restTemplate = getRestTemplate();
+		Type mapType = ResolvableType.forClassWithGenerics(Map.class, String.class, type).getType();
+		HttpMessageConverterExtractor<Map<String, T>> extractor = new HttpMessageConverterExtractor<Map<String, T>>(mapType, restTemplate.getMessageConverters());
+		Map<String, T> objects = new LinkedHashMap<String, T>();
+		for (List<String> chunk : chunkObjectIds(getBaseGraphApiUrl(), objectIds, queryParameters)) {
+			queryParameters.set("ids", StringUtils.collectionToCommaDelimitedString(chunk));
+			URI uri = URIBuilder.fromUri(getBaseGraphApiUrl()).queryParams(queryParameters).build();
+			Map<String, T> chunkObjects = restTemplate.execute(uri, HttpMethod.GET, restTemplate.acceptHeaderRequestCallback(Map.class), extractor);
+			if (chunkObjects != null) {
+				objects.putAll(chunkObjects);
+			}
+		}
+		return objects;
 	}
 
 	public <T> PagedList<T> fetchConnections(String objectId, String connectionType, Class<T> type, String... fields) {
@@ -229,18 +565,20 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 		return fetchConnections(objectId, connectionType, type, queryParameters);
 	}
 
+	public <T> PagedList<T> fetchConnections(String objectId, String connectionType, Class<T> type, Fields fields) {
+		return fetchConnections(objectId, connectionType, type, fieldsParameter(fields));
+	}
+
 	public <T> PagedList<T> fetchConnections(String objectId, String connectionType, Class<T> type, MultiValueMap<String, String> queryParameters) {
 		String connectionPath = connectionType != null && connectionType.length() > 0 ? "/" + connectionType : "";
 		URIBuilder uriBuilder = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId + connectionPath).queryParams(queryParameters);
-		JsonNode jsonNode = getRestTemplate().getForObject(uriBuilder.build(), JsonNode.class);
-		return pagify(type, jsonNode);
+		return fetchConnections(uriBuilder.build(), type);
 	}
 
 	public <T> PagedList<T> fetchPagedConnections(String objectId, String connectionType, Class<T> type, MultiValueMap<String, String> queryParameters) {
 		String connectionPath = connectionType != null && connectionType.length() > 0 ? "/" + connectionType : "";
 		URIBuilder uriBuilder = URIBuilder.fromUri(getBaseGraphApiUrl() + objectId + connectionPath).queryParams(queryParameters);
-		JsonNode jsonNode = getRestTemplate().getForObject(uriBuilder.build(), JsonNode.class);
-		return pagify(type, jsonNode);
+		return fetchConnections(uriBuilder.build(), type);
 	}
 
 	public <T> PagedList<T> fetchConnections(String objectId, String connectionType, Class<T> type, MultiValueMap<String, String> queryParameters, String... fields) {
@@ -251,6 +589,23 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 		return fetchPagedConnections(objectId, connectionType, type, queryParameters);
 	}
 
+	public <T> Stream<T> streamConnections(String objectId, String connectionType, Class<T> type, String... fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		if(fields.length > 0) {
+			String joinedFields = join(fields);
+			queryParameters.set("fields", joinedFields);
+		}
+		return streamConnections(objectId, connectionType, type, queryParameters);
+	}
+
+	public <T> Stream<T> streamConnections(String objectId, String connectionType, Class<T> type, MultiValueMap<String, String> queryParameters) {
+		Executor executor = prefetchExecutor != null ? prefetchExecutor : DefaultPrefetchExecutor.INSTANCE;
+		PagePrefetcher<T> prefetcher = new PagePrefetcher<T>(() -> fetchConnections(objectId, connectionType, type, queryParameters), this, type, executor, 1);
+		PagedConnectionIterator<T> iterator = new PagedConnectionIterator<T>(prefetcher);
+		Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+	}
+
 	/**
 	 * Fetches the next {@link org.springframework.social.facebook.api.PagedList PagedList} of the current one.
 	 * @param page source {@link org.springframework.social.facebook.api.PagedList PagedList} to fetch the next one.
@@ -262,8 +617,7 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 	public <T> PagedList<T> fetchNextPagedConnections(PagedList<T> page, Class<T> type) {
 		if (null != page && null != page.getNextPage() && !"".equals(page.getNextPage().getFullUrl().trim())) {
 			URIBuilder uriBuilder = URIBuilder.fromUri(page.getNextPage().getFullUrl());
-			JsonNode jsonNode = getRestTemplate().getForObject(uriBuilder.build(), JsonNode.class);
-			return pagify(type, jsonNode);
+			return fetchPagedList(uriBuilder.build(), type);
 		}
 		return null;
 	}
@@ -279,33 +633,125 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 	public <T> PagedList<T> fetchPreviousPagedConnections(PagedList<T> page, Class<T> type) {
 		if (null != page && null != page.getPreviousPage() && !"".equals(page.getPreviousPage().getFullUrl().trim())) {
 			URIBuilder uriBuilder = URIBuilder.fromUri(page.getPreviousPage().getFullUrl());
-			JsonNode jsonNode = getRestTemplate().getForObject(uriBuilder.build(), JsonNode.class);
-			return pagify(type, jsonNode);
+			return fetchPagedList(uriBuilder.build(), type);
 		}
 		return null;
 	}
 	
-	private <T> PagedList<T> pagify(Class<T> type, JsonNode jsonNode) {
-		List<T> data = deserializeDataList(jsonNode.get("data"), type);
-		if (!jsonNode.has("paging")) {
-			return new PagedList<T>(data, null, null);
+	private <T> T fetchObject(URI uri, Class<T> type) {
+		return fetch(uri, type, type, false);
+	}
+
+	/**
+	 * Fetches a page of a connection, binding the response's data, paging, and summary in a single pass over the response body.
+	 */
+	private <T> PagedList<T> fetchConnections(URI uri, Class<T> type) {
+		return fetch(uri, ResolvableType.forClassWithGenerics(PagedList.class, type).getType(), type, true);
+	}
+
+	/**
+	 * Fetches an object or a page of a connection through the response cache, if one has been set,
+	 * coalescing the request with an identical request in flight, if enabled.
+	 */
+	private <T> T fetch(URI uri, Type responseType, Class<?> type, boolean connection) {
+		if (responseCache == null && entityTagCache == null && requestCoalescer == null) {
+			return fetch(uri, responseType, type, connection, null);
 		}
-		
-		JsonNode pagingNode = jsonNode.get("paging");
-		PagingParameters previousPage = getPagedListParameters(pagingNode, "previous");
-		PagingParameters nextPage = getPagedListParameters(pagingNode, "next");
-		
-		Integer totalCount = null;
-		if (jsonNode.has("summary")) {
-			JsonNode summaryNode = jsonNode.get("summary");
-			if (summaryNode.has("total_count")) {
-				totalCount = summaryNode.get("total_count").intValue();
+		GraphResponseCache.Key key = cacheKey(uri, type, connection);
+		Supplier<T> request = () -> fetch(uri, responseType, type, connection, key);
+		Supplier<T> coalescedRequest = requestCoalescer != null ? () -> requestCoalescer.execute(key, request) : request;
+		return responseCache != null ? responseCache.get(key, coalescedRequest) : coalescedRequest.get();
+	}
+
+	/**
+	 * Performs a GET request for an object or a page of a connection.
+	 * If an entity tag cache has been set, the request carries the entity tag of the previous response to the same request
+	 * and the object bound from that response is reused if Facebook replies 304 Not Modified.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T fetch(URI uri, Type responseType, Class<?> type, boolean connection, GraphResponseCache.Key key) {
+		RestTemplate restTemplate = getRestTemplate();
+		RequestCallback acceptHeaderCallback = restTemplate.acceptHeaderRequestCallback(connection ? PagedList.class : type);
+		ResponseExtractor<T> extractor = new HttpMessageConverterExtractor<T>(responseType, restTemplate.getMessageConverters());
+		if (metrics != null) {
+			extractor = metrics.timeBinding(extractor, connection ? "fetchConnections" : "fetchObject", type);
+		}
+		if (requestObserver != null) {
+			extractor = observeBinding(extractor);
+		}
+		if (entityTagCache == null) {
+			return restTemplate.execute(uri, HttpMethod.GET, acceptHeaderCallback, extractor);
+		}
+		EntityTagCache.Entry previous = entityTagCache.get(key);
+		return restTemplate.execute(uri, HttpMethod.GET, request -> {
+			acceptHeaderCallback.doWithRequest(request);
+			if (previous != null) {
+				request.getHeaders().setIfNoneMatch(previous.getEntityTag());
 			}
+		}, response -> {
+			if (previous != null && response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+				return (T) previous.getValue();
+			}
+			T value = extractor.extractData(response);
+			String entityTag = response.getHeaders().getETag();
+			if (entityTag != null && value != null) {
+				entityTagCache.put(key, entityTag, value);
+			}
+			return value;
+		});
+	}
+
+	/**
+	 * Decorates a response extractor to record the time taken to bind the response in the timings of the observed request,
+	 * less the time spent waiting for the body to arrive.
+	 */
+	private <T> ResponseExtractor<T> observeBinding(ResponseExtractor<T> extractor) {
+		return response -> {
+			RequestTimings timings = RequestTimings.current();
+			if (timings == null) {
+				return extractor.extractData(response);
+			}
+			long bodyReadNanos = timings.getBodyReadNanos();
+			long start = System.nanoTime();
+			T value = extractor.extractData(response);
+			timings.bound(System.nanoTime() - start - (timings.getBodyReadNanos() - bodyReadNanos));
+			return value;
+		};
+	}
+
+	/**
+	 * Builds the cache key for a response, normalizing the order of the URI's query parameters
+	 * so that the same request made with differently-ordered parameters is cached only once.
+	 */
+	private GraphResponseCache.Key cacheKey(URI uri, Class<?> type, boolean connection) {
+		String query = uri.getRawQuery();
+		String normalizedUri = uri.getRawPath();
+		if (query != null) {
+			String[] parameters = query.split("&");
+			Arrays.sort(parameters);
+			normalizedUri += "?" + StringUtils.arrayToDelimitedString(parameters, "&");
 		}
-		
-		return new PagedList<T>(data, previousPage, nextPage, totalCount);
+		return new GraphResponseCache.Key(accessToken, normalizedUri, type, connection);
 	}
-	
+
+	<T> PagedList<T> fetchPagedList(URI uri, Class<T> type) {
+		RestTemplate restTemplate = getRestTemplate();
+		Type pagedListType = ResolvableType.forClassWithGenerics(PagedList.class, type).getType();
+		HttpMessageConverterExtractor<PagedList<T>> extractor = new HttpMessageConverterExtractor<PagedList<T>>(pagedListType, restTemplate.getMessageConverters());
+		return restTemplate.execute(uri, HttpMethod.GET, restTemplate.acceptHeaderRequestCallback(PagedList.class), extractor);
+	}
+
+	/**
+	 * @return the JavaType of a PagedList of the given element type, for binding a connection response with the shared ObjectMapper.
+	 */
+	JavaType pagedListType(Class<?> type) {
+		return objectMapper.getTypeFactory().constructParametricType(PagedList.class, type);
+	}
+
+	public GraphBatch batch() {
+		return new GraphBatchTemplate(this, getRestTemplate(), objectMapper);
+	}
+
 	public String getBaseGraphApiUrl() {
 		if (apiVersion != null) {
 			return "https://graph.facebook.com/v" + apiVersion + "/";
@@ -333,12 +779,19 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 			uriBuilder.queryParam("height", height.toString());
 		}
 		URI uri = uriBuilder.build();
-		ResponseEntity<byte[]> response = getRestTemplate().getForEntity(uri, byte[].class);
-		if(response.getStatusCode() == HttpStatus.FOUND) {
-			throw new UnsupportedOperationException("Attempt to fetch image resulted in a redirect which could not be followed. Add Apache HttpComponents HttpClient to the classpath " +
-					"to be able to follow redirects.");
+		// images are served from a CDN that Facebook redirects to; the redirect is followed here rather than by the transport,
+		// and the access token is only sent to Facebook, so that it isn't passed on to the CDN
+		for (int redirects = 0; ; redirects++) {
+			ResponseEntity<byte[]> response = getRestTemplate().getForEntity(uri, byte[].class);
+			if (!response.getStatusCode().is3xxRedirection()) {
+				return response.getBody();
+			}
+			URI location = response.getHeaders().getLocation();
+			if (location == null || redirects >= MAX_IMAGE_REDIRECTS) {
+				throw new UnsupportedOperationException("Attempt to fetch image resulted in a redirect which could not be followed: " + response.getStatusCode());
+			}
+			uri = uri.resolve(location);
 		}
-		return response.getBody();
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -380,65 +833,224 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 		getRestTemplate().exchange(uri, HttpMethod.POST, entity, String.class);
 	}
 	
-	// AbstractOAuth2ApiBinding hooks
-	@Override
+	// RestTemplate configuration hooks
+	/**
+	 * @return the OAuth 2 version that determines how the access token is carried in the Authorization header.
+	 */
 	protected OAuth2Version getOAuth2Version() {
 		return OAuth2Version.DRAFT_10;
 	}
 
-	@Override
+	/**
+	 * Configures the RestTemplate after it is created, before any request factory or interceptors other than
+	 * the one carrying the access token are applied.
+	 * @param restTemplate the RestTemplate to configure.
+	 */
 	protected void configureRestTemplate(RestTemplate restTemplate) {
 		restTemplate.setErrorHandler(new FacebookErrorHandler());
 	}
 
+	/**
+	 * @return the message converters that requests and responses are converted with.
+	 */
+	protected List<HttpMessageConverter<?>> getMessageConverters() {
+		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>();
+		messageConverters.add(new StringHttpMessageConverter());
+		messageConverters.add(getFormMessageConverter());
+		messageConverters.add(getJsonMessageConverter());
+		messageConverters.add(getByteArrayMessageConverter());
+		return messageConverters;
+	}
+
+	protected FormHttpMessageConverter getFormMessageConverter() {
+		FormHttpMessageConverter converter = new FormHttpMessageConverter();
+		converter.setCharset(StandardCharsets.UTF_8);
+		List<HttpMessageConverter<?>> partConverters = new ArrayList<HttpMessageConverter<?>>();
+		partConverters.add(new ByteArrayHttpMessageConverter());
+		StringHttpMessageConverter stringHttpMessageConverter = new StringHttpMessageConverter(StandardCharsets.UTF_8);
+		stringHttpMessageConverter.setWriteAcceptCharset(false);
+		partConverters.add(stringHttpMessageConverter);
+		partConverters.add(new ResourceHttpMessageConverter());
+		converter.setPartConverters(partConverters);
+		return converter;
+	}
+
+	protected ByteArrayHttpMessageConverter getByteArrayMessageConverter() {
+		ByteArrayHttpMessageConverter converter = new ByteArrayHttpMessageConverter();
+		converter.setSupportedMediaTypes(Arrays.asList(MediaType.IMAGE_JPEG, MediaType.IMAGE_GIF, MediaType.IMAGE_PNG));
+		return converter;
+	}
+
+	private void replaceInterceptor(ClientHttpRequestInterceptor previous, ClientHttpRequestInterceptor replacement) {
+		replaceInterceptors(previous != null ? Arrays.asList(previous) : new ArrayList<ClientHttpRequestInterceptor>(),
+				replacement != null ? Arrays.asList(replacement) : new ArrayList<ClientHttpRequestInterceptor>());
+	}
+
+	/**
+	 * Puts the rate limiting and circuit breaking interceptors in the chain or, when requests are retried, has the retrying
+	 * interceptor apply them to every attempt, since the retrying interceptor must be last and retries beneath them otherwise.
+	 */
+	private void updateResilienceInterceptors() {
+		List<ClientHttpRequestInterceptor> attemptInterceptors = new ArrayList<ClientHttpRequestInterceptor>();
+		if (rateLimitingInterceptor != null) {
+			attemptInterceptors.add(rateLimitingInterceptor);
+		}
+		if (circuitBreakingInterceptor != null) {
+			attemptInterceptors.add(circuitBreakingInterceptor);
+		}
+		retryingInterceptor = retryPolicy != null ? retryPolicy.interceptor(attemptInterceptors) : null;
+		List<ClientHttpRequestInterceptor> replacements = retryingInterceptor != null ? Arrays.asList(retryingInterceptor) : attemptInterceptors;
+		replaceInterceptors(resilienceInterceptors, replacements);
+		resilienceInterceptors = replacements;
+	}
+
+	/**
+	 * Replaces interceptors, keeping the observing and metering interceptors first so that they see the requests rejected by
+	 * the others, and the retrying interceptor last since it retries by executing the rest of the chain again.
+	 */
+	private void replaceInterceptors(List<ClientHttpRequestInterceptor> previous, List<ClientHttpRequestInterceptor> replacements) {
+		List<ClientHttpRequestInterceptor> interceptors = getRestTemplate().getInterceptors();
+		interceptors.removeAll(previous);
+		interceptors.addAll(replacements);
+		if (meteringInterceptor != null && interceptors.remove(meteringInterceptor)) {
+			interceptors.add(0, meteringInterceptor);
+		}
+		if (observingInterceptor != null && interceptors.remove(observingInterceptor)) {
+			interceptors.add(0, observingInterceptor);
+		}
+		if (retryingInterceptor != null && interceptors.remove(retryingInterceptor)) {
+			interceptors.add(retryingInterceptor);
+		}
+		getRestTemplate().setInterceptors(interceptors);
+	}
+
 	private void setAppSecretInterceptor(RestTemplate restTemplate) {
 		List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
-		interceptors.add(new FacebookAppSecretProofInterceptor(accessToken, appSecret));
+		ClientHttpRequestInterceptor appSecretProofInterceptor = new FacebookAppSecretProofInterceptor(accessToken, appSecret);
+		interceptors.add((request, body, execution) -> isFacebookHost(request.getURI())
+				? appSecretProofInterceptor.intercept(request, body, execution) : execution.execute(request, body));
 		restTemplate.setInterceptors(interceptors);
 	}
 
-	@Override
+	/**
+	 * Determines whether a request is made to Facebook, and so may carry the access token and its proof, rather than to
+	 * another host, such as the CDN that images are redirected to.
+	 */
+	private boolean isFacebookHost(URI uri) {
+		String host = uri.getHost();
+		if (host == null) {
+			return false;
+		}
+		host = host.toLowerCase(Locale.ROOT);
+		return host.equals("facebook.com") || host.endsWith(".facebook.com") || host.equals(URI.create(getBaseGraphApiUrl()).getHost());
+	}
+
+	/**
+	 * Returns the JSON message converter shared by all FacebookTemplate instances.
+	 * Configuring an ObjectMapper with {@link FacebookModule} is costly, so it is only done once.
+	 * Subclasses that need a differently-configured ObjectMapper should override this method to return their own converter
+	 * rather than modifying the shared one.
+	 */
 	protected MappingJackson2HttpMessageConverter getJsonMessageConverter() {
-		MappingJackson2HttpMessageConverter converter = super.getJsonMessageConverter();
-		objectMapper = new ObjectMapper();				
-		objectMapper.registerModule(new FacebookModule());
-		converter.setObjectMapper(objectMapper);		
+		MappingJackson2HttpMessageConverter converter = sharedJsonMessageConverter;
+		if (converter == null) {
+			// racing threads may each create a converter; any of them is equally usable
+			converter = new MappingJackson2HttpMessageConverter();
+			converter.setObjectMapper(getSharedObjectMapper());
+			sharedJsonMessageConverter = converter;
+		}
+		objectMapper = converter.getObjectMapper();
 		return converter;
 	}
+
+	/**
+	 * @return the ObjectMapper, configured with {@link FacebookModule}, that FacebookTemplate and {@link AsyncFacebookTemplate} bind responses with.
+	 */
+	static ObjectMapper getSharedObjectMapper() {
+		ObjectMapper mapper = sharedObjectMapper;
+		if (mapper == null) {
+			// racing threads may each create an ObjectMapper; any of them is equally usable
+			mapper = new ObjectMapper().registerModule(new FacebookModule());
+			sharedObjectMapper = mapper;
+		}
+		return mapper;
+	}
 	
 	// private helpers
-	private void initialize() {
-		// Wrap the request factory with a BufferingClientHttpRequestFactory so that the error handler can do repeat reads on the response.getBody()
-		super.setRequestFactory(ClientHttpRequestFactorySelector.bufferRequests(getRestTemplate().getRequestFactory()));
-		initSubApis();
+	private RestTemplate createRestTemplate(String accessToken) {
+		RestTemplate restTemplate = new RestTemplate(getMessageConverters());
+		if (accessToken != null) {
+			String authorization = getOAuth2Version().getAuthorizationHeaderValue(accessToken);
+			List<ClientHttpRequestInterceptor> interceptors = new ArrayList<ClientHttpRequestInterceptor>();
+			interceptors.add((request, body, execution) -> {
+				if (isFacebookHost(request.getURI())) {
+					request.getHeaders().set(HttpHeaders.AUTHORIZATION, authorization);
+				}
+				return execution.execute(request, body);
+			});
+			restTemplate.setInterceptors(interceptors);
+		}
+		configureRestTemplate(restTemplate);
+		return restTemplate;
 	}
-		
-	private void initSubApis() {
-		achievementOperations = new AchievementTemplate(this);
-		openGraphOperations = new OpenGraphTemplate(this);
-		userOperations = new UserTemplate(this, getRestTemplate());
-		friendOperations = new FriendTemplate(this, getRestTemplate());
-		feedOperations = new FeedTemplate(this, getRestTemplate(), objectMapper);
-		commentOperations = new CommentTemplate(this);
-		likeOperations = new LikeTemplate(this);
-		eventOperations = new EventTemplate(this);
-		mediaOperations = new MediaTemplate(this, getRestTemplate());
-		groupOperations = new GroupTemplate(this);
-		pageOperations = new PageTemplate(this);
-		testUserOperations = new TestUserTemplate(this, getRestTemplate(), appId);
-		socialContextOperations = new SocialContextTemplate(this, getRestTemplate());
+
+	private void initialize(ClientHttpRequestFactory requestFactory) {
+		this.requestFactory = requestFactory;
+		restTemplate.setRequestFactory(decorateRequestFactory(requestFactory));
 	}
+
+	private ClientHttpRequestFactory decorateRequestFactory(ClientHttpRequestFactory requestFactory) {
+		// Observed requests are timed right above the network
+		ClientHttpRequestFactory timingRequestFactory = requestObserver != null ? new TimingClientHttpRequestFactory(requestFactory) : requestFactory;
+		// Compressed responses are decompressed before anything else sees them
+		ClientHttpRequestFactory decompressingRequestFactory = compressResponses ? new GzipClientHttpRequestFactory(timingRequestFactory, compressionStatistics) : timingRequestFactory;
+		// Error response bodies are always buffered so that the error handler can do repeat reads on the response.getBody()
+		return bufferAllResponses ? ClientHttpRequestFactorySelector.bufferRequests(decompressingRequestFactory) : new ErrorBufferingClientHttpRequestFactory(decompressingRequestFactory);
+	}
+		
 	
-	@SuppressWarnings("unchecked")
-	private <T> List<T> deserializeDataList(JsonNode jsonNode, final Class<T> elementType) {
+	/**
+	 * Splits the given IDs into chunks that each fit in a single <code>?ids=</code> request, both by count and by URL length.
+	 */
+	static List<List<String>> chunkObjectIds(String baseGraphApiUrl, List<String> objectIds, MultiValueMap<String, String> queryParameters) {
+		int baseLength = URIBuilder.fromUri(baseGraphApiUrl).queryParams(queryParameters).build().toString().length();
+		List<List<String>> chunks = new ArrayList<List<String>>();
+		List<String> chunk = new ArrayList<String>();
+		int length = baseLength;
+		for (String objectId : objectIds) {
+			// each ID after the first is preceded by an encoded comma ("%2C")
+			int idLength = encodedLength(objectId) + (chunk.isEmpty() ? 0 : 3);
+			if (!chunk.isEmpty() && (chunk.size() == MAX_OBJECTS_PER_REQUEST || length + idLength > MAX_URL_LENGTH)) {
+				chunks.add(chunk);
+				chunk = new ArrayList<String>();
+				length = baseLength;
+				idLength -= 3;
+			}
+			chunk.add(objectId);
+			length += idLength;
+		}
+		if (!chunk.isEmpty()) {
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	private static int encodedLength(String value) {
 		try {
-			CollectionType listType = TypeFactory.defaultInstance().constructCollectionType(List.class, elementType);
-			return (List<T>) objectMapper.readerFor(listType).readValue(jsonNode.toString()); // TODO: EXTREMELY HACKY--TEMPORARY UNTIL I FIGURE OUT HOW JACKSON 2 DOES THIS
-		} catch (IOException e) {
-			throw new UncategorizedApiException("facebook", "Error deserializing data from Facebook: " + e.getMessage(), e);
+			return URLEncoder.encode(value, "UTF-8").length();
+		} catch (UnsupportedEncodingException shouldntHappen) {
+			throw new IllegalStateException(shouldntHappen);
 		}
 	}
-	
+
+	private MultiValueMap<String, String> fieldsParameter(Fields fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		if (!fields.isEmpty()) {
+			queryParameters.set("fields", fields.toString());
+		}
+		return queryParameters;
+	}
+
 	private String join(String[] strings) {
 		StringBuilder builder = new StringBuilder();
 		if(strings.length > 0) {
@@ -450,4 +1062,28 @@ public class FacebookTemplate extends AbstractOAuth2ApiBinding implements Facebo
 		return builder.toString();
 	}
 
+	/**
+	 * Lazily-created pool that pages are prefetched on when no prefetch executor has been set.
+	 */
+	private static class DefaultPrefetchExecutor {
+
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		static final ExecutorService INSTANCE = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "facebook-prefetch-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+	}
+
+	/**
+	 * Lazily-created request factory shared by the templates created without one, so that they share a single connection pool.
+	 */
+	private static class DefaultRequestFactory {
+
+		static final ClientHttpRequestFactory INSTANCE = new GraphTransport().createRequestFactory();
+
+	}
+
 }
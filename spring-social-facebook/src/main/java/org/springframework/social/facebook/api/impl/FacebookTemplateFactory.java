@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.social.facebook.api.Facebook;
+import org.springframework.social.facebook.api.GraphRequestObserver;
+import org.springframework.social.facebook.api.GraphResponseCache;
+import org.springframework.util.Assert;
+
+/**
+ * Creates {@link FacebookTemplate}s for a single Facebook application.
+ * <p>
+ * Each FacebookTemplate carries its own access token, but the templates created by a factory share a single
+ * {@link ClientHttpRequestFactory} (and therefore a single connection pool, when one is used) as well as the
+ * JSON message converter and ObjectMapper that all FacebookTemplates share.
+ * That makes creating a FacebookTemplate per request or per user connection inexpensive.
+ * </p>
+ * <p>
+ * A FacebookTemplateFactory is thread-safe once configured and is intended to be created once and shared.
+ * </p>
+ */
+public class FacebookTemplateFactory {
+
+	private final String appId;
+
+	private final String appSecret;
+
+	private final String applicationNamespace;
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private String apiVersion = Facebook.DEFAULT_API_VERSION;
+
+	private GraphResponseCache responseCache;
+
+	private EntityTagCache entityTagCache;
+
+	private boolean coalesceRequests;
+
+	private GraphRateLimiter rateLimiter;
+
+	private GraphRetryPolicy retryPolicy;
+
+	private GraphCircuitBreaker circuitBreaker;
+
+	private GraphMetrics metrics;
+
+	private GraphRequestObserver requestObserver;
+
+	private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+
+	/**
+	 * Create a new instance of FacebookTemplateFactory that shares a request factory created by a default {@link GraphTransport}
+	 * among the templates it creates.
+	 * @param appId the application's App ID as assigned by Facebook (may be null)
+	 * @param appSecret the application's App Secret as assigned by Facebook. If not null, requests will carry an appsecret_proof parameter.
+	 * @param applicationNamespace the application's App Namespace as configured with Facebook (may be null)
+	 */
+	public FacebookTemplateFactory(String appId, String appSecret, String applicationNamespace) {
+		this(appId, appSecret, applicationNamespace, new GraphTransport().createRequestFactory());
+	}
+
+	/**
+	 * Create a new instance of FacebookTemplateFactory.
+	 * @param appId the application's App ID as assigned by Facebook (may be null)
+	 * @param appSecret the application's App Secret as assigned by Facebook. If not null, requests will carry an appsecret_proof parameter.
+	 * @param applicationNamespace the application's App Namespace as configured with Facebook (may be null)
+	 * @param requestFactory the request factory shared by the templates created by this factory. Must be thread-safe.
+	 */
+	public FacebookTemplateFactory(String appId, String appSecret, String applicationNamespace, ClientHttpRequestFactory requestFactory) {
+		Assert.notNull(requestFactory, "ClientHttpRequestFactory must not be null");
+		this.appId = appId;
+		this.appSecret = appSecret;
+		this.applicationNamespace = applicationNamespace;
+		this.requestFactory = requestFactory;
+	}
+
+	/**
+	 * Set the Graph API version (e.g., "2.10") of the templates created by this factory.
+	 * @param apiVersion the API version. Default is {@link Facebook#DEFAULT_API_VERSION}.
+	 * @see FacebookTemplate#setApiVersion(String)
+	 */
+	public void setApiVersion(String apiVersion) {
+		this.apiVersion = apiVersion;
+	}
+
+	/**
+	 * Set a response cache to be shared by the templates created by this factory.
+	 * Responses are cached per access token, so templates never see responses fetched with another template's token.
+	 * @param responseCache the response cache.
+	 * @see FacebookTemplate#setResponseCache(GraphResponseCache)
+	 */
+	public void setResponseCache(GraphResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	/**
+	 * Set an entity tag cache to be shared by the templates created by this factory.
+	 * @param entityTagCache the entity tag cache.
+	 * @see FacebookTemplate#setEntityTagCache(EntityTagCache)
+	 */
+	public void setEntityTagCache(EntityTagCache entityTagCache) {
+		this.entityTagCache = entityTagCache;
+	}
+
+	/**
+	 * Enable or disable the coalescing of identical concurrent reads by the templates created by this factory.
+	 * @param coalesceRequests true to coalesce identical concurrent reads. Default is false.
+	 * @see FacebookTemplate#setCoalesceRequests(boolean)
+	 */
+	public void setCoalesceRequests(boolean coalesceRequests) {
+		this.coalesceRequests = coalesceRequests;
+	}
+
+	/**
+	 * Set a rate limiter to be shared by the templates created by this factory.
+	 * @param rateLimiter the rate limiter.
+	 * @see FacebookTemplate#setRateLimiter(GraphRateLimiter)
+	 */
+	public void setRateLimiter(GraphRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Set a retry policy to be shared by the templates created by this factory, along with its retry budget.
+	 * @param retryPolicy the retry policy.
+	 * @see FacebookTemplate#setRetryPolicy(GraphRetryPolicy)
+	 */
+	public void setRetryPolicy(GraphRetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Set a circuit breaker to be shared by the templates created by this factory.
+	 * @param circuitBreaker the circuit breaker.
+	 * @see FacebookTemplate#setCircuitBreaker(GraphCircuitBreaker)
+	 */
+	public void setCircuitBreaker(GraphCircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Set the metrics to be recorded by the templates created by this factory.
+	 * @param metrics the metrics.
+	 * @see FacebookTemplate#setMetrics(GraphMetrics)
+	 */
+	public void setMetrics(GraphMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Set an observer to receive the timings of the requests made by the templates created by this factory.
+	 * @param requestObserver the observer.
+	 * @see FacebookTemplate#setRequestObserver(GraphRequestObserver)
+	 */
+	public void setRequestObserver(GraphRequestObserver requestObserver) {
+		this.requestObserver = requestObserver;
+	}
+
+	/**
+	 * @return the compressed and uncompressed bytes of the compressed responses received by the templates created by this factory.
+	 */
+	public CompressionStatistics getCompressionStatistics() {
+		return compressionStatistics;
+	}
+
+	/**
+	 * @return the request factory shared by the templates created by this factory.
+	 */
+	public ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	/**
+	 * Creates a FacebookTemplate that performs operations on behalf of the given access token.
+	 * @param accessToken an access token given by Facebook after a successful OAuth 2 authentication (or through Facebook's JS library).
+	 * @return a FacebookTemplate for the given access token.
+	 */
+	public FacebookTemplate createFacebookTemplate(String accessToken) {
+		FacebookTemplate facebook = new FacebookTemplate(accessToken, applicationNamespace, appId, appSecret, requestFactory);
+		facebook.setCompressionStatistics(compressionStatistics);
+		facebook.setApiVersion(apiVersion);
+		facebook.setResponseCache(responseCache);
+		facebook.setEntityTagCache(entityTagCache);
+		facebook.setCoalesceRequests(coalesceRequests);
+		if (rateLimiter != null) {
+			facebook.setRateLimiter(rateLimiter);
+		}
+		if (circuitBreaker != null) {
+			facebook.setCircuitBreaker(circuitBreaker);
+		}
+		if (retryPolicy != null) {
+			facebook.setRetryPolicy(retryPolicy);
+		}
+		if (metrics != null) {
+			facebook.setMetrics(metrics);
+		}
+		if (requestObserver != null) {
+			facebook.setRequestObserver(requestObserver);
+		}
+		return facebook;
+	}
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.social.UncategorizedApiException;
+import org.springframework.social.facebook.api.BatchResult;
+import org.springframework.social.facebook.api.FacebookError;
+import org.springframework.social.facebook.api.GraphBatch;
+import org.springframework.social.facebook.api.PagedList;
+import org.springframework.social.support.URIBuilder;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link GraphBatch} implementation that sends the collected operations to the Graph API's batch endpoint.
+ * Errors for individual operations are mapped to exceptions by {@link FacebookErrorHandler}, just as they would be for non-batched requests.
+ */
+class GraphBatchTemplate implements GraphBatch {
+
+	private static final String FACEBOOK_PROVIDER_ID = "facebook";
+
+	private final FacebookTemplate facebook;
+
+	private final RestTemplate restTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final FacebookErrorHandler errorHandler = new FacebookErrorHandler();
+
+	private List<BatchItem<?>> items = new ArrayList<BatchItem<?>>();
+
+	public GraphBatchTemplate(FacebookTemplate facebook, RestTemplate restTemplate, ObjectMapper objectMapper) {
+		this.facebook = facebook;
+		this.restTemplate = restTemplate;
+		this.objectMapper = objectMapper;
+	}
+
+	public <T> BatchResult<T> fetchObject(String objectId, Class<T> type, String... fields) {
+		return fetchObject(objectId, type, fieldsParameter(fields));
+	}
+
+	public <T> BatchResult<T> fetchObject(String objectId, Class<T> type, MultiValueMap<String, String> queryParameters) {
+		return add(new BatchItem<T>("GET", relativeUrl(objectId, null, queryParameters), null, new ObjectBinder<T>(objectMapper, type)));
+	}
+
+	public <T> BatchResult<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, String... fields) {
+		return fetchConnections(objectId, connectionName, type, fieldsParameter(fields));
+	}
+
+	public <T> BatchResult<PagedList<T>> fetchConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters) {
+		return add(new BatchItem<PagedList<T>>("GET", relativeUrl(objectId, connectionName, queryParameters), null, new ConnectionsBinder<T>(objectMapper, facebook.pagedListType(type))));
+	}
+
+	public BatchResult<String> publish(String objectId, String connectionName, MultiValueMap<String, Object> data) {
+		return add(new BatchItem<String>("POST", relativeUrl(objectId, connectionName, null), encodeBody(data), new IdBinder(objectMapper)));
+	}
+
+	public BatchResult<Void> post(String objectId, MultiValueMap<String, Object> data) {
+		return post(objectId, null, data);
+	}
+
+	public BatchResult<Void> post(String objectId, String connectionName, MultiValueMap<String, Object> data) {
+		return add(new BatchItem<Void>("POST", relativeUrl(objectId, connectionName, null), encodeBody(data), NO_VALUE));
+	}
+
+	public BatchResult<Void> delete(String objectId) {
+		return delete(objectId, null);
+	}
+
+	public BatchResult<Void> delete(String objectId, String connectionName) {
+		return add(new BatchItem<Void>("DELETE", relativeUrl(objectId, connectionName, null), null, NO_VALUE));
+	}
+
+	public int size() {
+		return items.size();
+	}
+
+	public void execute() {
+		List<BatchItem<?>> pending = items;
+		items = new ArrayList<BatchItem<?>>();
+		for (int start = 0; start < pending.size(); start += MAX_BATCH_SIZE) {
+			try {
+				execute(pending.subList(start, Math.min(start + MAX_BATCH_SIZE, pending.size())));
+			} catch (RuntimeException e) {
+				// this chunk and the ones after it will never be sent, so their results complete with the failure
+				for (BatchItem<?> item : pending.subList(start, pending.size())) {
+					if (!item.isExecuted()) {
+						item.fail(null, null, e);
+					}
+				}
+				throw e;
+			}
+		}
+	}
+
+	// private helpers
+
+	private <T> BatchItem<T> add(BatchItem<T> item) {
+		items.add(item);
+		return item;
+	}
+
+	private void execute(List<BatchItem<?>> batch) {
+		MultiValueMap<String, Object> requestData = new LinkedMultiValueMap<String, Object>();
+		requestData.set("batch", toBatchJson(batch));
+		requestData.set("include_headers", "false");
+		JsonNode responses = restTemplate.postForObject(URIBuilder.fromUri(facebook.getBaseGraphApiUrl()).build(), requestData, JsonNode.class);
+		for (int i = 0; i < batch.size(); i++) {
+			complete(batch.get(i), responses != null ? responses.get(i) : null);
+		}
+	}
+
+	private String toBatchJson(List<BatchItem<?>> batch) {
+		ArrayNode requests = objectMapper.createArrayNode();
+		for (BatchItem<?> item : batch) {
+			ObjectNode request = requests.addObject();
+			request.put("method", item.method);
+			request.put("relative_url", item.relativeUrl);
+			if (item.body != null) {
+				request.put("body", item.body);
+			}
+		}
+		try {
+			return objectMapper.writeValueAsString(requests);
+		} catch (JsonProcessingException e) {
+			throw new UncategorizedApiException(FACEBOOK_PROVIDER_ID, "Error serializing batch request: " + e.getMessage(), e);
+		}
+	}
+
+	private void complete(BatchItem<?> item, JsonNode response) {
+		if (response == null || response.isNull()) {
+			item.fail(null, null, new UncategorizedApiException(FACEBOOK_PROVIDER_ID, "Facebook did not complete the batched request for " + item.relativeUrl, null));
+			return;
+		}
+		int code = response.path("code").asInt();
+		String body = response.has("body") ? response.get("body").textValue() : null;
+		if (code >= 200 && code < 300) {
+			try {
+				item.succeed(code, body);
+			} catch (IOException e) {
+				item.fail(code, null, new UncategorizedApiException(FACEBOOK_PROVIDER_ID, "Error deserializing batched response from Facebook: " + e.getMessage(), e));
+			}
+		} else {
+			FacebookError error = errorHandler.extractError(body);
+			item.fail(code, error, toException(code, error));
+		}
+	}
+
+	private RuntimeException toException(int code, FacebookError error) {
+		try {
+			errorHandler.handleFacebookError(resolveStatus(code), error);
+		} catch (RuntimeException e) {
+			return e;
+		}
+		return new UncategorizedApiException(FACEBOOK_PROVIDER_ID, "Batched request failed with HTTP status " + code, null);
+	}
+
+	private HttpStatus resolveStatus(int code) {
+		try {
+			return HttpStatus.valueOf(code);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private String relativeUrl(String objectId, String connectionName, MultiValueMap<String, String> queryParameters) {
+		String baseUrl = facebook.getBaseGraphApiUrl();
+		String connectionPath = connectionName != null && connectionName.length() > 0 ? "/" + connectionName : "";
+		URIBuilder uriBuilder = URIBuilder.fromUri(baseUrl + objectId + connectionPath);
+		if (queryParameters != null) {
+			uriBuilder.queryParams(queryParameters);
+		}
+		return uriBuilder.build().toString().substring(baseUrl.length());
+	}
+
+	private MultiValueMap<String, String> fieldsParameter(String[] fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		if (fields.length > 0) {
+			queryParameters.set("fields", StringUtils.arrayToCommaDelimitedString(fields));
+		}
+		return queryParameters;
+	}
+
+	private String encodeBody(MultiValueMap<String, Object> data) {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, List<Object>> entry : data.entrySet()) {
+			for (Object value : entry.getValue()) {
+				if (value == null) {
+					continue;
+				}
+				if (value instanceof Resource || value instanceof byte[]) {
+					throw new IllegalArgumentException("Binary data for '" + entry.getKey() + "' cannot be sent in a batch request");
+				}
+				if (builder.length() > 0) {
+					builder.append('&');
+				}
+				builder.append(formEncode(entry.getKey())).append('=').append(formEncode(String.valueOf(value)));
+			}
+		}
+		return builder.toString();
+	}
+
+	private String formEncode(String value) {
+		try {
+			return URLEncoder.encode(value, "UTF-8");
+		} catch (UnsupportedEncodingException shouldntHappen) {
+			throw new IllegalStateException(shouldntHappen);
+		}
+	}
+
+	/**
+	 * Strategy for binding the body of a successful batched response.
+	 */
+	private interface ResponseBinder<T> {
+		T bind(String body) throws IOException;
+	}
+
+	private static final ResponseBinder<Void> NO_VALUE = new ResponseBinder<Void>() {
+		public Void bind(String body) {
+			return null;
+		}
+	};
+
+	private static class ObjectBinder<T> implements ResponseBinder<T> {
+
+		private final ObjectMapper objectMapper;
+
+		private final Class<T> type;
+
+		public ObjectBinder(ObjectMapper objectMapper, Class<T> type) {
+			this.objectMapper = objectMapper;
+			this.type = type;
+		}
+
+		public T bind(String body) throws IOException {
+			return objectMapper.readerFor(type).readValue(body);
+		}
+
+	}
+
+	private static class ConnectionsBinder<T> implements ResponseBinder<PagedList<T>> {
+
+		private final ObjectMapper objectMapper;
+
+		private final JavaType pagedListType;
+
+		public ConnectionsBinder(ObjectMapper objectMapper, JavaType pagedListType) {
+			this.objectMapper = objectMapper;
+			this.pagedListType = pagedListType;
+		}
+
+		public PagedList<T> bind(String body) throws IOException {
+			return objectMapper.readerFor(pagedListType).readValue(body);
+		}
+
+	}
+
+	private static class IdBinder implements ResponseBinder<String> {
+
+		private final ObjectMapper objectMapper;
+
+		public IdBinder(ObjectMapper objectMapper) {
+			this.objectMapper = objectMapper;
+		}
+
+		public String bind(String body) throws IOException {
+			JsonNode idNode = objectMapper.readTree(body).get("id");
+			return idNode != null ? idNode.asText() : null;
+		}
+
+	}
+
+	private static class BatchItem<T> implements BatchResult<T> {
+
+		private final String method;
+
+		private final String relativeUrl;
+
+		private final String body;
+
+		private final ResponseBinder<T> binder;
+
+		private boolean executed;
+
+		private Integer statusCode;
+
+		private T value;
+
+		private FacebookError error;
+
+		private RuntimeException exception;
+
+		public BatchItem(String method, String relativeUrl, String body, ResponseBinder<T> binder) {
+			this.method = method;
+			this.relativeUrl = relativeUrl;
+			this.body = body;
+			this.binder = binder;
+		}
+
+		public boolean isExecuted() {
+			return executed;
+		}
+
+		public boolean isError() {
+			return exception != null;
+		}
+
+		public Integer getStatusCode() {
+			return statusCode;
+		}
+
+		public FacebookError getError() {
+			return error;
+		}
+
+		public T get() {
+			if (!executed) {
+				throw new IllegalStateException("The batch containing this request has not been executed");
+			}
+			if (exception != null) {
+				throw exception;
+			}
+			return value;
+		}
+
+		void succeed(int statusCode, String body) throws IOException {
+			this.executed = true;
+			this.statusCode = statusCode;
+			this.value = body != null ? binder.bind(body) : null;
+		}
+
+		void fail(Integer statusCode, FacebookError error, RuntimeException exception) {
+			this.executed = true;
+			this.statusCode = statusCode;
+			this.error = error;
+			this.exception = exception;
+		}
+
+	}
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import static org.springframework.social.facebook.api.FacebookErrors.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.social.ServerException;
+import org.springframework.social.facebook.api.CircuitBreakerOpenException;
+import org.springframework.social.facebook.api.FacebookError;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Stops sending requests to Graph API endpoints that are failing or responding slowly, so that callers fail fast with a
+ * {@link CircuitBreakerOpenException} instead of waiting on requests that are unlikely to succeed.
+ * <p>
+ * Requests are grouped into circuits by host and endpoint family: the connection for connection requests (e.g., "feed",
+ * "photos", or "accounts"), "search" for searches, and "object" for object requests.
+ * For example, videos posted to <code>graph-video.facebook.com</code> have a circuit of their own, and a failing feed
+ * endpoint doesn't affect fetching pages.
+ * </p>
+ * <p>
+ * Each circuit keeps the outcome of its most recent requests. A request fails if it fails with an I/O error, if Facebook
+ * answers it with an unknown error (code 1) or a service error (code 2, mapped to {@link ServerException}), whatever
+ * its status, or if it is otherwise answered with a 5xx status. A request is slow if it takes longer than the slow call duration. Once enough requests have been made, the circuit
+ * opens when the rate of failed or of slow requests reaches its threshold, rejecting requests for the open duration.
+ * After that, a single trial request is let through: the circuit closes if it succeeds and opens again if it doesn't.
+ * </p>
+ * <p>
+ * A single GraphCircuitBreaker should be shared by all FacebookTemplates (e.g., through
+ * {@link FacebookTemplateFactory#setCircuitBreaker(GraphCircuitBreaker)}), so that they all learn of a failing endpoint at once.
+ * </p>
+ */
+public class GraphCircuitBreaker {
+
+	private final FacebookErrorHandler errorHandler = new FacebookErrorHandler();
+
+	private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+
+	private int windowSize = 20;
+
+	private int minimumRequests = 10;
+
+	private int failureRateThreshold = 50;
+
+	private Duration slowCallDuration = Duration.ofSeconds(5);
+
+	private int slowCallRateThreshold = 50;
+
+	private Duration openDuration = Duration.ofSeconds(30);
+
+	/**
+	 * Set how many of the most recent requests to a circuit are considered, and how many must have been made before the circuit may open.
+	 * Applies to circuits that haven't seen any requests yet, so should be set before the circuit breaker is used.
+	 * @param windowSize the number of recent requests considered. Default is 20.
+	 * @param minimumRequests the number of requests that must have been made before the circuit may open. Default is 10.
+	 */
+	public void setWindow(int windowSize, int minimumRequests) {
+		Assert.isTrue(windowSize > 0, "Window size must be greater than 0");
+		Assert.isTrue(minimumRequests > 0 && minimumRequests <= windowSize, "Minimum number of requests must be between 1 and the window size");
+		this.windowSize = windowSize;
+		this.minimumRequests = minimumRequests;
+	}
+
+	/**
+	 * Set the percentage of failed requests at which a circuit opens.
+	 * @param failureRateThreshold the failure rate threshold. Default is 50.
+	 */
+	public void setFailureRateThreshold(int failureRateThreshold) {
+		Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 100, "Failure rate threshold must be between 1 and 100");
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	/**
+	 * Set how long a request may take before it is considered slow, and the percentage of slow requests at which a circuit opens.
+	 * @param slowCallDuration the duration above which a request is slow. Default is 5 seconds.
+	 * @param slowCallRateThreshold the slow request rate threshold. Default is 50.
+	 */
+	public void setSlowCallThreshold(Duration slowCallDuration, int slowCallRateThreshold) {
+		Assert.notNull(slowCallDuration, "Slow call duration must not be null");
+		Assert.isTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100, "Slow call rate threshold must be between 1 and 100");
+		this.slowCallDuration = slowCallDuration;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	/**
+	 * Set how long an open circuit rejects requests before letting a trial request through.
+	 * @param openDuration the open duration. Default is 30 seconds.
+	 */
+	public void setOpenDuration(Duration openDuration) {
+		Assert.notNull(openDuration, "Open duration must not be null");
+		this.openDuration = openDuration;
+	}
+
+	/**
+	 * @param circuit the circuit, made of the host and the endpoint family (e.g., "graph.facebook.com/feed").
+	 * @return the state of the circuit.
+	 */
+	public State getState(String circuit) {
+		Circuit existing = circuits.get(circuit);
+		return existing != null ? existing.getState() : State.CLOSED;
+	}
+
+	/**
+	 * Closes all circuits and forgets the outcome of all requests.
+	 */
+	public void reset() {
+		circuits.clear();
+	}
+
+	/**
+	 * Creates an interceptor that rejects requests to open circuits and records the outcome of the others.
+	 */
+	ClientHttpRequestInterceptor interceptor() {
+		return new CircuitBreakingInterceptor();
+	}
+
+	/**
+	 * Determines the circuit of a request from its host and endpoint family.
+	 */
+	static String circuitFor(URI uri) {
+		return uri.getHost() + "/" + GraphRequests.endpointFamily(uri);
+	}
+
+	/**
+	 * Determines whether a response shows the endpoint to be failing, classifying Facebook errors as {@link FacebookErrorHandler} does.
+	 */
+	private boolean isFailure(ClientHttpResponse response) throws IOException {
+		int statusCode = response.getRawStatusCode();
+		FacebookError error = errorHandler.extractError(StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+		if (error != null && error.getCode() != null) {
+			if (error.getCode() == UNKNOWN) {
+				return true;
+			}
+			try {
+				errorHandler.handleFacebookError(GraphRetryPolicy.resolveStatus(statusCode), error);
+			} catch (ServerException e) {
+				return true;
+			} catch (RuntimeException e) {
+				return false;
+			}
+		}
+		return statusCode >= 500;
+	}
+
+	/**
+	 * The states of a circuit.
+	 */
+	public enum State {
+
+		/** Requests are made and their outcome recorded. */
+		CLOSED,
+
+		/** Requests are rejected. */
+		OPEN,
+
+		/** A trial request is being made to decide whether to close the circuit. */
+		HALF_OPEN
+
+	}
+
+	private class CircuitBreakingInterceptor implements ClientHttpRequestInterceptor {
+
+		public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+			String name = circuitFor(request.getURI());
+			Circuit circuit = circuits.computeIfAbsent(name, key -> new Circuit());
+			State permittedIn = circuit.tryAcquire();
+			if (permittedIn == null) {
+				throw new CircuitBreakerOpenException(name);
+			}
+			long start = System.nanoTime();
+			boolean completed = false;
+			try {
+				ClientHttpResponse response = execution.execute(request, body);
+				long durationNanos = System.nanoTime() - start;
+				completed = true;
+				if (response.getRawStatusCode() < 400) {
+					circuit.record(permittedIn, false, durationNanos);
+					return response;
+				}
+				// the body of an error response is read to classify the error and must remain readable by the error handler
+				ClientHttpResponse bufferedResponse = new ErrorBufferingClientHttpRequestFactory.BufferedClientHttpResponse(response);
+				circuit.record(permittedIn, isFailure(bufferedResponse), durationNanos);
+				return bufferedResponse;
+			} catch (IOException e) {
+				completed = true;
+				circuit.record(permittedIn, true, System.nanoTime() - start);
+				throw e;
+			} finally {
+				if (!completed) {
+					// rejected by another interceptor before reaching Facebook; says nothing about the endpoint
+					circuit.release(permittedIn);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Tracks the outcome of the most recent requests to a circuit in a ring buffer.
+	 */
+	private class Circuit {
+
+		private final boolean[] failures = new boolean[windowSize];
+
+		private final boolean[] slowCalls = new boolean[windowSize];
+
+		private int next;
+
+		private int recorded;
+
+		private int failureCount;
+
+		private int slowCallCount;
+
+		private State state = State.CLOSED;
+
+		private long openedAt;
+
+		public synchronized State getState() {
+			return state;
+		}
+
+		/**
+		 * @return the state that the request is permitted in (CLOSED, or HALF_OPEN for the trial request), or null if it is rejected.
+		 */
+		public synchronized State tryAcquire() {
+			if (state == State.CLOSED) {
+				return State.CLOSED;
+			}
+			if (state == State.OPEN && System.nanoTime() - openedAt >= openDuration.toNanos()) {
+				state = State.HALF_OPEN;
+				return State.HALF_OPEN;
+			}
+			return null;
+		}
+
+		public synchronized void release(State permittedIn) {
+			if (permittedIn == State.HALF_OPEN && state == State.HALF_OPEN) {
+				state = State.OPEN;
+				openedAt = System.nanoTime() - openDuration.toNanos();
+			}
+		}
+
+		public synchronized void record(State permittedIn, boolean failure, long durationNanos) {
+			boolean slowCall = durationNanos > slowCallDuration.toNanos();
+			if (state != permittedIn) {
+				// made before the circuit opened; the circuit's state has already been decided
+				return;
+			}
+			if (state == State.HALF_OPEN) {
+				if (failure || slowCall) {
+					open();
+				} else {
+					close();
+				}
+				return;
+			}
+			if (recorded == failures.length) {
+				failureCount -= failures[next] ? 1 : 0;
+				slowCallCount -= slowCalls[next] ? 1 : 0;
+			} else {
+				recorded++;
+			}
+			failures[next] = failure;
+			slowCalls[next] = slowCall;
+			failureCount += failure ? 1 : 0;
+			slowCallCount += slowCall ? 1 : 0;
+			next = (next + 1) % failures.length;
+			if (recorded >= minimumRequests
+					&& (failureCount * 100 >= failureRateThreshold * recorded || slowCallCount * 100 >= slowCallRateThreshold * recorded)) {
+				open();
+			}
+		}
+
+		private void open() {
+			state = State.OPEN;
+			openedAt = System.nanoTime();
+		}
+
+		private void close() {
+			state = State.CLOSED;
+			next = 0;
+			recorded = 0;
+			failureCount = 0;
+			slowCallCount = 0;
+		}
+
+	}
+
+}
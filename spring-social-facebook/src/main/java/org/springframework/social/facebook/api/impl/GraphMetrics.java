@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.social.facebook.api.FacebookError;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResponseExtractor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records Micrometer metrics for the Graph API requests made by FacebookTemplates.
+ * <ul>
+ * <li><code>facebook.graph.requests</code> times each request, from sending it until its response has been read and closed,
+ * tagged with the <code>operation</code> (fetchObject, fetchConnections, fetchImage, publish, delete, or batch), the
+ * <code>connection</code> (e.g., "feed"; "none" for objects), the HTTP <code>status</code>, the Facebook <code>error.code</code>
+ * and <code>error.subcode</code> of error responses, and the <code>exception</code> that failed the request, if any.</li>
+ * <li><code>facebook.graph.response.size</code> records the number of bytes read from each response body, tagged with the
+ * <code>operation</code> and <code>connection</code>.</li>
+ * <li><code>facebook.graph.binding</code> times binding the responses of <code>fetchObject()</code> and <code>fetchConnections()</code>
+ * to Java objects, tagged with the <code>operation</code> and the Java <code>type</code> bound to. Since responses are streamed,
+ * this includes the time spent reading the body.</li>
+ * </ul>
+ * A single GraphMetrics may be shared by any number of FacebookTemplates (e.g., through {@link FacebookTemplateFactory#setMetrics(GraphMetrics)}).
+ */
+public class GraphMetrics {
+
+	private static final String NONE = "none";
+
+	private final FacebookErrorHandler errorHandler = new FacebookErrorHandler();
+
+	private final MeterRegistry registry;
+
+	/**
+	 * Create a new instance of GraphMetrics.
+	 * @param registry the registry to record metrics in.
+	 */
+	public GraphMetrics(MeterRegistry registry) {
+		Assert.notNull(registry, "MeterRegistry must not be null");
+		this.registry = registry;
+	}
+
+	/**
+	 * Creates an interceptor that records the metrics of each request.
+	 * The interceptor should be applied before the rate limiting and circuit breaking interceptors, so that it also sees the requests they reject.
+	 */
+	ClientHttpRequestInterceptor interceptor() {
+		return new MeteringInterceptor();
+	}
+
+	/**
+	 * Decorates a response extractor to time binding responses to the given type.
+	 */
+	<T> ResponseExtractor<T> timeBinding(ResponseExtractor<T> extractor, String operation, Class<?> type) {
+		Timer timer = Timer.builder("facebook.graph.binding")
+				.description("Time taken to bind Graph API responses to Java objects")
+				.tags("operation", operation, "type", type.getSimpleName())
+				.register(registry);
+		return response -> {
+			long start = System.nanoTime();
+			try {
+				return extractor.extractData(response);
+			} finally {
+				timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		};
+	}
+
+	// private helpers
+
+	private void recordRequest(Tags tags, String status, FacebookError error, Throwable exception, long durationNanos) {
+		Timer.builder("facebook.graph.requests")
+				.description("Graph API requests")
+				.tags(tags)
+				.tags("status", status,
+						"error.code", error != null && error.getCode() != null ? error.getCode().toString() : NONE,
+						"error.subcode", error != null && error.getSubcode() != null ? error.getSubcode().toString() : NONE,
+						"exception", exception != null ? exception.getClass().getSimpleName() : NONE)
+				.register(registry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private void recordResponseSize(Tags tags, long bytes) {
+		DistributionSummary.builder("facebook.graph.response.size")
+				.description("Size of Graph API response bodies")
+				.baseUnit("bytes")
+				.tags(tags)
+				.register(registry)
+				.record(bytes);
+	}
+
+	private static String operation(HttpRequest request, byte[] body, String family) {
+		if (GraphRequests.isDeletion(request, body)) {
+			return "delete";
+		} else if (request.getMethod() == HttpMethod.POST) {
+			return family.isEmpty() ? "batch" : "publish";
+		} else if ("picture".equals(family)) {
+			return "fetchImage";
+		} else if (family.isEmpty() || "object".equals(family)) {
+			return "fetchObject";
+		}
+		return "fetchConnections";
+	}
+
+	private class MeteringInterceptor implements ClientHttpRequestInterceptor {
+
+		public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+			String family = GraphRequests.endpointFamily(request.getURI());
+			String connection = family.isEmpty() || "object".equals(family) ? NONE : family;
+			Tags tags = Tags.of("operation", operation(request, body, family), "connection", connection);
+			long start = System.nanoTime();
+			ClientHttpResponse response;
+			try {
+				response = execution.execute(request, body);
+			} catch (IOException | RuntimeException e) {
+				recordRequest(tags, NONE, null, e, System.nanoTime() - start);
+				throw e;
+			}
+			int statusCode = response.getRawStatusCode();
+			FacebookError error = null;
+			if (statusCode >= 400) {
+				// the body of an error response is read for its error code and must remain readable by the error handler
+				response = new ErrorBufferingClientHttpRequestFactory.BufferedClientHttpResponse(response);
+				error = errorHandler.extractError(StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+			}
+			return new MeteredClientHttpResponse(response, tags, String.valueOf(statusCode), error, start);
+		}
+
+	}
+
+	/**
+	 * Counts the bytes read from a response body, recording the request's metrics once the response is closed.
+	 */
+	private class MeteredClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private final Tags tags;
+
+		private final String status;
+
+		private final FacebookError error;
+
+		private final long start;
+
+		private final LongAdder bytesRead = new LongAdder();
+
+		private boolean closed;
+
+		public MeteredClientHttpResponse(ClientHttpResponse response, Tags tags, String status, FacebookError error, long start) {
+			this.response = response;
+			this.tags = tags;
+			this.status = status;
+			this.error = error;
+			this.start = start;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		public InputStream getBody() throws IOException {
+			return new FilterInputStream(response.getBody()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b != -1) {
+						bytesRead.increment();
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int count = super.read(b, off, len);
+					if (count > 0) {
+						bytesRead.add(count);
+					}
+					return count;
+				}
+			};
+		}
+
+		public void close() {
+			response.close();
+			if (!closed) {
+				closed = true;
+				recordRequest(tags, status, error, null, System.nanoTime() - start);
+				recordResponseSize(tags, bytesRead.sum());
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Paces requests to the Graph API according to the rate limit utilization that Facebook reports in the
+ * <code>X-App-Usage</code>, <code>X-Page-Usage</code>, and <code>X-Business-Use-Case-Usage</code> response headers.
+ * <p>
+ * The utilization of the application (from <code>X-App-Usage</code>), of each page (from <code>X-Page-Usage</code>, by the ID of the
+ * page that the request was made to), and of each business use case (from <code>X-Business-Use-Case-Usage</code>, by the business
+ * object ID and use case type reported in the header) is remembered as the highest percentage reported for call count, CPU time,
+ * or total time. The utilization of a page or business applies only to requests made to that page or business object, while the
+ * application's applies to all requests. Requests are sent without delay while the utilization that applies to them is below the throttle threshold,
+ * delayed increasingly as it approaches 100%, and rejected with a {@link RateLimitExceededException} without being sent once
+ * it reaches 100% or while Facebook reports that access has been throttled. Rejecting requests locally keeps them from
+ * extending the time that Facebook throttles the application for.
+ * </p>
+ * <p>
+ * Reported utilization is forgotten after a while (or once the throttling reported by Facebook has ended),
+ * so that a request is eventually sent to learn the current utilization.
+ * Since Facebook reports the utilization of an application as a whole, a single GraphRateLimiter should be shared by all
+ * FacebookTemplates for an application (e.g., through {@link FacebookTemplateFactory#setRateLimiter(GraphRateLimiter)}).
+ * </p>
+ */
+public class GraphRateLimiter {
+
+	static final String APP_USAGE_HEADER = "X-App-Usage";
+
+	static final String PAGE_USAGE_HEADER = "X-Page-Usage";
+
+	static final String BUSINESS_USE_CASE_USAGE_HEADER = "X-Business-Use-Case-Usage";
+
+	private static final String FACEBOOK_PROVIDER_ID = "facebook";
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private static final Pattern API_VERSION = Pattern.compile("v\\d+\\.\\d+");
+
+	private final LinkedHashMap<String, Usage> pageUsage;
+
+	// business object ID -> use case type -> usage
+	private final LinkedHashMap<String, Map<String, Usage>> businessUseCaseUsage;
+
+	private volatile Usage appUsage;
+
+	private int throttleThreshold = 75;
+
+	private Duration maximumDelay = Duration.ofSeconds(5);
+
+	private Duration usageTimeToLive = Duration.ofMinutes(1);
+
+	/**
+	 * Create a new instance of GraphRateLimiter that remembers the utilization of up to 10000 pages and 10000 businesses.
+	 */
+	public GraphRateLimiter() {
+		this(10000);
+	}
+
+	/**
+	 * Create a new instance of GraphRateLimiter.
+	 * @param maximumObjects the maximum number of pages, and of businesses, to remember the utilization of,
+	 * forgetting the least recently used one when full.
+	 */
+	public GraphRateLimiter(final int maximumObjects) {
+		Assert.isTrue(maximumObjects > 0, "Maximum number of objects must be greater than 0");
+		this.pageUsage = new LinkedHashMap<String, Usage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Usage> eldest) {
+				return size() > maximumObjects;
+			}
+		};
+		this.businessUseCaseUsage = new LinkedHashMap<String, Map<String, Usage>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Map<String, Usage>> eldest) {
+				return size() > maximumObjects;
+			}
+		};
+	}
+
+	/**
+	 * Set the utilization, as a percentage, above which requests are delayed.
+	 * @param throttleThreshold the throttle threshold. Default is 75.
+	 */
+	public void setThrottleThreshold(int throttleThreshold) {
+		Assert.isTrue(throttleThreshold >= 0 && throttleThreshold < 100, "Throttle threshold must be between 0 and 99");
+		this.throttleThreshold = throttleThreshold;
+	}
+
+	/**
+	 * Set the delay given to requests as utilization approaches 100%.
+	 * Requests are delayed in proportion to how far the utilization is between the throttle threshold and 100%.
+	 * @param maximumDelay the maximum delay. Default is 5 seconds.
+	 */
+	public void setMaximumDelay(Duration maximumDelay) {
+		Assert.notNull(maximumDelay, "Maximum delay must not be null");
+		this.maximumDelay = maximumDelay;
+	}
+
+	/**
+	 * Set how long reported utilization is remembered for if no newer utilization is reported.
+	 * @param usageTimeToLive how long to remember reported utilization. Default is 1 minute.
+	 */
+	public void setUsageTimeToLive(Duration usageTimeToLive) {
+		Assert.notNull(usageTimeToLive, "Usage time-to-live must not be null");
+		this.usageTimeToLive = usageTimeToLive;
+	}
+
+	/**
+	 * @return the application's utilization of its rate limit as last reported by Facebook, as a percentage,
+	 * or 0 if none has been reported recently.
+	 */
+	public int getUtilization() {
+		return percent(appUsage, System.nanoTime());
+	}
+
+	/**
+	 * @param objectId the ID of a page or business object (e.g., an ad account)
+	 * @return the page's or business object's utilization of its rate limits (the highest of all its business use cases)
+	 * as last reported by Facebook, as a percentage, or 0 if none has been reported recently.
+	 */
+	public int getUtilization(String objectId) {
+		long now = System.nanoTime();
+		return percent(getObjectUsage(objectId, now), now);
+	}
+
+	/**
+	 * Creates an interceptor that paces the requests made with the given access token and records the utilization reported
+	 * in their responses.
+	 */
+	ClientHttpRequestInterceptor interceptor(String accessToken) {
+		return new RateLimitingInterceptor(accessToken != null ? accessToken : "");
+	}
+
+	/**
+	 * Determines the page or business object that a request is made to: the first segment of its path after the API version.
+	 * Requests made to <code>me</code> are taken to be made to the access token's own node.
+	 * @return the ID of the object, or null for requests made to the root of the Graph API (e.g., batch requests).
+	 */
+	static String target(URI uri, String accessToken) {
+		String path = uri.getRawPath();
+		if (path == null) {
+			return null;
+		}
+		int start = path.startsWith("/") ? 1 : 0;
+		int end = path.indexOf('/', start);
+		if (end > start && API_VERSION.matcher(path).region(start, end).matches()) {
+			start = end + 1;
+			end = path.indexOf('/', start);
+		}
+		String target = path.substring(start, end >= 0 ? end : path.length());
+		if (target.isEmpty()) {
+			return null;
+		}
+		if ("me".equals(target)) {
+			return accessToken;
+		}
+		// ad accounts are addressed as act_<id> but reported by their ID alone
+		return target.startsWith("act_") ? target.substring(4) : target;
+	}
+
+	void acquire(String target) throws IOException {
+		long now = System.nanoTime();
+		Usage app = fresh(appUsage, now);
+		Usage object = getObjectUsage(target, now);
+		if (isThrottled(app, now) || isThrottled(object, now)) {
+			throw new RateLimitExceededException(FACEBOOK_PROVIDER_ID);
+		}
+		int percent = Math.max(app != null ? app.percent : 0, object != null ? object.percent : 0);
+		if (percent > throttleThreshold) {
+			long delay = maximumDelay.toNanos() * (percent - throttleThreshold) / (100 - throttleThreshold);
+			try {
+				TimeUnit.NANOSECONDS.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while pacing request to Facebook");
+			}
+		}
+	}
+
+	void record(String target, HttpHeaders headers) {
+		long now = System.nanoTime();
+		Usage app = parseUsage(headers.getFirst(APP_USAGE_HEADER), now);
+		if (app != null) {
+			appUsage = app;
+		}
+		Usage page = parseUsage(headers.getFirst(PAGE_USAGE_HEADER), now);
+		if (page != null && target != null) {
+			synchronized (pageUsage) {
+				pageUsage.put(target, page);
+			}
+		}
+		recordBusinessUseCaseUsage(headers.getFirst(BUSINESS_USE_CASE_USAGE_HEADER), now);
+	}
+
+	// private helpers
+
+	/**
+	 * @return the fresh usage of the page or business object with the given ID, the highest of its page usage and the usage of each of its business use cases.
+	 */
+	private Usage getObjectUsage(String objectId, long now) {
+		if (objectId == null) {
+			return null;
+		}
+		Usage usage;
+		synchronized (pageUsage) {
+			usage = fresh(pageUsage.get(objectId), now);
+		}
+		synchronized (businessUseCaseUsage) {
+			Map<String, Usage> useCases = businessUseCaseUsage.get(objectId);
+			if (useCases != null) {
+				for (Usage useCase : useCases.values()) {
+					usage = max(usage, fresh(useCase, now));
+				}
+			}
+		}
+		return usage;
+	}
+
+	/**
+	 * @return the given usage, unless it was reported too long ago to be relevant and doesn't throttle access anymore.
+	 */
+	private Usage fresh(Usage usage, long now) {
+		if (usage == null) {
+			return null;
+		}
+		return now - usage.reportedAt < usageTimeToLive.toNanos() || usage.throttledUntil - now > 0 ? usage : null;
+	}
+
+	private int percent(Usage usage, long now) {
+		Usage freshUsage = fresh(usage, now);
+		return freshUsage != null ? freshUsage.percent : 0;
+	}
+
+	private boolean isThrottled(Usage usage, long now) {
+		return usage != null && (usage.percent >= 100 || usage.throttledUntil - now > 0);
+	}
+
+	private Usage max(Usage usage, Usage other) {
+		if (usage == null || other == null) {
+			return usage != null ? usage : other;
+		}
+		return new Usage(Math.max(usage.percent, other.percent), usage.reportedAt, Math.max(usage.throttledUntil, other.throttledUntil));
+	}
+
+	/**
+	 * Parses the <code>X-App-Usage</code> and <code>X-Page-Usage</code> headers, e.g. <code>{"call_count":28,"total_time":25,"total_cputime":25}</code>.
+	 */
+	private Usage parseUsage(String header, long now) {
+		if (header == null) {
+			return null;
+		}
+		try (JsonParser parser = JSON_FACTORY.createParser(header)) {
+			return parser.nextToken() == JsonToken.START_OBJECT ? readUsage(parser, now) : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Parses and records the <code>X-Business-Use-Case-Usage</code> header, which reports the usage of each business use case by business object ID, e.g.
+	 * <code>{"112233":[{"type":"pages","call_count":96,"total_cputime":14,"total_time":20,"estimated_time_to_regain_access":0}]}</code>.
+	 */
+	private void recordBusinessUseCaseUsage(String header, long now) {
+		if (header == null) {
+			return;
+		}
+		try (JsonParser parser = JSON_FACTORY.createParser(header)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String objectId = parser.getCurrentName();
+				if (parser.nextToken() != JsonToken.START_ARRAY) {
+					parser.skipChildren();
+					continue;
+				}
+				Map<String, Usage> useCases = new LinkedHashMap<String, Usage>();
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+						Map<String, String> fields = new LinkedHashMap<String, String>(2);
+						Usage usage = readUsage(parser, now, fields);
+						String type = fields.getOrDefault("type", "");
+						useCases.put(type, max(useCases.get(type), usage));
+					} else {
+						parser.skipChildren();
+					}
+				}
+				synchronized (businessUseCaseUsage) {
+					Map<String, Usage> recorded = businessUseCaseUsage.get(objectId);
+					if (recorded == null) {
+						businessUseCaseUsage.put(objectId, useCases);
+					} else {
+						recorded.putAll(useCases);
+					}
+				}
+			}
+		} catch (IOException e) {
+			// a malformed header is ignored, keeping whatever was recorded before the malformed part
+		}
+	}
+
+	private Usage readUsage(JsonParser parser, long now) throws IOException {
+		return readUsage(parser, now, null);
+	}
+
+	/**
+	 * Reads a usage object, also putting its string fields (e.g., a business use case's <code>type</code>) into the given map if not null.
+	 */
+	private Usage readUsage(JsonParser parser, long now, Map<String, String> strings) throws IOException {
+		int percent = 0;
+		long throttledUntil = now;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.VALUE_STRING && strings != null) {
+				strings.put(fieldName, parser.getText());
+			} else if (!token.isNumeric()) {
+				parser.skipChildren();
+			} else if ("call_count".equals(fieldName) || "total_time".equals(fieldName) || "total_cputime".equals(fieldName)) {
+				percent = Math.max(percent, parser.getIntValue());
+			} else if ("estimated_time_to_regain_access".equals(fieldName)) {
+				throttledUntil = now + TimeUnit.MINUTES.toNanos(parser.getIntValue());
+			}
+		}
+		return new Usage(percent, now, throttledUntil);
+	}
+
+	private class RateLimitingInterceptor implements ClientHttpRequestInterceptor {
+
+		private final String accessToken;
+
+		public RateLimitingInterceptor(String accessToken) {
+			this.accessToken = accessToken;
+		}
+
+		public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+			String target = target(request.getURI(), accessToken);
+			acquire(target);
+			ClientHttpResponse response = execution.execute(request, body);
+			record(target, response.getHeaders());
+			return response;
+		}
+
+	}
+
+	private static class Usage {
+
+		private final int percent;
+
+		private final long reportedAt;
+
+		private final long throttledUntil;
+
+		public Usage(int percent, long reportedAt, long throttledUntil) {
+			this.percent = percent;
+			this.reportedAt = reportedAt;
+			this.throttledUntil = throttledUntil;
+		}
+
+	}
+
+}
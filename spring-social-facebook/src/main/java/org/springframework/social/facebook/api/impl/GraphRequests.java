@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.util.StringUtils;
+
+/**
+ * Helpers for classifying Graph API requests by what they do, shared by the interceptors that FacebookTemplate may apply.
+ */
+final class GraphRequests {
+
+	private static final Pattern VERSION_SEGMENT = Pattern.compile("v\\d+(\\.\\d+)?");
+
+	private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+	private static final byte[] DELETE_PARAMETER = "method=delete".getBytes(StandardCharsets.US_ASCII);
+
+	private GraphRequests() {
+	}
+
+	/**
+	 * Determines the endpoint family of a request from its path, ignoring any API version in the path:
+	 * the connection for connection requests (e.g., "feed"), "search" for searches, "object" for object requests,
+	 * or an empty string for requests to the root of the Graph API (such as multi-ID and batch requests).
+	 */
+	static String endpointFamily(URI uri) {
+		List<String> segments = new ArrayList<String>();
+		for (String segment : StringUtils.tokenizeToStringArray(uri.getPath(), "/")) {
+			if (segments.isEmpty() && VERSION_SEGMENT.matcher(segment).matches()) {
+				continue;
+			}
+			segments.add(segment);
+		}
+		if (segments.isEmpty()) {
+			return "";
+		} else if ("search".equals(segments.get(0))) {
+			return "search";
+		} else if (segments.size() == 1) {
+			return "object";
+		}
+		return segments.get(1);
+	}
+
+	/**
+	 * Determines whether a request deletes something: a DELETE request or a form-encoded <code>method=delete</code> POST request
+	 * as made by {@link FacebookTemplate#delete(String)}.
+	 * The body is scanned in place, and only for form-encoded requests, so that uploads aren't scanned at all.
+	 */
+	static boolean isDeletion(HttpRequest request, byte[] body) {
+		HttpMethod method = request.getMethod();
+		if (method == HttpMethod.DELETE) {
+			return true;
+		}
+		if (method != HttpMethod.POST || body.length < DELETE_PARAMETER.length) {
+			return false;
+		}
+		String contentType = request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+		if (contentType == null || !contentType.regionMatches(true, 0, FORM_CONTENT_TYPE, 0, FORM_CONTENT_TYPE.length())) {
+			return false;
+		}
+		int start = 0;
+		while (start < body.length) {
+			int end = start;
+			while (end < body.length && body[end] != '&') {
+				end++;
+			}
+			if (end - start == DELETE_PARAMETER.length && regionEquals(body, start, DELETE_PARAMETER)) {
+				return true;
+			}
+			start = end + 1;
+		}
+		return false;
+	}
+
+	private static boolean regionEquals(byte[] bytes, int offset, byte[] other) {
+		for (int i = 0; i < other.length; i++) {
+			if (bytes[offset + i] != other[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import static org.springframework.social.facebook.api.FacebookErrors.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.ServerException;
+import org.springframework.social.facebook.api.FacebookError;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Retries idempotent Graph API requests that fail transiently: requests that Facebook answers with a
+ * service error (code 2, mapped to {@link ServerException}) or an application-level throttling error (code 4),
+ * requests answered with a 5xx status, and requests that fail with an I/O error.
+ * Only GET requests and deletions (DELETE requests and the <code>method=delete</code> POST requests made by
+ * {@link FacebookTemplate#delete(String)}) are retried.
+ * <p>
+ * Retries are delayed by an exponential backoff with full jitter, so that clients that failed at the same moment
+ * don't retry at the same moment. Every attempt, including each retry, is paced by the rate limiter and counted by the
+ * circuit breaker of the template making it, so a retry is not made while Facebook reports access to be throttled or while
+ * the endpoint's circuit is open.
+ * To keep retries from multiplying the load on Facebook during an outage, retries draw on a budget that is shared by
+ * all requests made through the policy: every failure takes a token from the budget and every success returns a fraction
+ * of a token, and retries are only made while the budget is more than half full.
+ * </p>
+ * <p>
+ * A single GraphRetryPolicy may be shared by any number of FacebookTemplates (e.g., through
+ * {@link FacebookTemplateFactory#setRetryPolicy(GraphRetryPolicy)}), in which case they share its budget.
+ * </p>
+ */
+public class GraphRetryPolicy {
+
+	private final FacebookErrorHandler errorHandler = new FacebookErrorHandler();
+
+	private int maxAttempts = 3;
+
+	private Duration initialBackoff = Duration.ofMillis(200);
+
+	private Duration maximumBackoff = Duration.ofSeconds(5);
+
+	private double backoffMultiplier = 2;
+
+	private final Object budgetMonitor = new Object();
+
+	private double maximumRetryTokens = 10;
+
+	private double retryTokenRatio = 0.1;
+
+	private double retryTokens = maximumRetryTokens;
+
+	/**
+	 * Set the maximum number of attempts made for a request, including the first.
+	 * @param maxAttempts the maximum number of attempts. Default is 3.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		Assert.isTrue(maxAttempts > 0, "Maximum number of attempts must be greater than 0");
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Set the backoff before retrying a request.
+	 * The backoff grows by the multiplier with each retry, up to the maximum backoff, and the actual delay is chosen at random
+	 * between zero and the backoff.
+	 * @param initialBackoff the backoff before the first retry. Default is 200 milliseconds.
+	 * @param multiplier the factor the backoff grows by with each retry. Default is 2.
+	 * @param maximumBackoff the maximum backoff. Default is 5 seconds.
+	 */
+	public void setBackoff(Duration initialBackoff, double multiplier, Duration maximumBackoff) {
+		Assert.notNull(initialBackoff, "Initial backoff must not be null");
+		Assert.isTrue(multiplier >= 1, "Backoff multiplier must be at least 1");
+		Assert.notNull(maximumBackoff, "Maximum backoff must not be null");
+		this.initialBackoff = initialBackoff;
+		this.backoffMultiplier = multiplier;
+		this.maximumBackoff = maximumBackoff;
+	}
+
+	/**
+	 * Set the retry budget.
+	 * The budget starts full; each failure takes a token and each success returns the given fraction of a token.
+	 * Retries are only made while more than half of the tokens remain, so with the defaults, retries stop once failures
+	 * outnumber one in ten requests.
+	 * @param maximumTokens the size of the budget. Default is 10.
+	 * @param tokenRatio the fraction of a token returned by each success. Default is 0.1.
+	 */
+	public void setRetryBudget(double maximumTokens, double tokenRatio) {
+		Assert.isTrue(maximumTokens > 0, "Maximum number of tokens must be greater than 0");
+		Assert.isTrue(tokenRatio >= 0, "Token ratio must not be negative");
+		synchronized (budgetMonitor) {
+			this.maximumRetryTokens = maximumTokens;
+			this.retryTokenRatio = tokenRatio;
+			this.retryTokens = maximumTokens;
+		}
+	}
+
+	/**
+	 * Creates an interceptor that retries requests according to this policy, making each attempt through the given interceptors
+	 * (e.g., those of a rate limiter and a circuit breaker) so that retries are paced, rejected, and counted like first attempts.
+	 * The interceptor must be the last one applied to a request, since it retries a request by executing the rest of the chain again.
+	 * @param attemptInterceptors the interceptors to apply to every attempt, in order.
+	 */
+	ClientHttpRequestInterceptor interceptor(List<ClientHttpRequestInterceptor> attemptInterceptors) {
+		return new RetryingInterceptor(new ArrayList<ClientHttpRequestInterceptor>(attemptInterceptors));
+	}
+
+	// private helpers
+
+	private boolean isIdempotent(HttpRequest request, byte[] body) {
+		return request.getMethod() == HttpMethod.GET || GraphRequests.isDeletion(request, body);
+	}
+
+	/**
+	 * Determines whether a failed response is worth retrying, classifying Facebook errors as {@link FacebookErrorHandler} does.
+	 */
+	private boolean isRetryable(ClientHttpResponse response) throws IOException {
+		int statusCode = response.getRawStatusCode();
+		FacebookError error = errorHandler.extractError(StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+		if (error != null && error.getCode() != null) {
+			try {
+				errorHandler.handleFacebookError(resolveStatus(statusCode), error);
+			} catch (ServerException e) {
+				return true;
+			} catch (RateLimitExceededException e) {
+				return error.getCode() == TOO_MANY_CALLS;
+			} catch (RuntimeException e) {
+				return false;
+			}
+		}
+		return statusCode >= 500;
+	}
+
+	private boolean acquireRetry() {
+		synchronized (budgetMonitor) {
+			retryTokens = Math.max(0, retryTokens - 1);
+			return retryTokens > maximumRetryTokens / 2;
+		}
+	}
+
+	private void recordSuccess() {
+		synchronized (budgetMonitor) {
+			retryTokens = Math.min(maximumRetryTokens, retryTokens + retryTokenRatio);
+		}
+	}
+
+	private void backoff(int retry) throws InterruptedIOException {
+		double backoff = Math.min(maximumBackoff.toNanos(), initialBackoff.toNanos() * Math.pow(backoffMultiplier, retry - 1));
+		try {
+			TimeUnit.NANOSECONDS.sleep((long) (backoff * ThreadLocalRandom.current().nextDouble()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry request to Facebook");
+		}
+	}
+
+	static HttpStatus resolveStatus(int statusCode) {
+		try {
+			return HttpStatus.valueOf(statusCode);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private class RetryingInterceptor implements ClientHttpRequestInterceptor {
+
+		private final List<ClientHttpRequestInterceptor> attemptInterceptors;
+
+		public RetryingInterceptor(List<ClientHttpRequestInterceptor> attemptInterceptors) {
+			this.attemptInterceptors = attemptInterceptors;
+		}
+
+		public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+			if (!isIdempotent(request, body)) {
+				return new AttemptExecution(attemptInterceptors.iterator(), execution).execute(request, body);
+			}
+			for (int attempt = 1; ; attempt++) {
+				boolean lastAttempt = attempt >= maxAttempts;
+				ClientHttpResponse response;
+				try {
+					response = new AttemptExecution(attemptInterceptors.iterator(), execution).execute(request, body);
+				} catch (IOException e) {
+					if (!acquireRetry() || lastAttempt) {
+						throw e;
+					}
+					backoff(attempt);
+					continue;
+				}
+				if (response.getRawStatusCode() < 400) {
+					recordSuccess();
+					return response;
+				}
+				// the body of an error response is read to classify the error and must remain readable by the error handler
+				ClientHttpResponse bufferedResponse = new ErrorBufferingClientHttpRequestFactory.BufferedClientHttpResponse(response);
+				if (!isRetryable(bufferedResponse) || !acquireRetry() || lastAttempt) {
+					return bufferedResponse;
+				}
+				bufferedResponse.close();
+				backoff(attempt);
+			}
+		}
+
+	}
+
+	/**
+	 * Executes a single attempt of a request through the attempt interceptors and then the rest of the template's chain.
+	 * Since the retrying interceptor is last in the chain, executing the rest of the chain again sends the request again.
+	 */
+	private static class AttemptExecution implements ClientHttpRequestExecution {
+
+		private final Iterator<ClientHttpRequestInterceptor> interceptors;
+
+		private final ClientHttpRequestExecution execution;
+
+		public AttemptExecution(Iterator<ClientHttpRequestInterceptor> interceptors, ClientHttpRequestExecution execution) {
+			this.interceptors = interceptors;
+			this.execution = execution;
+		}
+
+		public ClientHttpResponse execute(HttpRequest request, byte[] body) throws IOException {
+			return interceptors.hasNext() ? interceptors.next().intercept(request, body, this) : execution.execute(request, body);
+		}
+
+	}
+
+}
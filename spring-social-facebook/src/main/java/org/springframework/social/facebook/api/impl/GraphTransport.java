@@ -0,0 +1,262 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Configures the HTTP transport used to talk to the Graph API.
+ * <p>
+ * When Apache HttpComponents HttpClient is on the classpath, {@link #createRequestFactory()} creates a request factory backed by
+ * a pool of persistent connections with the configured total and per-host limits, so that connections (and their TLS sessions)
+ * are reused across requests. Otherwise, it creates a request factory backed by <code>HttpURLConnection</code>, which reuses
+ * connections through the JDK's own keep-alive cache (see the <code>http.maxConnections</code> system property), and only the
+ * timeouts apply.
+ * Either way, redirects aren't followed by the transport: {@link FacebookTemplate} follows the redirects of image requests
+ * (such as those returned for profile pictures) itself, so that the access token isn't passed on to the CDN the images are served from.
+ * </p>
+ * <p>
+ * Pooled connections also report how long it takes to acquire and open connections, and to perform TLS handshakes,
+ * to a {@link org.springframework.social.facebook.api.GraphRequestObserver} set on the FacebookTemplate making the request.
+ * </p>
+ * <p>
+ * The request factory is meant to be created once and shared, for example by passing it to
+ * {@link FacebookTemplateFactory#FacebookTemplateFactory(String, String, String, ClientHttpRequestFactory)} or to
+ * {@link org.springframework.social.facebook.connect.FacebookServiceProvider#FacebookServiceProvider(String, String, String, ClientHttpRequestFactory)}.
+ * A pooled request factory holds on to its connections until it is destroyed with <code>destroy()</code>, which Spring does
+ * automatically for request factories declared as beans.
+ * </p>
+ */
+public class GraphTransport {
+
+	private static final boolean HTTP_COMPONENTS_PRESENT = ClassUtils.isPresent("org.apache.http.impl.client.HttpClients", GraphTransport.class.getClassLoader());
+
+	private int maxConnections = 200;
+
+	private int maxConnectionsPerHost = 50;
+
+	private Duration connectTimeout = Duration.ofSeconds(5);
+
+	private Duration readTimeout = Duration.ofSeconds(30);
+
+	private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+
+	private Duration keepAlive = Duration.ofSeconds(60);
+
+	/**
+	 * Set the limits on the number of pooled connections.
+	 * Graph API requests all go to a handful of hosts, so the per-host limit is usually the one that matters.
+	 * @param maxConnections the maximum number of connections in total. Default is 200.
+	 * @param maxConnectionsPerHost the maximum number of connections to a single host. Default is 50.
+	 */
+	public void setMaxConnections(int maxConnections, int maxConnectionsPerHost) {
+		Assert.isTrue(maxConnections > 0, "Maximum number of connections must be greater than 0");
+		Assert.isTrue(maxConnectionsPerHost > 0, "Maximum number of connections per host must be greater than 0");
+		this.maxConnections = maxConnections;
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	/**
+	 * @param connectTimeout how long to wait for a connection to be established. Default is 5 seconds.
+	 */
+	public void setConnectTimeout(Duration connectTimeout) {
+		Assert.notNull(connectTimeout, "Connect timeout must not be null");
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * @param readTimeout how long to wait for data once connected. Default is 30 seconds.
+	 */
+	public void setReadTimeout(Duration readTimeout) {
+		Assert.notNull(readTimeout, "Read timeout must not be null");
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * @param connectionRequestTimeout how long to wait for a connection from the pool when all connections are in use.
+	 * Default is 5 seconds. Only applies to pooled connections.
+	 */
+	public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+		Assert.notNull(connectionRequestTimeout, "Connection request timeout must not be null");
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	/**
+	 * @param keepAlive how long an idle connection is kept for reuse, unless Facebook asks for it to be closed sooner.
+	 * Default is 60 seconds. Only applies to pooled connections.
+	 */
+	public void setKeepAlive(Duration keepAlive) {
+		Assert.notNull(keepAlive, "Keep-alive must not be null");
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Creates a request factory configured by this transport.
+	 * @return a pooled request factory if Apache HttpComponents HttpClient is on the classpath; otherwise, a request factory
+	 * backed by <code>HttpURLConnection</code>.
+	 */
+	public ClientHttpRequestFactory createRequestFactory() {
+		if (HTTP_COMPONENTS_PRESENT) {
+			return HttpComponentsRequestFactoryCreator.createRequestFactory(this);
+		}
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory() {
+			@Override
+			protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+				super.prepareConnection(connection, httpMethod);
+				connection.setInstanceFollowRedirects(false);
+			}
+		};
+		requestFactory.setConnectTimeout(toMillis(connectTimeout));
+		requestFactory.setReadTimeout(toMillis(readTimeout));
+		return requestFactory;
+	}
+
+	private static int toMillis(Duration duration) {
+		return (int) Math.min(Integer.MAX_VALUE, duration.toMillis());
+	}
+
+	/**
+	 * Keeps HttpClient types from being loaded unless HttpClient is on the classpath.
+	 */
+	private static class HttpComponentsRequestFactoryCreator {
+
+		public static ClientHttpRequestFactory createRequestFactory(GraphTransport transport) {
+			PoolingHttpClientConnectionManager connectionManager = new TimingConnectionManager();
+			connectionManager.setMaxTotal(transport.maxConnections);
+			connectionManager.setDefaultMaxPerRoute(transport.maxConnectionsPerHost);
+			final long keepAlive = transport.keepAlive.toMillis();
+			ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+				long requested = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+				return requested > 0 ? Math.min(requested, keepAlive) : keepAlive;
+			};
+			CloseableHttpClient httpClient = HttpClients.custom()
+					.useSystemProperties()
+					// FacebookTemplate decompresses responses itself, counting the bytes saved
+					.disableContentCompression()
+					// redirected requests would carry the Authorization header to whatever host they are redirected to
+					.disableRedirectHandling()
+					.setConnectionManager(connectionManager)
+					.setKeepAliveStrategy(keepAliveStrategy)
+					.evictExpiredConnections()
+					.evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+					.build();
+			HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+			requestFactory.setConnectTimeout(toMillis(transport.connectTimeout));
+			requestFactory.setReadTimeout(toMillis(transport.readTimeout));
+			requestFactory.setConnectionRequestTimeout(toMillis(transport.connectionRequestTimeout));
+			return requestFactory;
+		}
+
+	}
+
+	/**
+	 * Connection manager that records how long it takes to acquire and open connections, and to perform TLS handshakes,
+	 * in the {@link RequestTimings} of the request being observed on the current thread.
+	 * Sockets are configured from system properties, as HttpClient's own would be.
+	 */
+	private static class TimingConnectionManager extends PoolingHttpClientConnectionManager {
+
+		public TimingConnectionManager() {
+			super(RegistryBuilder.<ConnectionSocketFactory>create()
+					.register("http", PlainConnectionSocketFactory.getSocketFactory())
+					.register("https", new TimingSSLConnectionSocketFactory())
+					.build());
+		}
+
+		@Override
+		public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+			ConnectionRequest connectionRequest = super.requestConnection(route, state);
+			return new ConnectionRequest() {
+				public HttpClientConnection get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+					long start = System.nanoTime();
+					HttpClientConnection connection = connectionRequest.get(timeout, timeUnit);
+					RequestTimings timings = RequestTimings.current();
+					if (timings != null) {
+						timings.connectionAcquired(System.nanoTime() - start);
+					}
+					return connection;
+				}
+
+				public boolean cancel() {
+					return connectionRequest.cancel();
+				}
+			};
+		}
+
+		@Override
+		public void connect(HttpClientConnection connection, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+			long start = System.nanoTime();
+			super.connect(connection, route, connectTimeout, context);
+			RequestTimings timings = RequestTimings.current();
+			if (timings != null) {
+				timings.connected(System.nanoTime() - start);
+			}
+		}
+
+	}
+
+	private static class TimingSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+
+		public TimingSSLConnectionSocketFactory() {
+			super((javax.net.ssl.SSLSocketFactory) javax.net.ssl.SSLSocketFactory.getDefault(),
+					split(System.getProperty("https.protocols")), split(System.getProperty("https.cipherSuites")),
+					SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+		}
+
+		@Override
+		public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+			long start = System.nanoTime();
+			Socket layeredSocket = super.createLayeredSocket(socket, target, port, context);
+			RequestTimings timings = RequestTimings.current();
+			if (timings != null) {
+				timings.tlsHandshakeCompleted(System.nanoTime() - start);
+			}
+			return layeredSocket;
+		}
+
+		private static String[] split(String value) {
+			return StringUtils.hasText(value) ? StringUtils.tokenizeToStringArray(value, ",") : null;
+		}
+
+	}
+
+}
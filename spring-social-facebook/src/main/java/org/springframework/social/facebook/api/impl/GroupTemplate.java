@@ -15,6 +15,9 @@
  */
 package org.springframework.social.facebook.api.impl;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.social.facebook.api.User;
 import org.springframework.social.facebook.api.GraphApi;
 import org.springframework.social.facebook.api.Group;
@@ -37,6 +40,10 @@ class GroupTemplate implements GroupOperations {
 	public Group getGroup(String groupId) {
 		return graphApi.fetchObject(groupId, Group.class);
 	}
+
+	public Map<String, Group> getGroups(List<String> groupIds) {
+		return graphApi.fetchObjects(groupIds, Group.class);
+	}
 	
 	public byte[] getGroupImage(String groupId) {
 		return getGroupImage(groupId, ImageType.NORMAL);
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * {@link ClientHttpRequestFactory} decorator that asks for responses to be gzip-compressed and decompresses compressed
+ * responses as they are read, so that the message converters see the uncompressed body without it ever being held
+ * in memory as a whole.
+ * The compressed and uncompressed bytes read are counted in a {@link CompressionStatistics}.
+ */
+class GzipClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+	private static final String GZIP = "gzip";
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private final CompressionStatistics statistics;
+
+	public GzipClientHttpRequestFactory(ClientHttpRequestFactory requestFactory, CompressionStatistics statistics) {
+		this.requestFactory = requestFactory;
+		this.statistics = statistics;
+	}
+
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		ClientHttpRequest request = requestFactory.createRequest(uri, httpMethod);
+		if (!request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+			request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+		}
+		return new GzipClientHttpRequest(request);
+	}
+
+	private class GzipClientHttpRequest implements ClientHttpRequest {
+
+		private final ClientHttpRequest request;
+
+		public GzipClientHttpRequest(ClientHttpRequest request) {
+			this.request = request;
+		}
+
+		public HttpMethod getMethod() {
+			return request.getMethod();
+		}
+
+		public String getMethodValue() {
+			return request.getMethodValue();
+		}
+
+		public URI getURI() {
+			return request.getURI();
+		}
+
+		public HttpHeaders getHeaders() {
+			return request.getHeaders();
+		}
+
+		public OutputStream getBody() throws IOException {
+			return request.getBody();
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			ClientHttpResponse response = request.execute();
+			if (!GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+				return response;
+			}
+			statistics.recordResponse();
+			return new GzipClientHttpResponse(response);
+		}
+
+	}
+
+	private class GzipClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private final HttpHeaders headers;
+
+		private InputStream body;
+
+		public GzipClientHttpResponse(ClientHttpResponse response) {
+			this.response = response;
+			// the body is no longer encoded, and its length is no longer known
+			this.headers = new HttpHeaders();
+			this.headers.putAll(response.getHeaders());
+			this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+			this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				PushbackInputStream compressed = new PushbackInputStream(new CountingInputStream(response.getBody(), statistics::recordCompressedBytes));
+				int firstByte = compressed.read();
+				if (firstByte == -1) {
+					// e.g., 304 Not Modified, which carries the Content-Encoding of the representation but no body
+					body = StreamUtils.emptyInput();
+				} else {
+					compressed.unread(firstByte);
+					body = new CountingInputStream(new GZIPInputStream(compressed), statistics::recordUncompressedBytes);
+				}
+			}
+			return body;
+		}
+
+		public void close() {
+			response.close();
+		}
+
+	}
+
+	/**
+	 * Passes the number of bytes read through it to a counter.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		private final LongConsumer counter;
+
+		public CountingInputStream(InputStream in, LongConsumer counter) {
+			super(in);
+			this.counter = counter;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				counter.accept(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = super.read(b, off, len);
+			if (count > 0) {
+				counter.accept(count);
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			counter.accept(skipped);
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+	}
+
+}
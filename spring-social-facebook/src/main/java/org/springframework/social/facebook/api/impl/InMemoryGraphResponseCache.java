@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.social.facebook.api.GraphResponseCache;
+import org.springframework.util.Assert;
+
+/**
+ * {@link GraphResponseCache} that keeps up to a given number of responses in memory, evicting the least recently used
+ * response when full.
+ * Each response expires after a time-to-live that may be set per Java type (e.g., longer for {@link org.springframework.social.facebook.api.Page}s
+ * than for {@link org.springframework.social.facebook.api.Post}s); a time-to-live of zero disables caching for a type.
+ * <p>
+ * Applications that want a different eviction policy (such as W-TinyLFU) or a distributed cache can implement
+ * {@link GraphResponseCache} on top of their caching library of choice instead.
+ * </p>
+ */
+public class InMemoryGraphResponseCache implements GraphResponseCache {
+
+	private final Duration defaultTimeToLive;
+
+	private final Map<Class<?>, Duration> timesToLive = new ConcurrentHashMap<Class<?>, Duration>();
+
+	private final LinkedHashMap<Key, CachedResponse> responses;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder expirationCount = new LongAdder();
+
+	/**
+	 * Create a new instance of InMemoryGraphResponseCache.
+	 * @param maximumSize the maximum number of responses to keep.
+	 * @param defaultTimeToLive how long responses are kept for types that haven't been given a time-to-live of their own.
+	 */
+	public InMemoryGraphResponseCache(final int maximumSize, Duration defaultTimeToLive) {
+		Assert.isTrue(maximumSize > 0, "Maximum size must be greater than 0");
+		Assert.notNull(defaultTimeToLive, "Default time-to-live must not be null");
+		this.defaultTimeToLive = defaultTimeToLive;
+		this.responses = new LinkedHashMap<Key, CachedResponse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CachedResponse> eldest) {
+				if (size() > maximumSize) {
+					evictionCount.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Set how long responses of the given type are kept.
+	 * For connections, the time-to-live of the connection's entry type applies.
+	 * @param type the Java type that responses are bound to
+	 * @param timeToLive the time-to-live for responses of the given type; zero to not cache them at all.
+	 */
+	public void setTimeToLive(Class<?> type, Duration timeToLive) {
+		Assert.notNull(type, "Type must not be null");
+		Assert.notNull(timeToLive, "Time-to-live must not be null");
+		timesToLive.put(type, timeToLive);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(Key key, Supplier<T> loader) {
+		synchronized (responses) {
+			CachedResponse cached = responses.get(key);
+			if (cached != null) {
+				if (cached.expiresAt - System.nanoTime() > 0) {
+					hitCount.increment();
+					return (T) cached.value;
+				}
+				responses.remove(key);
+				expirationCount.increment();
+			}
+		}
+		missCount.increment();
+		T value = loader.get();
+		long timeToLive = timeToLive(key.getType()).toNanos();
+		if (value != null && timeToLive > 0) {
+			synchronized (responses) {
+				responses.put(key, new CachedResponse(value, System.nanoTime() + timeToLive));
+			}
+		}
+		return value;
+	}
+
+	public void clear() {
+		synchronized (responses) {
+			responses.clear();
+		}
+	}
+
+	/**
+	 * @return the number of responses currently cached, including any that have expired but haven't been requested since.
+	 */
+	public int size() {
+		synchronized (responses) {
+			return responses.size();
+		}
+	}
+
+	/**
+	 * @return a snapshot of the cache's hit, miss, and eviction counts.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum());
+	}
+
+	private Duration timeToLive(Class<?> type) {
+		Duration timeToLive = timesToLive.get(type);
+		return timeToLive != null ? timeToLive : defaultTimeToLive;
+	}
+
+	private static class CachedResponse {
+
+		private final Object value;
+
+		private final long expiresAt;
+
+		public CachedResponse(Object value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+	/**
+	 * Hit, miss, and eviction counts of an {@link InMemoryGraphResponseCache} since it was created.
+	 */
+	public static final class Statistics {
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long evictionCount;
+
+		private final long expirationCount;
+
+		Statistics(long hitCount, long missCount, long evictionCount, long expirationCount) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.expirationCount = expirationCount;
+		}
+
+		/**
+		 * @return the number of requests served from the cache.
+		 */
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		/**
+		 * @return the number of requests that had to be sent to Facebook, including those for expired responses.
+		 */
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 * @return the number of responses evicted to keep the cache within its maximum size.
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 * @return the number of responses removed because they had expired.
+		 */
+		public long getExpirationCount() {
+			return expirationCount;
+		}
+
+		/**
+		 * @return the fraction of requests served from the cache, or 0 if there haven't been any requests.
+		 */
+		public double getHitRate() {
+			long requestCount = hitCount + missCount;
+			return requestCount > 0 ? (double) hitCount / requestCount : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + ", expirations=" + expirationCount;
+		}
+
+	}
+
+}
@@ -30,43 +30,64 @@ class OpenGraphTemplate implements OpenGraphOperations {
 	
 	private GraphApi graphApi;
 	
-	private GeneralActions generalActions;
+	// action templates are created when first asked for; racing threads may each create one and any of them is equally usable
+	private volatile GeneralActions generalActions;
 	
-	private MusicActions musicActions;
+	private volatile MusicActions musicActions;
 	
-	private BookActions bookActions;
+	private volatile BookActions bookActions;
 	
-	private VideoActions videoActions;
+	private volatile VideoActions videoActions;
 	
-	private FitnessActions fitnessActions;
+	private volatile FitnessActions fitnessActions;
 
 	public OpenGraphTemplate(GraphApi graphApi) {
 		this.graphApi = graphApi;
-		this.generalActions = new GeneralActionsTemplate(this);
-		this.bookActions = new BookActionsTemplate(this);
-		this.musicActions = new MusicActionsTemplate(this);
-		this.videoActions = new VideoActionsTemplate(this);
-		this.fitnessActions = new FitnessActionsTemplate(this);
 	} 
 	
 	public GeneralActions generalActions() {
-		return generalActions;
+		GeneralActions actions = generalActions;
+		if (actions == null) {
+			actions = new GeneralActionsTemplate(this);
+			generalActions = actions;
+		}
+		return actions;
 	}
 	
 	public MusicActions musicActions() {
-		return musicActions;
+		MusicActions actions = musicActions;
+		if (actions == null) {
+			actions = new MusicActionsTemplate(this);
+			musicActions = actions;
+		}
+		return actions;
 	}
 
 	public BookActions bookActions() {
-		return bookActions;
+		BookActions actions = bookActions;
+		if (actions == null) {
+			actions = new BookActionsTemplate(this);
+			bookActions = actions;
+		}
+		return actions;
 	}
 
 	public VideoActions videoActions() {
-		return videoActions;
+		VideoActions actions = videoActions;
+		if (actions == null) {
+			actions = new VideoActionsTemplate(this);
+			videoActions = actions;
+		}
+		return actions;
 	}
 	
 	public FitnessActions fitnessActions() {
-		return fitnessActions;
+		FitnessActions actions = fitnessActions;
+		if (actions == null) {
+			actions = new FitnessActionsTemplate(this);
+			fitnessActions = actions;
+		}
+		return actions;
 	}
 	
 	public void deleteAction(String actionId) {
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.springframework.social.facebook.api.PagedList;
+
+/**
+ * Walks the pages of a connection, fetching up to a given number of pages ahead of the page most recently returned.
+ * Pages are fetched on the given executor, each one after the page before it (since each page carries the cursor to the next).
+ * Instances are not thread-safe; {@link #next()} is expected to be called by one consumer at a time.
+ */
+class PagePrefetcher<T> {
+
+	private final Supplier<PagedList<T>> firstPage;
+
+	private final FacebookTemplate facebook;
+
+	private final Class<T> type;
+
+	private final Executor executor;
+
+	private final int prefetch;
+
+	private final Deque<CompletableFuture<PagedList<T>>> pending = new ArrayDeque<CompletableFuture<PagedList<T>>>();
+
+	private CompletableFuture<PagedList<T>> tail;
+
+	private boolean done;
+
+	/**
+	 * @param firstPage fetches the first page of the connection
+	 * @param facebook the FacebookTemplate used to follow paging cursors
+	 * @param type the Java type of each connection
+	 * @param executor the executor to fetch pages on
+	 * @param prefetch the number of pages to fetch ahead of the page being consumed; 0 fetches each page on demand
+	 */
+	PagePrefetcher(Supplier<PagedList<T>> firstPage, FacebookTemplate facebook, Class<T> type, Executor executor, int prefetch) {
+		if (prefetch < 0) {
+			throw new IllegalArgumentException("Prefetch must not be negative");
+		}
+		this.firstPage = firstPage;
+		this.facebook = facebook;
+		this.type = type;
+		this.executor = executor;
+		this.prefetch = prefetch;
+	}
+
+	/**
+	 * Returns the next page of the connection, waiting for it to be fetched if necessary.
+	 * @return the next page or null if the previous page was the last non-empty page.
+	 */
+	PagedList<T> next() {
+		if (done) {
+			return null;
+		}
+		if (pending.isEmpty()) {
+			enqueue();
+		}
+		CompletableFuture<PagedList<T>> head = pending.poll();
+		while (pending.size() < prefetch) {
+			enqueue();
+		}
+		PagedList<T> page = await(head);
+		if (page == null || page.isEmpty()) {
+			cancel();
+			return null;
+		}
+		return page;
+	}
+
+	/**
+	 * Stops fetching pages, abandoning any pages that have been prefetched.
+	 */
+	void cancel() {
+		done = true;
+		for (CompletableFuture<PagedList<T>> future : pending) {
+			future.cancel(false);
+		}
+		pending.clear();
+	}
+
+	private void enqueue() {
+		tail = tail == null ? CompletableFuture.supplyAsync(firstPage, executor) : tail.thenApplyAsync(this::fetchNext, executor);
+		pending.add(tail);
+	}
+
+	private PagedList<T> fetchNext(PagedList<T> page) {
+		if (done || page == null || page.isEmpty()) {
+			return null;
+		}
+		return facebook.fetchNextPagedConnections(page, type);
+	}
+
+	private PagedList<T> await(CompletableFuture<PagedList<T>> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			cancel();
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+}
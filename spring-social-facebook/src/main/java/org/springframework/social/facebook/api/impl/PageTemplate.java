@@ -45,6 +45,10 @@ class PageTemplate implements PageOperations {
 		return graphApi.fetchObject(pageId, Page.class);
 	}
 
+	public Map<String, Page> getPages(List<String> pageIds) {
+		return graphApi.fetchObjects(pageIds, Page.class);
+	}
+
 	public void updatePage(PageUpdate pageUpdate) {
 		String pageId = pageUpdate.getPageId();
 		String pageAccessToken = getAccessToken(pageId);
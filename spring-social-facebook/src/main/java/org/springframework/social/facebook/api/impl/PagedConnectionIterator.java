@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.springframework.social.facebook.api.PagedList;
+
+/**
+ * Iterator over the entries of a connection that moves on to the connection's next page once the current page is exhausted.
+ * Pages are obtained from a {@link PagePrefetcher}, so the next page may already be fetched by the time it is needed.
+ */
+class PagedConnectionIterator<T> implements Iterator<T> {
+
+	private final PagePrefetcher<T> prefetcher;
+
+	private Iterator<T> current = Collections.<T>emptyList().iterator();
+
+	private boolean exhausted;
+
+	PagedConnectionIterator(PagePrefetcher<T> prefetcher) {
+		this.prefetcher = prefetcher;
+	}
+
+	public boolean hasNext() {
+		while (!current.hasNext() && !exhausted) {
+			PagedList<T> page = prefetcher.next();
+			if (page == null) {
+				exhausted = true;
+			} else {
+				current = page.iterator();
+			}
+		}
+		return current.hasNext();
+	}
+
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return current.next();
+	}
+
+	/**
+	 * Stops iterating, abandoning any pages that have been prefetched.
+	 */
+	void close() {
+		exhausted = true;
+		current = Collections.<T>emptyList().iterator();
+		prefetcher.cancel();
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.springframework.social.facebook.api.PagedList;
+import org.springframework.social.facebook.api.ReactiveGraphApi;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link ReactiveGraphApi} implementation that follows paging cursors with a {@link FacebookTemplate}.
+ * Pages are fetched on the given {@link Scheduler}, so the blocking calls made by {@link FacebookTemplate} never run on the subscriber's thread.
+ * While a page is being consumed, up to <code>prefetch</code> further pages are fetched in the background.
+ */
+public class ReactiveGraphTemplate implements ReactiveGraphApi {
+
+	private final FacebookTemplate facebook;
+
+	private final Scheduler scheduler;
+
+	private final int prefetch;
+
+	/**
+	 * Create a new instance of ReactiveGraphTemplate that fetches pages on {@link Schedulers#elastic()}, prefetching one page ahead.
+	 * @param facebook the FacebookTemplate to fetch pages with
+	 */
+	public ReactiveGraphTemplate(FacebookTemplate facebook) {
+		this(facebook, Schedulers.elastic(), 1);
+	}
+
+	/**
+	 * Create a new instance of ReactiveGraphTemplate.
+	 * @param facebook the FacebookTemplate to fetch pages with
+	 * @param scheduler the scheduler to fetch pages on. Since pages are fetched with blocking I/O, this should not be a non-blocking scheduler such as {@link Schedulers#parallel()}.
+	 * @param prefetch the number of pages to fetch ahead of the page being consumed; 0 fetches each page only once it is requested
+	 */
+	public ReactiveGraphTemplate(FacebookTemplate facebook, Scheduler scheduler, int prefetch) {
+		Assert.notNull(facebook, "FacebookTemplate must not be null");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+		Assert.isTrue(prefetch >= 0, "Prefetch must not be negative");
+		this.facebook = facebook;
+		this.scheduler = scheduler;
+		this.prefetch = prefetch;
+	}
+
+	public <T> Flux<PagedList<T>> fetchPages(String objectId, String connectionName, Class<T> type, String... fields) {
+		return fetchPages(objectId, connectionName, type, fieldsParameter(fields));
+	}
+
+	public <T> Flux<PagedList<T>> fetchPages(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters) {
+		Supplier<PagedList<T>> firstPage = () -> facebook.fetchConnections(objectId, connectionName, type, queryParameters);
+		Executor executor = task -> scheduler.schedule(task);
+		return Flux.<PagedList<T>, PagePrefetcher<T>>generate(
+				() -> new PagePrefetcher<T>(firstPage, facebook, type, executor, prefetch),
+				(prefetcher, sink) -> {
+					PagedList<T> page = prefetcher.next();
+					if (page != null) {
+						sink.next(page);
+					} else {
+						sink.complete();
+					}
+					return prefetcher;
+				},
+				PagePrefetcher::cancel)
+			.subscribeOn(scheduler);
+	}
+
+	public <T> Flux<T> fetchConnections(String objectId, String connectionName, Class<T> type, String... fields) {
+		return fetchConnections(objectId, connectionName, type, fieldsParameter(fields));
+	}
+
+	public <T> Flux<T> fetchConnections(String objectId, String connectionName, Class<T> type, MultiValueMap<String, String> queryParameters) {
+		return fetchPages(objectId, connectionName, type, queryParameters).concatMapIterable(page -> page, 1);
+	}
+
+	private MultiValueMap<String, String> fieldsParameter(String[] fields) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		if (fields.length > 0) {
+			queryParameters.set("fields", StringUtils.arrayToCommaDelimitedString(fields));
+		}
+		return queryParameters;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical requests that are in flight at the same time, so that only the first of them is sent and
+ * the others wait for and share its outcome.
+ * Requests are identified by a key that must capture everything that affects their response, including the access token.
+ * Nothing is remembered once a request completes; a request made afterwards is sent again.
+ */
+class RequestCoalescer {
+
+	/**
+	 * Coalescer shared by all FacebookTemplates, so that identical requests are coalesced even when they are made
+	 * through different templates (e.g., templates created per web request for the same user).
+	 */
+	static final RequestCoalescer SHARED = new RequestCoalescer();
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+	/**
+	 * Performs a request unless an identical request is already in flight, in which case its outcome is awaited instead.
+	 * @param key the key identifying the request
+	 * @param request performs the request
+	 * @param <T> the type of the request's result
+	 * @return the result of the request, possibly shared with other callers.
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T execute(Object key, Supplier<T> request) {
+		CompletableFuture<Object> future = new CompletableFuture<Object>();
+		CompletableFuture<Object> inFlightRequest = inFlight.putIfAbsent(key, future);
+		if (inFlightRequest != null) {
+			return (T) await(inFlightRequest);
+		}
+		try {
+			T result = request.get();
+			future.complete(result);
+			return result;
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} catch (Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	private Object await(CompletableFuture<Object> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.social.facebook.api.GraphRequestObserver;
+import org.springframework.social.facebook.api.GraphRequestTimings;
+
+/**
+ * {@link GraphRequestTimings} recorded for a request as it passes through FacebookTemplate's interceptors, request factories,
+ * and (for the phases it can measure) the HTTP transport.
+ * The timings of the request being made on the current thread are available from {@link #current()}, so that each of those
+ * layers can record its phase without the timings being passed through them.
+ */
+final class RequestTimings implements GraphRequestTimings {
+
+	private final static Log logger = LogFactory.getLog(RequestTimings.class);
+
+	private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<RequestTimings>();
+
+	private static final long NOT_MEASURED = -1;
+
+	private final HttpMethod method;
+
+	private final URI uri;
+
+	private final long startTime = System.nanoTime();
+
+	private long sendTime = NOT_MEASURED;
+
+	private long responseTime = NOT_MEASURED;
+
+	private long endTime;
+
+	private int attempts;
+
+	private long connectionAcquireNanos = NOT_MEASURED;
+
+	private long connectNanos = NOT_MEASURED;
+
+	private long tlsHandshakeNanos = NOT_MEASURED;
+
+	private long bodyReadNanos;
+
+	private long bindingNanos = NOT_MEASURED;
+
+	private Integer statusCode;
+
+	private Throwable exception;
+
+	private String traceId;
+
+	private String revision;
+
+	private String debug;
+
+	private RequestTimings(HttpMethod method, URI uri) {
+		this.method = method;
+		this.uri = uri;
+	}
+
+	/**
+	 * @return the timings of the request being made on the current thread, or null if it is not being observed.
+	 */
+	static RequestTimings current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Creates an interceptor that records the timings of each request and reports them to the given observer.
+	 * The interceptor should be the first one applied to a request, so that the time spent in the others is counted as queue time.
+	 */
+	static ClientHttpRequestInterceptor interceptor(GraphRequestObserver observer) {
+		return new ObservingInterceptor(observer);
+	}
+
+	public HttpMethod getMethod() {
+		return method;
+	}
+
+	public URI getUri() {
+		return uri;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public Integer getStatusCode() {
+		return statusCode;
+	}
+
+	public Throwable getException() {
+		return exception;
+	}
+
+	public Duration getQueueTime() {
+		return sendTime != NOT_MEASURED ? Duration.ofNanos(sendTime - startTime) : null;
+	}
+
+	public Duration getConnectionAcquireTime() {
+		return toDuration(connectionAcquireNanos);
+	}
+
+	public Duration getConnectTime() {
+		return toDuration(connectNanos);
+	}
+
+	public Duration getTlsHandshakeTime() {
+		return toDuration(tlsHandshakeNanos);
+	}
+
+	public Duration getTimeToFirstByte() {
+		return responseTime != NOT_MEASURED ? Duration.ofNanos(responseTime - sendTime) : null;
+	}
+
+	public Duration getBodyReadTime() {
+		return Duration.ofNanos(bodyReadNanos);
+	}
+
+	public Duration getBindingTime() {
+		return toDuration(bindingNanos);
+	}
+
+	public Duration getTotalTime() {
+		return Duration.ofNanos(endTime - startTime);
+	}
+
+	public String getTraceId() {
+		return traceId;
+	}
+
+	public String getRevision() {
+		return revision;
+	}
+
+	public String getDebug() {
+		return debug;
+	}
+
+	@Override
+	public String toString() {
+		return method + " " + uri.getPath() + " status=" + statusCode + " attempts=" + attempts +
+				" queue=" + getQueueTime() + " acquire=" + getConnectionAcquireTime() + " connect=" + getConnectTime() +
+				" tls=" + getTlsHandshakeTime() + " ttfb=" + getTimeToFirstByte() + " read=" + getBodyReadTime() +
+				" binding=" + getBindingTime() + " total=" + getTotalTime() + " trace=" + traceId;
+	}
+
+	// recording, in the order the phases occur
+
+	void attemptSent() {
+		attempts++;
+		sendTime = System.nanoTime();
+		responseTime = NOT_MEASURED;
+		connectionAcquireNanos = NOT_MEASURED;
+		connectNanos = NOT_MEASURED;
+		tlsHandshakeNanos = NOT_MEASURED;
+	}
+
+	void connectionAcquired(long nanos) {
+		connectionAcquireNanos = nanos;
+		// a pooled connection that is reused isn't connected again
+		connectNanos = 0;
+		tlsHandshakeNanos = 0;
+	}
+
+	void tlsHandshakeCompleted(long nanos) {
+		tlsHandshakeNanos = nanos;
+	}
+
+	void connected(long nanos) {
+		connectNanos = nanos;
+	}
+
+	void responseReceived() {
+		responseTime = System.nanoTime();
+	}
+
+	void bodyRead(long nanos) {
+		bodyReadNanos += nanos;
+	}
+
+	long getBodyReadNanos() {
+		return bodyReadNanos;
+	}
+
+	void bound(long nanos) {
+		bindingNanos = nanos;
+	}
+
+	// private helpers
+
+	private static Duration toDuration(long nanos) {
+		return nanos != NOT_MEASURED ? Duration.ofNanos(nanos) : null;
+	}
+
+	private static class ObservingInterceptor implements ClientHttpRequestInterceptor {
+
+		private final GraphRequestObserver observer;
+
+		public ObservingInterceptor(GraphRequestObserver observer) {
+			this.observer = observer;
+		}
+
+		public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+			RequestTimings timings = new RequestTimings(request.getMethod(), request.getURI());
+			RequestTimings enclosing = CURRENT.get();
+			CURRENT.set(timings);
+			ClientHttpResponse response;
+			try {
+				response = execution.execute(request, body);
+				timings.statusCode = response.getRawStatusCode();
+			} catch (IOException | RuntimeException e) {
+				timings.exception = e;
+				complete(timings, enclosing);
+				throw e;
+			}
+			HttpHeaders headers = response.getHeaders();
+			timings.traceId = headers.getFirst("x-fb-trace-id");
+			timings.revision = headers.getFirst("x-fb-rev");
+			timings.debug = headers.getFirst("x-fb-debug");
+			return new ObservedClientHttpResponse(response, timings, enclosing);
+		}
+
+		private void complete(RequestTimings timings, RequestTimings enclosing) {
+			timings.endTime = System.nanoTime();
+			if (enclosing != null) {
+				CURRENT.set(enclosing);
+			} else {
+				CURRENT.remove();
+			}
+			try {
+				observer.requestCompleted(timings);
+			} catch (RuntimeException e) {
+				// a failing observer must not fail the request it observed
+				logger.warn("Error reporting timings of " + timings.getMethod() + " " + timings.getUri().getPath() + " to observer", e);
+			}
+		}
+
+		/**
+		 * Completes the timings of a request once its response is closed, after it has been read and bound.
+		 */
+		private class ObservedClientHttpResponse implements ClientHttpResponse {
+
+			private final ClientHttpResponse response;
+
+			private final RequestTimings timings;
+
+			private final RequestTimings enclosing;
+
+			private boolean closed;
+
+			public ObservedClientHttpResponse(ClientHttpResponse response, RequestTimings timings, RequestTimings enclosing) {
+				this.response = response;
+				this.timings = timings;
+				this.enclosing = enclosing;
+			}
+
+			public HttpStatus getStatusCode() throws IOException {
+				return response.getStatusCode();
+			}
+
+			public int getRawStatusCode() throws IOException {
+				return response.getRawStatusCode();
+			}
+
+			public String getStatusText() throws IOException {
+				return response.getStatusText();
+			}
+
+			public HttpHeaders getHeaders() {
+				return response.getHeaders();
+			}
+
+			public InputStream getBody() throws IOException {
+				return response.getBody();
+			}
+
+			public void close() {
+				response.close();
+				if (!closed) {
+					closed = true;
+					complete(timings, enclosing);
+				}
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * {@link ClientHttpRequestFactory} decorator that records when each attempt at a request is sent, when its response arrives,
+ * and how long is spent waiting on the network for its body, in the {@link RequestTimings} of the request being observed.
+ * It decorates the underlying request factory directly, so that its timings cover only the network.
+ */
+class TimingClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	public TimingClientHttpRequestFactory(ClientHttpRequestFactory requestFactory) {
+		this.requestFactory = requestFactory;
+	}
+
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		return new TimingClientHttpRequest(requestFactory.createRequest(uri, httpMethod));
+	}
+
+	private static class TimingClientHttpRequest implements ClientHttpRequest {
+
+		private final ClientHttpRequest request;
+
+		public TimingClientHttpRequest(ClientHttpRequest request) {
+			this.request = request;
+		}
+
+		public HttpMethod getMethod() {
+			return request.getMethod();
+		}
+
+		public String getMethodValue() {
+			return request.getMethodValue();
+		}
+
+		public URI getURI() {
+			return request.getURI();
+		}
+
+		public HttpHeaders getHeaders() {
+			return request.getHeaders();
+		}
+
+		public OutputStream getBody() throws IOException {
+			return request.getBody();
+		}
+
+		public ClientHttpResponse execute() throws IOException {
+			RequestTimings timings = RequestTimings.current();
+			if (timings == null) {
+				return request.execute();
+			}
+			timings.attemptSent();
+			ClientHttpResponse response = request.execute();
+			timings.responseReceived();
+			return new TimingClientHttpResponse(response, timings);
+		}
+
+	}
+
+	private static class TimingClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private final RequestTimings timings;
+
+		private InputStream body;
+
+		public TimingClientHttpResponse(ClientHttpResponse response, RequestTimings timings) {
+			this.response = response;
+			this.timings = timings;
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				body = new TimingInputStream(response.getBody(), timings);
+			}
+			return body;
+		}
+
+		public void close() {
+			response.close();
+		}
+
+	}
+
+	private static class TimingInputStream extends FilterInputStream {
+
+		private final RequestTimings timings;
+
+		public TimingInputStream(InputStream in, RequestTimings timings) {
+			super(in);
+			this.timings = timings;
+		}
+
+		@Override
+		public int read() throws IOException {
+			long start = System.nanoTime();
+			try {
+				return super.read();
+			} finally {
+				timings.bodyRead(System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return super.read(b, off, len);
+			} finally {
+				timings.bodyRead(System.nanoTime() - start);
+			}
+		}
+
+	}
+
+}
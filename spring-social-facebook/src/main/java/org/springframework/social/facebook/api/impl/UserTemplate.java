@@ -18,6 +18,7 @@ package org.springframework.social.facebook.api.impl;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.social.facebook.api.GraphApi;
 import org.springframework.social.facebook.api.ImageType;
@@ -52,6 +53,10 @@ class UserTemplate implements UserOperations {
 	public User getUserProfile(String facebookId) {
 		return graphApi.fetchObject(facebookId, User.class, PROFILE_FIELDS);
 	}
+
+	public Map<String, User> getUserProfiles(List<String> facebookIds) {
+		return graphApi.fetchObjects(facebookIds, User.class, PROFILE_FIELDS);
+	}
 	
 	public byte[] getUserProfileImage() {
 		return getUserProfileImage("me", ImageType.NORMAL);
@@ -97,7 +102,7 @@ class UserTemplate implements UserOperations {
 		return graphApi.fetchConnections("search", null, Reference.class, queryMap);
 	}
 
-	private List<Permission> deserializePermissionsNodeToList(JsonNode jsonNode) {
+	static List<Permission> deserializePermissionsNodeToList(JsonNode jsonNode) {
 		JsonNode dataNode = jsonNode.get("data");			
 		List<Permission> permissions = new ArrayList<Permission>();
 		for (Iterator<JsonNode> elementIt = dataNode.elements(); elementIt.hasNext(); ) {
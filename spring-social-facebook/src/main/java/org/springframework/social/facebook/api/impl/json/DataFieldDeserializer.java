@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+
+/**
+ * Base class for deserializers of values that Facebook wraps in an object's "data" field (e.g., <code>{"data": [...]}</code>).
+ * The deserializer for the wrapped value is looked up once, when Jackson resolves this deserializer, and the value is then
+ * bound straight from the parser using the codec and configuration of the ObjectMapper that is reading.
+ * @param <T> the type of the wrapped value
+ */
+abstract class DataFieldDeserializer<T> extends JsonDeserializer<T> implements ResolvableDeserializer {
+
+	private final TypeReference<T> dataType;
+
+	private JsonDeserializer<Object> dataDeserializer;
+
+	protected DataFieldDeserializer(TypeReference<T> dataType) {
+		this.dataType = dataType;
+	}
+
+	public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+		dataDeserializer = ctxt.findRootValueDeserializer(ctxt.getTypeFactory().constructType(dataType));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+		if (dataDeserializer == null) {
+			resolve(ctxt);
+		}
+		if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+			jp.skipChildren();
+			return getMissingValue();
+		}
+		T value = getMissingValue();
+		while (jp.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = jp.getCurrentName();
+			JsonToken valueToken = jp.nextToken();
+			if ("data".equals(fieldName) && valueToken != JsonToken.VALUE_NULL) {
+				value = (T) dataDeserializer.deserialize(jp, ctxt);
+			} else {
+				jp.skipChildren();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @return the value to use when there is no "data" field.
+	 */
+	protected T getMissingValue() {
+		return null;
+	}
+
+}
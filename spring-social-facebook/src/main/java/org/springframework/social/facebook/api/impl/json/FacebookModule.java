@@ -45,6 +45,7 @@ import org.springframework.social.facebook.api.PageParking;
 import org.springframework.social.facebook.api.PagePaymentOptions;
 import org.springframework.social.facebook.api.PageRestaurantServices;
 import org.springframework.social.facebook.api.PageRestaurantSpecialties;
+import org.springframework.social.facebook.api.PagedList;
 import org.springframework.social.facebook.api.PaymentPricePoint;
 import org.springframework.social.facebook.api.PaymentPricePoints;
 import org.springframework.social.facebook.api.Photo;
@@ -85,6 +86,12 @@ public class FacebookModule extends SimpleModule {
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Name of the reader attribute that, if set to a {@link Post.PostType}, is assigned as the type of every {@link Post} that is read.
+	 * For example, <code>objectMapper.readerFor(Post.class).withAttribute(FacebookModule.POST_TYPE_ATTRIBUTE, PostType.STATUS)</code>.
+	 */
+	public static final String POST_TYPE_ATTRIBUTE = FacebookModule.class.getName() + ".postType";
+
 	public FacebookModule() {
 		super("FacebookModule");
 	}
@@ -171,5 +178,9 @@ public class FacebookModule extends SimpleModule {
 		
 		context.setMixInAnnotations(ProfilePictureSource.class, ProfilePictureSourceMixin.class);
 		
+		context.setMixInAnnotations(PagedList.class, PagedListMixin.class);
+		
+		context.addBeanDeserializerModifier(new PostDeserializerModifier());
+		
 	}
 }
@@ -16,47 +16,56 @@
 package org.springframework.social.facebook.api.impl.json;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.social.facebook.api.MessageTag;
 
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
 
-public class MessageTagMapDeserializer extends JsonDeserializer<Map<Integer,List<MessageTag>>> {
+public class MessageTagMapDeserializer extends JsonDeserializer<Map<Integer,List<MessageTag>>> implements ResolvableDeserializer {
 
-	@SuppressWarnings({ "unchecked", "deprecation" })
+	private JsonDeserializer<Object> mapDeserializer;
+
+	private JsonDeserializer<Object> listDeserializer;
+
+	public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+		mapDeserializer = ctxt.findRootValueDeserializer(ctxt.getTypeFactory().constructType(new TypeReference<Map<Integer,List<MessageTag>>>() {}));
+		listDeserializer = ctxt.findRootValueDeserializer(ctxt.getTypeFactory().constructType(new TypeReference<List<MessageTag>>() {}));
+	}
+
+	@SuppressWarnings("unchecked")
 	@Override
-	public Map<Integer,List<MessageTag>> deserialize(JsonParser jp, DeserializationContext ctxt)
-			throws IOException, JsonProcessingException {
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.registerModule(new FacebookModule());
-		jp.setCodec(mapper);
-		if (jp.hasCurrentToken()) {
-			JsonNode dataNode = jp.readValueAs(JsonNode.class);
-			if (dataNode != null) {
-				if(dataNode.getNodeType().equals(JsonNodeType.OBJECT)) { // OLD STYLE, SUPPORTED IN GRAPH API 2.3
-					return (Map<Integer,List<MessageTag>>) mapper.reader(new TypeReference<Map<Integer,List<MessageTag>>>() {}).readValue(dataNode);
-				} else if (dataNode.getNodeType().equals(JsonNodeType.ARRAY)) { // NEW STYLE 2.4/2.5-ish
-					List<MessageTag> tagList = (List<MessageTag>) mapper.reader(new TypeReference<List<MessageTag>>() {}).readValue(dataNode);
-					Map<Integer, List<MessageTag>> messageTagMap = new HashMap<Integer, List<MessageTag>>();
-					for (MessageTag messageTag : tagList) {
-						messageTagMap.put(messageTag.getOffset(), Arrays.asList(messageTag));
-					}
+	public Map<Integer,List<MessageTag>> deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+		if (mapDeserializer == null) {
+			resolve(ctxt);
+		}
+		JsonToken token = jp.getCurrentToken();
+		if (token == JsonToken.START_OBJECT) { // OLD STYLE, SUPPORTED IN GRAPH API 2.3
+			return (Map<Integer,List<MessageTag>>) mapDeserializer.deserialize(jp, ctxt);
+		} else if (token == JsonToken.START_ARRAY) { // NEW STYLE 2.4/2.5-ish
+			List<MessageTag> tagList = (List<MessageTag>) listDeserializer.deserialize(jp, ctxt);
+			Map<Integer, List<MessageTag>> messageTagMap = new LinkedHashMap<Integer, List<MessageTag>>();
+			for (MessageTag messageTag : tagList) {
+				List<MessageTag> tagsAtOffset = messageTagMap.get(messageTag.getOffset());
+				if (tagsAtOffset == null) {
+					tagsAtOffset = new ArrayList<MessageTag>(1);
+					messageTagMap.put(messageTag.getOffset(), tagsAtOffset);
 				}
-			} 
+				tagsAtOffset.add(messageTag);
+			}
+			return messageTagMap;
 		}
-		
+		jp.skipChildren();
 		return Collections.emptyMap();
 	}
 
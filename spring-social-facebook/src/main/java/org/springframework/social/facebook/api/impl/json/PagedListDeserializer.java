@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl.json;
+
+import static org.springframework.social.facebook.api.impl.PagedListUtils.getPagedListParameters;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.social.facebook.api.PagedList;
+import org.springframework.social.facebook.api.PagingParameters;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+
+/**
+ * Deserializes a Graph API connection response into a {@link PagedList} in a single pass over the JSON.
+ * The "data" array is bound straight from the parser into the PagedList's element type; only the small "paging" and "summary" objects are read as trees.
+ * The element type is taken from the type being deserialized (e.g., PagedList&lt;Post&gt;).
+ */
+class PagedListDeserializer extends JsonDeserializer<PagedList<?>> implements ContextualDeserializer {
+
+	private final JavaType listType;
+
+	public PagedListDeserializer() {
+		this(null);
+	}
+
+	private PagedListDeserializer(JavaType listType) {
+		this.listType = listType;
+	}
+
+	public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+		JavaType pagedListType = property != null ? property.getType() : ctxt.getContextualType();
+		JavaType elementType = pagedListType != null && pagedListType.containedTypeCount() > 0 ? pagedListType.containedType(0) : ctxt.constructType(Object.class);
+		return new PagedListDeserializer(ctxt.getTypeFactory().constructCollectionType(List.class, elementType));
+	}
+
+	@Override
+	public PagedList<?> deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+		if (listType == null) {
+			throw JsonMappingException.from(jp, "PagedListDeserializer has not been contextualized with an element type");
+		}
+		if (jp.getCurrentToken() == JsonToken.START_OBJECT) {
+			jp.nextToken();
+		} else if (jp.getCurrentToken() != JsonToken.FIELD_NAME && jp.getCurrentToken() != JsonToken.END_OBJECT) {
+			// not a connection (e.g., a bare count in place of a nested connection)
+			jp.skipChildren();
+			return new PagedList<Object>(Collections.emptyList(), null, null);
+		}
+		List<Object> data = null;
+		JsonNode pagingNode = null;
+		JsonNode summaryNode = null;
+		for (; jp.getCurrentToken() == JsonToken.FIELD_NAME; jp.nextToken()) {
+			String fieldName = jp.getCurrentName();
+			jp.nextToken();
+			if ("data".equals(fieldName) && jp.getCurrentToken() != JsonToken.VALUE_NULL) {
+				data = ctxt.readValue(jp, listType);
+			} else if ("paging".equals(fieldName)) {
+				pagingNode = jp.readValueAsTree();
+			} else if ("summary".equals(fieldName)) {
+				summaryNode = jp.readValueAsTree();
+			} else {
+				jp.skipChildren();
+			}
+		}
+		if (data == null) {
+			data = Collections.emptyList();
+		}
+		Integer totalCount = null;
+		if (summaryNode != null && summaryNode.has("total_count")) {
+			totalCount = summaryNode.get("total_count").intValue();
+		}
+		if (pagingNode == null) {
+			return new PagedList<Object>(data, null, null, totalCount);
+		}
+		PagingParameters previousPage = getPagedListParameters(pagingNode, "previous");
+		PagingParameters nextPage = getPagedListParameters(pagingNode, "next");
+		return new PagedList<Object>(data, previousPage, nextPage, totalCount);
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api.impl.json;
+
+import java.io.IOException;
+
+import org.springframework.social.facebook.api.Post;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBase;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+
+/**
+ * Wraps the bean deserializer for {@link Post} so that the post's type can be dictated by the reader rather than by the "type" field.
+ * Connections such as a user's statuses or links only contain posts of a single type, but Facebook doesn't always include the
+ * "type" field in them. When the {@link FacebookModule#POST_TYPE_ATTRIBUTE} attribute is set on the reader, its value is
+ * assigned to each post's type as it is bound.
+ */
+class PostDeserializerModifier extends BeanDeserializerModifier {
+
+	@Override
+	public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+		if (Post.class.isAssignableFrom(beanDesc.getBeanClass())) {
+			return new PostDeserializer(deserializer);
+		}
+		return deserializer;
+	}
+
+	private static class PostDeserializer extends DelegatingDeserializer {
+
+		private static final long serialVersionUID = 1L;
+
+		public PostDeserializer(JsonDeserializer<?> delegatee) {
+			super(delegatee);
+		}
+
+		@Override
+		protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+			return new PostDeserializer(newDelegatee);
+		}
+
+		@Override
+		public Object deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+			Object post = _delegatee.deserialize(jp, ctxt);
+			Object postType = ctxt.getAttribute(FacebookModule.POST_TYPE_ATTRIBUTE);
+			if (postType != null && post != null) {
+				SettableBeanProperty typeProperty = _delegatee instanceof BeanDeserializerBase ? ((BeanDeserializerBase) _delegatee).findProperty("type") : null;
+				if (typeProperty != null) {
+					typeProperty.set(post, postType);
+				}
+			}
+			return post;
+		}
+
+	}
+
+}
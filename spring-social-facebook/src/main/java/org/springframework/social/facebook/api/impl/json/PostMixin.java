@@ -21,8 +21,10 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.social.facebook.api.Action;
+import org.springframework.social.facebook.api.Comment;
 import org.springframework.social.facebook.api.MessageTag;
 import org.springframework.social.facebook.api.Page;
+import org.springframework.social.facebook.api.PagedList;
 import org.springframework.social.facebook.api.Post.AdminCreator;
 import org.springframework.social.facebook.api.Post.FriendsPrivacyType;
 import org.springframework.social.facebook.api.Post.PostType;
@@ -43,7 +45,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Annotated mixin to add Jackson annotations to Post.
- * Also defines Post subtypes to deserialize into based on the "type" attribute. 
+ * The post's type may be overridden when reading with {@link FacebookModule#POST_TYPE_ATTRIBUTE}.
  * @author Craig Walls
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -64,6 +66,9 @@ abstract class PostMixin extends FacebookObjectMixin {
 	@JsonProperty("caption")
 	String caption;
 	
+	@JsonProperty("comments")
+	PagedList<Comment> comments;
+	
 	@JsonProperty("created_time")
 	Date createdTime; 
 
@@ -82,6 +87,9 @@ abstract class PostMixin extends FacebookObjectMixin {
 	@JsonProperty("is_published")
 	boolean isPublished;
 
+	@JsonProperty("likes")
+	PagedList<Reference> likes;
+	
 	@JsonProperty("link")
 	String link;
 	
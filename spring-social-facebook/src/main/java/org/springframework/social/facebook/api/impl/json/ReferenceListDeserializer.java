@@ -15,34 +15,22 @@
  */
 package org.springframework.social.facebook.api.impl.json;
 
-import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
 import org.springframework.social.facebook.api.Reference;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
-class ReferenceListDeserializer extends JsonDeserializer<List<Reference>> {
-	@SuppressWarnings("unchecked")
+class ReferenceListDeserializer extends DataFieldDeserializer<List<Reference>> {
+
+	public ReferenceListDeserializer() {
+		super(new TypeReference<List<Reference>>() {});
+	}
+
 	@Override
-	public List<Reference> deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.registerModule(new FacebookModule());
-		jp.setCodec(mapper);
-		if (jp.hasCurrentToken()) {
-			JsonNode dataNode = (JsonNode) jp.readValueAs(JsonNode.class).get("data");
-			if (dataNode != null) {
-				return (List<Reference>) mapper.readerFor(new TypeReference<List<Reference>>() {}).readValue(dataNode);
-			}
-		}
-		
+	protected List<Reference> getMissingValue() {
 		return Collections.emptyList();
 	}
+
 }
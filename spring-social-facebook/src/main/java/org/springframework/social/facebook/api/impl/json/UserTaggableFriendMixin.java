@@ -15,20 +15,13 @@
  */
 package org.springframework.social.facebook.api.impl.json;
 
-import java.io.IOException;
-
 import org.springframework.social.facebook.api.FacebookObject;
 import org.springframework.social.facebook.api.ProfilePictureSource;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
@@ -47,15 +40,10 @@ abstract class UserTaggableFriendMixin extends FacebookObject {
 			@JsonProperty("last_name") String lastName, 
 			@JsonProperty("picture") @JsonDeserialize(using=PictureDeserializer.class) ProfilePictureSource picture) {}
 
-	private static class PictureDeserializer extends JsonDeserializer<ProfilePictureSource> {
-		@Override
-		public ProfilePictureSource deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-			ObjectMapper mapper = new ObjectMapper();
-			mapper.registerModule(new FacebookModule());
-			JsonNode dataNode = (JsonNode) jp.readValueAs(JsonNode.class).get("data");
-			return (ProfilePictureSource) mapper.readerFor(ProfilePictureSource.class).readValue(dataNode);
+	private static class PictureDeserializer extends DataFieldDeserializer<ProfilePictureSource> {
+		public PictureDeserializer() {
+			super(new TypeReference<ProfilePictureSource>() {});
 		}
 	}
 
-	
 }
@@ -15,8 +15,10 @@
  */
 package org.springframework.social.facebook.connect;
 
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.social.facebook.api.Facebook;
-import org.springframework.social.facebook.api.impl.FacebookTemplate;
+import org.springframework.social.facebook.api.impl.FacebookTemplateFactory;
+import org.springframework.social.facebook.api.impl.GraphTransport;
 import org.springframework.social.oauth2.AbstractOAuth2ServiceProvider;
 import org.springframework.social.oauth2.OAuth2Template;
 
@@ -27,11 +29,7 @@ import org.springframework.social.oauth2.OAuth2Template;
  */
 public class FacebookServiceProvider extends AbstractOAuth2ServiceProvider<Facebook> {
 
-	private String appNamespace;
-
-	private String appSecret;
-
-	private String appId;
+	private final FacebookTemplateFactory facebookTemplateFactory;
 
 	private static final String API_VERSION = Facebook.DEFAULT_API_VERSION;
 
@@ -45,22 +43,33 @@ public class FacebookServiceProvider extends AbstractOAuth2ServiceProvider<Faceb
 	 * @param appNamespace The application's App Namespace as configured with Facebook. Enables use of Open Graph operations.
 	 */
 	public FacebookServiceProvider(String appId, String appSecret, String appNamespace) {
-		super(getOAuth2Template(appId, appSecret));
-		this.appNamespace = appNamespace;
-		this.appSecret = appSecret;
-		this.appId = appId;
+		this(appId, appSecret, appNamespace, new GraphTransport().createRequestFactory());
+	}
+
+	/**
+	 * Creates a FacebookServiceProvider for the given application ID, secret, and namespace that makes all of its requests,
+	 * including those to obtain access tokens, through the given request factory.
+	 * @param appId The application's App ID as assigned by Facebook 
+	 * @param appSecret The application's App Secret as assigned by Facebook
+	 * @param appNamespace The application's App Namespace as configured with Facebook. Enables use of Open Graph operations.
+	 * @param requestFactory the request factory, typically created by a {@link GraphTransport}. Must be thread-safe.
+	 */
+	public FacebookServiceProvider(String appId, String appSecret, String appNamespace, ClientHttpRequestFactory requestFactory) {
+		super(getOAuth2Template(appId, appSecret, requestFactory));
+		this.facebookTemplateFactory = new FacebookTemplateFactory(appId, appSecret, appNamespace, requestFactory);
 	}
 	
-	private static OAuth2Template getOAuth2Template(String appId, String appSecret) {
+	private static OAuth2Template getOAuth2Template(String appId, String appSecret, ClientHttpRequestFactory requestFactory) {
 		OAuth2Template oAuth2Template = new OAuth2Template(appId, appSecret,
 				"https://www.facebook.com/v" + API_VERSION + "/dialog/oauth",
 				GRAPH_API_URL + "oauth/access_token");
 		oAuth2Template.setUseParametersForClientAuthentication(true);
+		oAuth2Template.setRequestFactory(requestFactory);
 		return oAuth2Template;
 	}
 
 	public Facebook getApi(String accessToken) {
-		return new FacebookTemplate(accessToken, appNamespace, appId, appSecret);
+		return facebookTemplateFactory.createFacebookTemplate(accessToken);
 	}
 	
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.util.Assert;
+
+/**
+ * Computes the <code>appsecret_proof</code> parameter that proves Graph API requests are made by the application's server,
+ * an HMAC-SHA256 of the access token keyed with the app secret.
+ * <p>
+ * The proof for a given access token never changes, so proofs are cached per access token, up to a bound.
+ * Proofs are looked up without locking; once the bound is reached, arbitrary proofs are evicted to make room, since any
+ * proof is as cheap to compute again as any other.
+ * The key is created once, and each thread initializes its own Mac with it once, so computing a proof for a new access token
+ * doesn't involve looking up a JCE provider or initializing a Mac.
+ * </p>
+ * <p>
+ * A provider is thread-safe and is meant to be shared by everything that makes requests for the same application,
+ * such as the FacebookTemplates for all of its users; {@link #forAppSecret(String)} returns the shared provider for an app secret.
+ * Shared providers are registered under a digest of their app secret, rather than the app secret itself, and are kept for the
+ * life of the class loader, one per app secret. An application that rotates its app secret without restarting should create
+ * its own provider instead, and drop it along with the old secret.
+ * </p>
+ */
+public class AppSecretProofProvider {
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private static final ConcurrentMap<String, AppSecretProofProvider> SHARED = new ConcurrentHashMap<String, AppSecretProofProvider>();
+
+	private final SecretKeySpec key;
+
+	private final ThreadLocal<Mac> mac;
+
+	private final ConcurrentMap<String, String> proofs = new ConcurrentHashMap<String, String>();
+
+	private final int maximumTokens;
+
+	/**
+	 * Create a new instance of AppSecretProofProvider that caches the proofs of up to 10000 access tokens.
+	 * @param appSecret the application's App Secret as assigned by Facebook.
+	 */
+	public AppSecretProofProvider(String appSecret) {
+		this(appSecret, 10000);
+	}
+
+	/**
+	 * Create a new instance of AppSecretProofProvider.
+	 * @param appSecret the application's App Secret as assigned by Facebook.
+	 * @param maximumTokens the maximum number of access tokens to cache proofs for.
+	 */
+	public AppSecretProofProvider(String appSecret, int maximumTokens) {
+		Assert.hasText(appSecret, "App secret must not be empty");
+		Assert.isTrue(maximumTokens >= 0, "Maximum number of tokens must not be negative");
+		this.key = new SecretKeySpec(appSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+		this.mac = ThreadLocal.withInitial(this::createMac);
+		this.maximumTokens = maximumTokens;
+	}
+
+	/**
+	 * Returns the provider shared by everything that makes requests with the given app secret, creating it on first use.
+	 * @param appSecret the application's App Secret as assigned by Facebook.
+	 * @return the shared provider for the app secret.
+	 */
+	public static AppSecretProofProvider forAppSecret(String appSecret) {
+		Assert.hasText(appSecret, "App secret must not be empty");
+		return SHARED.computeIfAbsent(digest(appSecret), key -> new AppSecretProofProvider(appSecret));
+	}
+
+	/**
+	 * @param accessToken the access token a request is made with.
+	 * @return the appsecret_proof for the access token.
+	 */
+	public String getProof(String accessToken) {
+		Assert.notNull(accessToken, "Access token must not be null");
+		String proof = proofs.get(accessToken);
+		if (proof == null) {
+			// racing threads may each compute the proof; they all compute the same one
+			proof = new String(Hex.encode(mac.get().doFinal(accessToken.getBytes(StandardCharsets.UTF_8))));
+			if (proofs.putIfAbsent(accessToken, proof) == null && proofs.size() > maximumTokens) {
+				evict();
+			}
+		}
+		return proof;
+	}
+
+	// private helpers
+
+	private void evict() {
+		Iterator<String> tokens = proofs.keySet().iterator();
+		while (proofs.size() > maximumTokens && tokens.hasNext()) {
+			tokens.next();
+			tokens.remove();
+		}
+	}
+
+	private static String digest(String appSecret) {
+		try {
+			return new String(Hex.encode(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(appSecret.getBytes(StandardCharsets.UTF_8))));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to initialize " + DIGEST_ALGORITHM + " for appsecret_proof", e);
+		}
+	}
+
+	private Mac createMac() {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to initialize " + ALGORITHM + " for appsecret_proof", e);
+		}
+	}
+
+}
@@ -1,15 +1,16 @@
 package org.springframework.social.facebook.security;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.security.crypto.codec.Hex;
 import org.springframework.social.support.HttpRequestDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /*
  * Copyright 2002-2015 the original author or authors.
@@ -28,38 +29,56 @@ import java.io.IOException;
  */
 
 /**
+ * Adds the <code>appsecret_proof</code> parameter to Graph API requests.
+ * Proofs are computed by an {@link AppSecretProofProvider}, which caches them per access token.
+ * An interceptor created for a single access token (as each FacebookTemplate does) always proves that token;
+ * one created with just a provider proves the access token found on each request, so that a single HTTP client
+ * can serve requests made with many tokens.
  * @author Ariel Himmelstern
  */
 public class FacebookAppSecretProofInterceptor implements ClientHttpRequestInterceptor {
 
-    private final String appSecret;
+    private final AppSecretProofProvider proofProvider;
     private final String appToken;
-    private static final String algorithm = "HmacSHA256";
 
     public FacebookAppSecretProofInterceptor(String appToken, String appSecret) {
-        this.appSecret = appSecret;
+        this(appToken, AppSecretProofProvider.forAppSecret(appSecret));
+    }
+
+    /**
+     * Creates an interceptor that proves the access token carried by each request, in its Authorization header or
+     * <code>access_token</code> parameter. Requests without an access token are passed on unchanged.
+     * @param proofProvider the provider of proofs for the application's app secret
+     */
+    public FacebookAppSecretProofInterceptor(AppSecretProofProvider proofProvider) {
+        this(null, proofProvider);
+    }
+
+    public FacebookAppSecretProofInterceptor(String appToken, AppSecretProofProvider proofProvider) {
+        this.proofProvider = proofProvider;
         this.appToken = appToken;
     }
 
     @Override
     public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        String token = appToken != null ? appToken : extractAccessToken(request);
+        if (token == null) {
+            return execution.execute(request, body);
+        }
         HttpRequestDecorator protectedResourceRequest = new HttpRequestDecorator(request);
-
-        String appSecreteProof = calculateAppSecretProof(appToken, appSecret);
-        protectedResourceRequest.addParameter("appsecret_proof", appSecreteProof);
+        protectedResourceRequest.addParameter("appsecret_proof", proofProvider.getProof(token));
         return execution.execute(protectedResourceRequest, body);
     }
 
-    private String calculateAppSecretProof(String token, String appSecret) {
-        try {
-            Mac mac = Mac.getInstance(algorithm);
-            SecretKeySpec secretKey = new SecretKeySpec(appSecret.getBytes("UTF-8"), algorithm);
-            mac.init(secretKey);
-            byte[] digest = mac.doFinal(token.getBytes());
-            return new String(Hex.encode(digest));
-        } catch (Exception e) {
-            return "";
+    private String extractAccessToken(HttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization != null) {
+            // "OAuth <token>" or "Bearer <token>"
+            int separator = authorization.indexOf(' ');
+            return separator != -1 ? authorization.substring(separator + 1).trim() : null;
         }
-
+        // query parameters come back as they appear in the URI, so an app access token's '|' arrives as "%7C"
+        String accessToken = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("access_token");
+        return accessToken != null ? UriUtils.decode(accessToken, StandardCharsets.UTF_8) : null;
     }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.facebook.api.impl.AsyncFacebookTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+public class AsyncFacebookTemplateTest extends AbstractFacebookApiTest {
+
+	private final StubConnector connector = new StubConnector();
+
+	private final AsyncFacebookTemplate asyncFacebook = new AsyncFacebookTemplate(ACCESS_TOKEN, null, connector);
+
+	@Test
+	public void fetchObject() throws Exception {
+		connector.respond(HttpStatus.OK, "{\"id\":\"12345\",\"name\":\"Craig Walls\"}");
+		Reference reference = asyncFacebook.fetchObject("12345", Reference.class, "id", "name").get();
+		assertEquals("12345", reference.getId());
+		assertEquals("Craig Walls", reference.getName());
+		MockClientHttpRequest request = connector.requests.get(0);
+		assertEquals(HttpMethod.GET, request.getMethod());
+		assertEquals(fbUrl("12345?fields=id%2Cname"), request.getURI().toString());
+		assertEquals("OAuth someAccessToken", request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+	}
+
+	@Test
+	public void fetchObject_noThreadWaitsForResponse() throws Exception {
+		MonoProcessor<ClientHttpResponse> response = MonoProcessor.create();
+		connector.responses.add(response);
+		CompletableFuture<Reference> future = asyncFacebook.fetchObject("12345", Reference.class);
+		assertFalse(future.isDone());
+		response.onNext(jsonResponse(HttpStatus.OK, "{\"id\":\"12345\",\"name\":\"Craig Walls\"}"));
+		assertTrue(future.isDone());
+		assertEquals("Craig Walls", future.get().getName());
+	}
+
+	@Test
+	public void fetchObject_error() throws Exception {
+		connector.respond(HttpStatus.NOT_FOUND, resource("error-803-unknownAlias"));
+		CompletableFuture<Reference> future = asyncFacebook.fetchObject("bogus", Reference.class);
+		try {
+			future.get();
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ResourceNotFoundException);
+		}
+	}
+
+	@Test
+	public void fetchObject_withAppSecret() throws Exception {
+		AsyncFacebook asyncFacebook = new AsyncFacebookTemplate(ACCESS_TOKEN, "appSecret", connector);
+		connector.respond(HttpStatus.OK, "{\"id\":\"12345\",\"name\":\"Craig Walls\"}");
+		asyncFacebook.fetchObject("12345", Reference.class).get();
+		String query = connector.requests.get(0).getURI().getQuery();
+		assertTrue(query.matches("appsecret_proof=[0-9a-f]{64}"));
+	}
+
+	@Test
+	public void fetchImage_followsRedirect() throws Exception {
+		MockClientHttpResponse redirect = new MockClientHttpResponse(HttpStatus.FOUND);
+		redirect.getHeaders().setLocation(URI.create("https://scontent.xx.fbcdn.net/picture.jpg"));
+		connector.responses.add(Mono.just(redirect));
+		MockClientHttpResponse image = new MockClientHttpResponse(HttpStatus.OK);
+		image.setBody("image bytes");
+		connector.responses.add(Mono.just(image));
+		byte[] bytes = asyncFacebook.userOperations().getUserProfileImage("12345").get();
+		assertEquals("image bytes", new String(bytes, StandardCharsets.UTF_8));
+		assertEquals(2, connector.requests.size());
+		assertEquals(fbUrl("12345/picture?type=normal"), connector.requests.get(0).getURI().toString());
+		assertEquals("https://scontent.xx.fbcdn.net/picture.jpg", connector.requests.get(1).getURI().toString());
+		// the access token isn't sent along to the CDN
+		assertNull(connector.requests.get(1).getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+	}
+
+	@Test
+	public void getUserProfile() throws Exception {
+		connector.respond(HttpStatus.OK, resource("full-profile"));
+		User profile = asyncFacebook.userOperations().getUserProfile().get();
+		assertEquals("123456789", profile.getId());
+		assertEquals("Michael Craig Walls", profile.getName());
+		assertTrue(connector.requests.get(0).getURI().toString().startsWith(fbUrl("me?fields=id%2Cabout%2C")));
+	}
+
+	@Test
+	public void getFeed() throws Exception {
+		connector.respond(HttpStatus.OK, resource("feed"));
+		PagedList<Post> feed = asyncFacebook.feedOperations().getFeed().get();
+		assertEquals(5, feed.size());
+		assertTrue(connector.requests.get(0).getURI().toString().startsWith(fbUrl("me/feed?limit=25&fields=id%2Cactions%2C")));
+	}
+
+	@Test
+	public void publish() throws Exception {
+		connector.respond(HttpStatus.OK, "{\"id\":\"123456_78901234\"}");
+		MultiValueMap<String, Object> data = new LinkedMultiValueMap<String, Object>();
+		data.set("message", "Hello Facebook World");
+		String id = asyncFacebook.publish("me", "feed", data).get();
+		assertEquals("123456_78901234", id);
+		MockClientHttpRequest request = connector.requests.get(0);
+		assertEquals(HttpMethod.POST, request.getMethod());
+		assertEquals(fbUrl("me/feed"), request.getURI().toString());
+		assertEquals("message=Hello+Facebook+World", request.getBodyAsString().block());
+	}
+
+	@Test
+	public void submit() throws Exception {
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(HttpMethod.GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+		asyncFacebook.setFacebook(facebook);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Page page = asyncFacebook.submit(api -> api.pageOperations().getPage("220817147947513"), executor).get();
+			assertEquals("220817147947513", page.getId());
+		} finally {
+			executor.shutdown();
+		}
+		mockServer.verify();
+		// the operation's requests are made by the Facebook it is given, not by the non-blocking client
+		assertTrue(connector.requests.isEmpty());
+	}
+
+	private String resource(String name) throws IOException {
+		return StreamUtils.copyToString(jsonResource(name).getInputStream(), StandardCharsets.UTF_8);
+	}
+
+	private static MockClientHttpResponse jsonResponse(HttpStatus status, String body) {
+		MockClientHttpResponse response = new MockClientHttpResponse(status);
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		response.setBody(body);
+		return response;
+	}
+
+	/**
+	 * Records the requests made through it and answers them with the queued responses, in order.
+	 */
+	private static class StubConnector implements ClientHttpConnector {
+
+		private final List<MockClientHttpRequest> requests = new ArrayList<MockClientHttpRequest>();
+
+		private final Queue<Mono<ClientHttpResponse>> responses = new LinkedList<Mono<ClientHttpResponse>>();
+
+		void respond(HttpStatus status, String body) {
+			responses.add(Mono.just(jsonResponse(status, body)));
+		}
+
+		@Override
+		public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+			MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+			requests.add(request);
+			return requestCallback.apply(request).then(responses.remove());
+		}
+
+	}
+
+}
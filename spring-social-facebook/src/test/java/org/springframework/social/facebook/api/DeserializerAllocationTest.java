@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.social.facebook.api.impl.json.FacebookModule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Guards against deserializers that allocate heavily per value (e.g., by creating an ObjectMapper for each value they read).
+ * Allocation is measured with the HotSpot-specific per-thread allocation counter; the tests are skipped where it isn't available.
+ */
+public class DeserializerAllocationTest {
+
+	private static final long MAX_BYTES_PER_READ = 16 * 1024;
+
+	private static final int WARMUP_READS = 200;
+
+	private static final int MEASURED_READS = 100;
+
+	private static final String POST = "{\"id\":\"1_2\",\"message\":\"Hi Craig and Roy\"," +
+			"\"message_tags\":[{\"id\":\"3\",\"name\":\"Craig\",\"type\":\"user\",\"offset\":3,\"length\":5},{\"id\":\"4\",\"name\":\"Roy\",\"type\":\"user\",\"offset\":13,\"length\":3}]," +
+			"\"to\":{\"data\":[{\"id\":\"3\",\"name\":\"Craig\"}]},\"with_tags\":{\"data\":[{\"id\":\"4\",\"name\":\"Roy\"}]}}";
+
+	private static final String TAGGABLE_FRIEND = "{\"id\":\"5\",\"name\":\"Roy\",\"picture\":{\"data\":{\"is_silhouette\":false,\"url\":\"https://picurl\"}}}";
+
+	private static final String PHOTO = "{\"id\":\"6\",\"tags\":{\"data\":[{\"id\":\"3\",\"name\":\"Craig\",\"x\":12.5,\"y\":40.0}]}}";
+
+	private ObjectMapper objectMapper;
+
+	private com.sun.management.ThreadMXBean threadMXBean;
+
+	@Before
+	public void setup() {
+		ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(mxBean instanceof com.sun.management.ThreadMXBean);
+		threadMXBean = (com.sun.management.ThreadMXBean) mxBean;
+		assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+		objectMapper = new ObjectMapper();
+		objectMapper.registerModule(new FacebookModule());
+	}
+
+	@Test
+	public void post_messageTagsAndReferenceLists() throws Exception {
+		Post post = objectMapper.readerFor(Post.class).readValue(POST);
+		assertEquals(2, post.getMessageTags().size());
+		assertEquals("Roy", post.getMessageTags().get(13).get(0).getName());
+		assertEquals("Craig", post.getTo().get(0).getName());
+		assertEquals("Roy", post.getWithTags().get(0).getName());
+		assertAllocatesLessThan(MAX_BYTES_PER_READ, objectMapper.readerFor(Post.class), POST);
+	}
+
+	@Test
+	public void userTaggableFriend_picture() throws Exception {
+		UserTaggableFriend friend = objectMapper.readerFor(UserTaggableFriend.class).readValue(TAGGABLE_FRIEND);
+		assertEquals("https://picurl", friend.getPicture().getUrl());
+		assertAllocatesLessThan(MAX_BYTES_PER_READ, objectMapper.readerFor(UserTaggableFriend.class), TAGGABLE_FRIEND);
+	}
+
+	@Test
+	public void photo_tagList() throws Exception {
+		Photo photo = objectMapper.readerFor(Photo.class).readValue(PHOTO);
+		assertEquals(1, photo.getTags().size());
+		assertEquals("Craig", photo.getTags().get(0).getName());
+		assertAllocatesLessThan(MAX_BYTES_PER_READ, objectMapper.readerFor(Photo.class), PHOTO);
+	}
+
+	private void assertAllocatesLessThan(long maxBytesPerRead, ObjectReader reader, String json) throws IOException {
+		for (int i = 0; i < WARMUP_READS; i++) {
+			reader.readValue(json);
+		}
+		long threadId = Thread.currentThread().getId();
+		long before = threadMXBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < MEASURED_READS; i++) {
+			reader.readValue(json);
+		}
+		long bytesPerRead = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_READS;
+		assertTrue("Expected fewer than " + maxBytesPerRead + " bytes allocated per read, but was " + bytesPerRead, bytesPerRead < maxBytesPerRead);
+	}
+
+}
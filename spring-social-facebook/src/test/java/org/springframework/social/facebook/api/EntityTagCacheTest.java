@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.facebook.api.impl.EntityTagCache;
+
+public class EntityTagCacheTest extends AbstractFacebookApiTest {
+
+	@Test
+	public void fetchObject_notModified() {
+		EntityTagCache entityTagCache = new EntityTagCache(100);
+		facebook.setEntityTagCache(entityTagCache);
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(entityTag("\"abc123\"")));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andExpect(header("If-None-Match", "\"abc123\""))
+			.andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+		Page page = facebook.pageOperations().getPage("220817147947513");
+		assertSame(page, facebook.pageOperations().getPage("220817147947513"));
+		assertEquals("Denton Square Donuts", page.getName());
+		mockServer.verify();
+		assertEquals(1, entityTagCache.size());
+	}
+
+	@Test
+	public void fetchObject_modified() {
+		facebook.setEntityTagCache(new EntityTagCache(100));
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON).headers(entityTag("\"abc123\"")));
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andExpect(header("If-None-Match", "\"abc123\""))
+			.andRespond(withSuccess(jsonResource("full-profile"), MediaType.APPLICATION_JSON).headers(entityTag("\"def456\"")));
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andExpect(header("If-None-Match", "\"def456\""))
+			.andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+		User first = facebook.fetchObject("me", User.class);
+		User second = facebook.fetchObject("me", User.class);
+		assertNotSame(first, second);
+		assertSame(second, facebook.fetchObject("me", User.class));
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchConnections_notModified() {
+		facebook.setEntityTagCache(new EntityTagCache(100));
+		mockServer.expect(requestTo(fbUrl("me/friends")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("user-references"), MediaType.APPLICATION_JSON).headers(entityTag("\"abc123\"")));
+		mockServer.expect(requestTo(fbUrl("me/friends")))
+			.andExpect(method(GET))
+			.andExpect(header("If-None-Match", "\"abc123\""))
+			.andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+		PagedList<Reference> friends = facebook.fetchConnections("me", "friends", Reference.class);
+		assertSame(friends, facebook.fetchConnections("me", "friends", Reference.class));
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_noEntityTag() {
+		EntityTagCache entityTagCache = new EntityTagCache(100);
+		facebook.setEntityTagCache(entityTagCache);
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON));
+
+		facebook.fetchObject("me", User.class);
+		mockServer.verify();
+		assertEquals(0, entityTagCache.size());
+	}
+
+	private HttpHeaders entityTag(String entityTag) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(entityTag);
+		return headers;
+	}
+
+}
@@ -114,6 +114,16 @@ public class ErrorHandlingTest extends AbstractFacebookApiTest {
 		fail();
 	}
 	
+	@Test(expected=ExpiredAuthorizationException.class)
+	public void code190TokenExpired_extraFields() throws Exception {
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-190-tokenExpired-extraFields")).contentType(MediaType.APPLICATION_JSON));
+		facebook.fetchObject("me", User.class);
+		fail();
+	}
+
 	@Test(expected=RevokedAuthorizationException.class)
 	public void code190UserRevokedToken() throws Exception {
 		mockServer.expect(requestTo(fbUrl("me")))
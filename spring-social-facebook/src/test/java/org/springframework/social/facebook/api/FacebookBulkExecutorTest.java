@@ -0,0 +1,252 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.ExpiredAuthorizationException;
+import org.springframework.social.facebook.api.impl.FacebookBulkExecutor;
+import org.springframework.social.facebook.api.impl.FacebookTemplateFactory;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+public class FacebookBulkExecutorTest {
+
+	private MockRestServiceServer mockServer;
+
+	private FacebookBulkExecutor bulkExecutor;
+
+	// more threads than any limit under test, so that only the executor's limits keep operations from running at once
+	private ExecutorService threads = Executors.newFixedThreadPool(16);
+
+	@Before
+	public void setup() {
+		RestTemplate mockRestTemplate = new RestTemplate();
+		// operations run concurrently, so their requests may arrive in any order
+		mockServer = MockRestServiceServer.bindTo(mockRestTemplate).ignoreExpectOrder(true).build();
+		bulkExecutor = new FacebookBulkExecutor(new FacebookTemplateFactory("APP_ID", null, "APP_NAMESPACE", mockRestTemplate.getRequestFactory()));
+		bulkExecutor.setMaxConcurrency(2);
+		bulkExecutor.setExecutor(threads);
+	}
+
+	@After
+	public void shutdown() {
+		threads.shutdownNow();
+	}
+
+	@Test
+	public void execute() {
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me"))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth firstAccessToken"))
+			.andRespond(withSuccess(new ClassPathResource("full-profile.json", getClass()), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me"))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth secondAccessToken"))
+			.andRespond(withSuccess(new ClassPathResource("minimal-profile.json", getClass()), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me"))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth expiredAccessToken"))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(new ClassPathResource("error-190-tokenExpired.json", getClass())).contentType(MediaType.APPLICATION_JSON));
+
+		List<String> accessTokens = Arrays.asList("firstAccessToken", "secondAccessToken", "expiredAccessToken");
+		Map<String, BulkResult<User>> results = bulkExecutor.execute(accessTokens, facebook -> facebook.fetchObject("me", User.class))
+				.collect(Collectors.toMap(BulkResult::getAccessToken, Function.identity()));
+		mockServer.verify();
+
+		assertEquals(3, results.size());
+		assertFalse(results.get("firstAccessToken").isError());
+		assertEquals("Michael Craig Walls", results.get("firstAccessToken").get().getName());
+		assertFalse(results.get("secondAccessToken").isError());
+		assertEquals("123456789", results.get("secondAccessToken").get().getId());
+		assertTrue(results.get("expiredAccessToken").isError());
+		assertTrue(results.get("expiredAccessToken").getException() instanceof ExpiredAuthorizationException);
+		try {
+			results.get("expiredAccessToken").get();
+			fail("Expected ExpiredAuthorizationException");
+		} catch (ExpiredAuthorizationException e) {
+		}
+	}
+
+	@Test
+	public void execute_operationsPerToken() {
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me"))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess(new ClassPathResource("full-profile.json", getClass()), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me/feed"))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess(new ClassPathResource("feed.json", getClass()), MediaType.APPLICATION_JSON));
+
+		List<Map.Entry<String, Function<Facebook, Object>>> operations = Arrays.asList(
+				new SimpleImmutableEntry<String, Function<Facebook, Object>>("someAccessToken", facebook -> facebook.fetchObject("me", User.class)),
+				new SimpleImmutableEntry<String, Function<Facebook, Object>>("someAccessToken", facebook -> facebook.fetchConnections("me", "feed", Post.class)));
+		List<BulkResult<Object>> results = bulkExecutor.execute(operations).collect(Collectors.toList());
+		mockServer.verify();
+
+		assertEquals(2, results.size());
+		for (BulkResult<Object> result : results) {
+			assertEquals("someAccessToken", result.getAccessToken());
+			assertFalse(result.isError());
+			assertNotNull(result.get());
+		}
+	}
+
+	@Test
+	public void execute_maxConcurrency() {
+		bulkExecutor.setMaxConcurrency(3);
+		bulkExecutor.setMaxConcurrencyPerToken(10);
+		InFlight inFlight = new InFlight(3);
+		List<Map.Entry<String, Function<Facebook, Boolean>>> operations = new ArrayList<Map.Entry<String, Function<Facebook, Boolean>>>();
+		for (int i = 0; i < 12; i++) {
+			operations.add(inFlight.operation("accessToken" + i % 4));
+		}
+
+		List<BulkResult<Boolean>> results = bulkExecutor.execute(operations).collect(Collectors.toList());
+
+		assertEquals(12, results.size());
+		assertEquals(3, inFlight.peak.get());
+	}
+
+	@Test
+	public void execute_maxConcurrencyPerToken() {
+		bulkExecutor.setMaxConcurrency(8);
+		bulkExecutor.setMaxConcurrencyPerToken(2);
+		InFlight inFlight = new InFlight(4);
+		List<Map.Entry<String, Function<Facebook, Boolean>>> operations = new ArrayList<Map.Entry<String, Function<Facebook, Boolean>>>();
+		for (int i = 0; i < 12; i++) {
+			operations.add(inFlight.operation(i < 6 ? "firstAccessToken" : "secondAccessToken"));
+		}
+
+		List<BulkResult<Boolean>> results = bulkExecutor.execute(operations).collect(Collectors.toList());
+
+		assertEquals(12, results.size());
+		assertEquals(4, inFlight.peak.get());
+		assertEquals(2, inFlight.peakPerToken.get("firstAccessToken").get());
+		assertEquals(2, inFlight.peakPerToken.get("secondAccessToken").get());
+	}
+
+	@Test
+	public void execute_busyTokenDoesNotHoldUpOtherTokens() {
+		bulkExecutor.setMaxConcurrency(2);
+		bulkExecutor.setMaxConcurrencyPerToken(1);
+		CountDownLatch otherTokenStarted = new CountDownLatch(1);
+		Function<Facebook, Boolean> waitForOtherToken = facebook -> {
+			try {
+				return otherTokenStarted.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+		Function<Facebook, Boolean> startOtherToken = facebook -> {
+			otherTokenStarted.countDown();
+			return true;
+		};
+		// the operations still waiting for the busy token must not take the permit that the other token's operation needs
+		List<Map.Entry<String, Function<Facebook, Boolean>>> operations = Arrays.asList(
+				new SimpleImmutableEntry<String, Function<Facebook, Boolean>>("busyAccessToken", waitForOtherToken),
+				new SimpleImmutableEntry<String, Function<Facebook, Boolean>>("busyAccessToken", waitForOtherToken),
+				new SimpleImmutableEntry<String, Function<Facebook, Boolean>>("busyAccessToken", waitForOtherToken),
+				new SimpleImmutableEntry<String, Function<Facebook, Boolean>>("otherAccessToken", startOtherToken));
+
+		List<BulkResult<Boolean>> results = bulkExecutor.execute(operations).collect(Collectors.toList());
+
+		assertEquals(4, results.size());
+		for (BulkResult<Boolean> result : results) {
+			assertTrue(result.get());
+		}
+	}
+
+	@Test
+	public void execute_errorKeptAsCause() {
+		AssertionError error = new AssertionError("Operation failed");
+		List<BulkResult<Object>> results = bulkExecutor.execute(Arrays.asList("someAccessToken"), facebook -> {
+			throw error;
+		}).collect(Collectors.toList());
+
+		assertEquals(1, results.size());
+		assertTrue(results.get(0).isError());
+		assertSame(error, results.get(0).getException().getCause());
+	}
+
+	/**
+	 * Records the peak number of operations performed at once, in total and per access token.
+	 * Each operation waits (briefly) for the expected peak to be reached, so that the peak is reached if the limits allow it.
+	 */
+	private static class InFlight {
+
+		private final AtomicInteger current = new AtomicInteger();
+
+		private final AtomicInteger peak = new AtomicInteger();
+
+		private final ConcurrentMap<String, AtomicInteger> currentPerToken = new ConcurrentHashMap<String, AtomicInteger>();
+
+		private final ConcurrentMap<String, AtomicInteger> peakPerToken = new ConcurrentHashMap<String, AtomicInteger>();
+
+		private final CountDownLatch expectedPeakReached;
+
+		InFlight(int expectedPeak) {
+			this.expectedPeakReached = new CountDownLatch(expectedPeak);
+		}
+
+		Map.Entry<String, Function<Facebook, Boolean>> operation(String accessToken) {
+			return new SimpleImmutableEntry<String, Function<Facebook, Boolean>>(accessToken, facebook -> perform(accessToken));
+		}
+
+		private boolean perform(String accessToken) {
+			AtomicInteger tokenCurrent = currentPerToken.computeIfAbsent(accessToken, token -> new AtomicInteger());
+			AtomicInteger tokenPeak = peakPerToken.computeIfAbsent(accessToken, token -> new AtomicInteger());
+			peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+			tokenPeak.accumulateAndGet(tokenCurrent.incrementAndGet(), Math::max);
+			try {
+				expectedPeakReached.countDown();
+				return expectedPeakReached.await(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				tokenCurrent.decrementAndGet();
+				current.decrementAndGet();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.social.facebook.api.impl.FacebookTemplate;
+import org.springframework.social.facebook.api.impl.FacebookTemplateFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+public class FacebookTemplateFactoryTest {
+
+	@Test
+	public void createFacebookTemplate_sharesRequestFactory() {
+		RestTemplate mockRestTemplate = new RestTemplate();
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		FacebookTemplateFactory factory = new FacebookTemplateFactory("APP_ID", null, "APP_NAMESPACE", mockRestTemplate.getRequestFactory());
+
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me"))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth firstAccessToken"))
+			.andRespond(withSuccess(new ClassPathResource("full-profile.json", getClass()), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me"))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth secondAccessToken"))
+			.andRespond(withSuccess(new ClassPathResource("minimal-profile.json", getClass()), MediaType.APPLICATION_JSON));
+
+		FacebookTemplate first = factory.createFacebookTemplate("firstAccessToken");
+		FacebookTemplate second = factory.createFacebookTemplate("secondAccessToken");
+		assertEquals("123456789", first.fetchObject("me", User.class).getId());
+		assertEquals("123456789", second.fetchObject("me", User.class).getId());
+		assertEquals("APP_NAMESPACE", second.getApplicationNamespace());
+		mockServer.verify();
+	}
+
+	@Test
+	public void createFacebookTemplate_noRequestFactoryOfItsOwn() {
+		ClientHttpRequestFactory sharedRequestFactory = mock(ClientHttpRequestFactory.class);
+		FacebookTemplateFactory factory = new FacebookTemplateFactory("APP_ID", null, null, sharedRequestFactory);
+		FacebookTemplate facebook = factory.createFacebookTemplate("someAccessToken");
+		assertSame(sharedRequestFactory, innermostRequestFactory(facebook.getRestTemplate().getRequestFactory()));
+		for (Object requestFactory : fieldValues(facebook, ClientHttpRequestFactory.class)) {
+			assertSame(sharedRequestFactory, innermostRequestFactory((ClientHttpRequestFactory) requestFactory));
+		}
+		for (Object restTemplate : fieldValues(facebook, RestTemplate.class)) {
+			assertSame(sharedRequestFactory, innermostRequestFactory(((RestTemplate) restTemplate).getRequestFactory()));
+		}
+		verifyZeroInteractions(sharedRequestFactory);
+	}
+
+	@Test
+	public void createFacebookTemplate_apiVersion() {
+		FacebookTemplateFactory factory = new FacebookTemplateFactory("APP_ID", null, null);
+		factory.setApiVersion("2.9");
+		assertEquals("https://graph.facebook.com/v2.9/", factory.createFacebookTemplate("someAccessToken").getBaseGraphApiUrl());
+	}
+
+	@Test
+	public void facebookTemplatesShareObjectMapper() {
+		FacebookTemplate first = new FacebookTemplate("firstAccessToken");
+		FacebookTemplate second = new FacebookTemplate("secondAccessToken");
+		assertSame(jsonMessageConverter(first.getRestTemplate()).getObjectMapper(), jsonMessageConverter(second.getRestTemplate()).getObjectMapper());
+	}
+
+	// follows the decorators of a request factory down to the request factory they decorate
+	private ClientHttpRequestFactory innermostRequestFactory(ClientHttpRequestFactory requestFactory) {
+		List<Object> decorated = fieldValues(requestFactory, ClientHttpRequestFactory.class);
+		return decorated.isEmpty() ? requestFactory : innermostRequestFactory((ClientHttpRequestFactory) decorated.get(0));
+	}
+
+	private List<Object> fieldValues(Object object, Class<?> fieldType) {
+		List<Object> values = new ArrayList<Object>();
+		for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers()) && fieldType.isAssignableFrom(field.getType())) {
+					Object value = ReflectionTestUtils.getField(object, field.getName());
+					if (value != null) {
+						values.add(value);
+					}
+				}
+			}
+		}
+		return values;
+	}
+
+	private MappingJackson2HttpMessageConverter jsonMessageConverter(RestTemplate restTemplate) {
+		for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+			if (converter instanceof MappingJackson2HttpMessageConverter) {
+				return (MappingJackson2HttpMessageConverter) converter;
+			}
+		}
+		fail("No JSON message converter found");
+		return null;
+	}
+
+}
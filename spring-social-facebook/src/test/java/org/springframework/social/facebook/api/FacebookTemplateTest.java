@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.springframework.social.facebook.api.impl.FacebookTemplate;
+
+public class FacebookTemplateTest {
+
+	@Test
+	public void subApisCreatedOnce() {
+		FacebookTemplate facebook = new FacebookTemplate("someAccessToken");
+		assertSame(facebook.userOperations(), facebook.userOperations());
+		assertSame(facebook.feedOperations(), facebook.feedOperations());
+		assertSame(facebook.openGraphOperations(), facebook.openGraphOperations());
+		assertSame(facebook.openGraphOperations().musicActions(), facebook.openGraphOperations().musicActions());
+	}
+
+}
@@ -16,6 +16,7 @@
 package org.springframework.social.facebook.api;
 
 import static org.junit.Assert.*;
+import static org.springframework.social.facebook.api.Fields.*;
 import static org.springframework.http.HttpMethod.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
@@ -46,6 +47,30 @@ public class FeedTemplateTest extends AbstractFacebookApiTest {
 		assertFeedEntries(feed);
 	}
 
+	@Test
+	public void fetchConnections_withExpandedConnections() {
+		mockServer.expect(requestTo(fbUrl("me/feed?fields=id%2Cmessage%2Ccomments.limit%282%29.summary%28true%29%7Bfrom%2Cmessage%7D%2Clikes.summary%28true%29")))
+				.andExpect(method(GET))
+				.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess(jsonResource("feed-with-comments-and-likes"), MediaType.APPLICATION_JSON));
+		PagedList<Post> feed = facebook.fetchConnections("me", "feed", Post.class,
+				fields("id", "message", connection("comments").limit(2).summary(true).fields("from", "message"), connection("likes").summary(true)));
+		assertEquals(2, feed.size());
+		Post post = feed.get(0);
+		assertEquals("Hello world!", post.getMessage());
+		assertEquals(2, post.getComments().size());
+		assertEquals("Art Names", post.getComments().get(0).getFrom().getName());
+		assertEquals("The world says hello back", post.getComments().get(1).getMessage());
+		assertEquals(85, post.getComments().getTotalCount().intValue());
+		assertEquals("MgZDZD", post.getComments().getNextPage().getAfter());
+		assertEquals(1, post.getLikes().size());
+		assertEquals("Roy Clarkson", post.getLikes().get(0).getName());
+		assertEquals(19, post.getLikes().getTotalCount().intValue());
+		assertNull(feed.get(1).getComments());
+		assertNull(feed.get(1).getLikes());
+		assertFalse(post.getExtraData().containsKey("comments"));
+	}
+
 	@Test
 	public void getFeed_withPagedListParameters_since() {
 		mockServer.expect(requestTo(fbUrl("me/feed?limit=25&since=1360384019&fields=" + ALL_POST_FIELDS_STR)))
@@ -126,6 +151,19 @@ public class FeedTemplateTest extends AbstractFacebookApiTest {
 		assertStatuses(facebook.feedOperations().getStatuses("24680"));
 	}
 
+	@Test
+	public void getStatuses_typeOverridesPostField() {
+		mockServer.expect(requestTo(fbUrl("me/statuses?limit=25&fields=" + ALL_POST_FIELDS_STR)))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess("{\"data\":[{\"id\":\"1\",\"type\":\"photo\",\"message\":\"Hello\"}]}", MediaType.APPLICATION_JSON));
+		PagedList<Post> statuses = facebook.feedOperations().getStatuses();
+		assertEquals(1, statuses.size());
+		assertEquals(PostType.STATUS, statuses.get(0).getType());
+		assertEquals("Hello", statuses.get(0).getMessage());
+		assertFalse(statuses.get(0).getExtraData().containsKey("postType"));
+	}
+
 	@Test
 	public void getLinks_preOctober2012() {
 		mockServer.expect(requestTo(fbUrl("me/links?limit=25&fields=" + ALL_POST_FIELDS_STR)))
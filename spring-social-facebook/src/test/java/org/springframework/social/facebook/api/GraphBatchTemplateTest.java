@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.net.URLEncoder;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.ServerException;
+import org.springframework.social.UncategorizedApiException;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+public class GraphBatchTemplateTest extends AbstractFacebookApiTest {
+
+	@Test
+	public void execute() throws Exception {
+		String batch = "[" +
+				"{\"method\":\"GET\",\"relative_url\":\"me?fields=id%2Cname\"}," +
+				"{\"method\":\"GET\",\"relative_url\":\"me/likes?limit=2\"}," +
+				"{\"method\":\"POST\",\"relative_url\":\"me/feed\",\"body\":\"message=Hello+World\"}," +
+				"{\"method\":\"GET\",\"relative_url\":\"bogus\"}," +
+				"{\"method\":\"DELETE\",\"relative_url\":\"123456789_987654321\"}," +
+				"{\"method\":\"GET\",\"relative_url\":\"me/friends\"}" +
+				"]";
+		mockServer.expect(requestTo(fbUrl("")))
+			.andExpect(method(POST))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andExpect(content().string("batch=" + URLEncoder.encode(batch, "UTF-8") + "&include_headers=false"))
+			.andRespond(withSuccess(jsonResource("batch"), MediaType.APPLICATION_JSON));
+
+		GraphBatch graphBatch = facebook.batch();
+		BatchResult<User> user = graphBatch.fetchObject("me", User.class, "id", "name");
+		MultiValueMap<String, String> limit = new LinkedMultiValueMap<String, String>();
+		limit.set("limit", "2");
+		BatchResult<PagedList<Reference>> likes = graphBatch.fetchConnections("me", "likes", Reference.class, limit);
+		MultiValueMap<String, Object> data = new LinkedMultiValueMap<String, Object>();
+		data.set("message", "Hello World");
+		BatchResult<String> postId = graphBatch.publish("me", "feed", data);
+		BatchResult<User> bogus = graphBatch.fetchObject("bogus", User.class);
+		BatchResult<Void> deleted = graphBatch.delete("123456789_987654321");
+		BatchResult<PagedList<Reference>> friends = graphBatch.fetchConnections("me", "friends", Reference.class);
+		assertEquals(6, graphBatch.size());
+		assertFalse(user.isExecuted());
+
+		graphBatch.execute();
+		mockServer.verify();
+
+		assertEquals(0, graphBatch.size());
+		assertTrue(user.isExecuted());
+		assertFalse(user.isError());
+		assertEquals(200, user.getStatusCode().intValue());
+		assertEquals("123456789", user.get().getId());
+		assertEquals("Craig Walls", user.get().getName());
+
+		assertEquals(2, likes.get().size());
+		assertEquals("111", likes.get().get(0).getId());
+		assertEquals("Spring Social", likes.get().get(1).getName());
+		assertEquals("MjIy", likes.get().getNextPage().getAfter());
+
+		assertEquals("123456789_987654321", postId.get());
+
+		assertTrue(bogus.isError());
+		assertEquals(400, bogus.getStatusCode().intValue());
+		assertEquals(100, bogus.getError().getCode().intValue());
+		assertEquals("Unsupported get request.", bogus.getError().getMessage());
+		try {
+			bogus.get();
+			fail("Expected UncategorizedApiException");
+		} catch (UncategorizedApiException e) {
+			assertEquals("Unsupported get request.", e.getMessage());
+		}
+
+		assertFalse(deleted.isError());
+		assertNull(deleted.get());
+
+		assertTrue(friends.isExecuted());
+		assertTrue(friends.isError());
+		assertNull(friends.getStatusCode());
+	}
+
+	@Test
+	public void execute_splitsLargeBatches() throws Exception {
+		mockServer.expect(requestTo(fbUrl("")))
+			.andExpect(method(POST))
+			.andRespond(withSuccess(successResponses(GraphBatch.MAX_BATCH_SIZE), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("")))
+			.andExpect(method(POST))
+			.andRespond(withSuccess(successResponses(1), MediaType.APPLICATION_JSON));
+
+		GraphBatch graphBatch = facebook.batch();
+		BatchResult<Void> first = graphBatch.delete("1");
+		for (int i = 2; i <= GraphBatch.MAX_BATCH_SIZE; i++) {
+			graphBatch.delete(String.valueOf(i));
+		}
+		BatchResult<Void> last = graphBatch.delete("51");
+		graphBatch.execute();
+		mockServer.verify();
+
+		assertTrue(first.isExecuted());
+		assertFalse(first.isError());
+		assertTrue(last.isExecuted());
+		assertFalse(last.isError());
+	}
+
+	@Test
+	public void execute_failedChunkFailsRemainingResults() throws Exception {
+		mockServer.expect(requestTo(fbUrl("")))
+			.andExpect(method(POST))
+			.andRespond(withSuccess(successResponses(GraphBatch.MAX_BATCH_SIZE), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("")))
+			.andExpect(method(POST))
+			.andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+
+		GraphBatch graphBatch = facebook.batch();
+		BatchResult<Void> first = graphBatch.delete("1");
+		for (int i = 2; i <= GraphBatch.MAX_BATCH_SIZE * 2; i++) {
+			graphBatch.delete(String.valueOf(i));
+		}
+		BatchResult<Void> second = graphBatch.delete(String.valueOf(GraphBatch.MAX_BATCH_SIZE + 1));
+		BatchResult<Void> last = graphBatch.delete(String.valueOf(GraphBatch.MAX_BATCH_SIZE * 2 + 1));
+		try {
+			graphBatch.execute();
+			fail("Expected ServerException");
+		} catch (ServerException e) {
+			assertTrue(first.isExecuted());
+			assertFalse(first.isError());
+			// the failed chunk and the chunk after it, which is never sent
+			for (BatchResult<Void> result : Arrays.asList(second, last)) {
+				assertTrue(result.isExecuted());
+				assertTrue(result.isError());
+				try {
+					result.get();
+					fail("Expected ServerException");
+				} catch (ServerException expected) {
+					assertSame(e, expected);
+				}
+			}
+		}
+		mockServer.verify();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void get_notExecuted() {
+		facebook.batch().fetchObject("me", User.class).get();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void publish_binaryData() {
+		MultiValueMap<String, Object> data = new LinkedMultiValueMap<String, Object>();
+		data.set("source", new byte[] { 1, 2, 3 });
+		facebook.batch().publish("me", "photos", data);
+	}
+
+	private String successResponses(int count) {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			builder.append(i > 0 ? "," : "").append("{\"code\":200,\"body\":\"{\\\"success\\\":true}\"}");
+		}
+		return builder.append("]").toString();
+	}
+
+}
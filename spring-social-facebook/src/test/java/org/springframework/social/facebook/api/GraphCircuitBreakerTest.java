@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.ExpectedCount.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.ServerException;
+import org.springframework.social.facebook.api.impl.GraphCircuitBreaker;
+import org.springframework.social.facebook.api.impl.GraphCircuitBreaker.State;
+
+public class GraphCircuitBreakerTest extends AbstractFacebookApiTest {
+
+	private GraphCircuitBreaker circuitBreaker;
+
+	@Before
+	public void setupCircuitBreaker() {
+		circuitBreaker = new GraphCircuitBreaker();
+		circuitBreaker.setWindow(4, 2);
+		facebook.setCircuitBreaker(circuitBreaker);
+	}
+
+	@Test
+	public void fetchConnections_failingEndpointRejected() {
+		mockServer.expect(twice(), requestTo(fbUrl("me/feed")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		fetchFeedFailing();
+		assertEquals(State.CLOSED, circuitBreaker.getState("graph.facebook.com/feed"));
+		fetchFeedFailing();
+		assertEquals(State.OPEN, circuitBreaker.getState("graph.facebook.com/feed"));
+		try {
+			facebook.fetchConnections("me", "feed", Post.class);
+			fail("Expected CircuitBreakerOpenException");
+		} catch (CircuitBreakerOpenException e) {
+			assertEquals("graph.facebook.com/feed", e.getCircuit());
+		}
+		// other endpoints are unaffected
+		assertEquals("220817147947513", facebook.pageOperations().getPage("220817147947513").getId());
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchConnections_serviceErrorCountedAsFailure() {
+		// Facebook reports some service errors with a 400 status
+		mockServer.expect(twice(), requestTo(fbUrl("me/feed")))
+			.andExpect(method(GET))
+			.andRespond(withBadRequest().body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+
+		fetchFeedFailing();
+		fetchFeedFailing();
+		assertEquals(State.OPEN, circuitBreaker.getState("graph.facebook.com/feed"));
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_clientErrorNotCountedAsFailure() {
+		mockServer.expect(twice(), requestTo(fbUrl("bogus")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.NOT_FOUND).body(jsonResource("error-803-unknownAlias")).contentType(MediaType.APPLICATION_JSON));
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				facebook.fetchObject("bogus", Reference.class);
+				fail("Expected ResourceNotFoundException");
+			} catch (ResourceNotFoundException e) {
+				// expected
+			}
+		}
+		assertEquals(State.CLOSED, circuitBreaker.getState("graph.facebook.com/object"));
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchConnections_closedAfterSuccessfulTrial() {
+		circuitBreaker.setOpenDuration(Duration.ZERO);
+		mockServer.expect(twice(), requestTo(fbUrl("me/feed")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("me/feed")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("feed"), MediaType.APPLICATION_JSON));
+
+		fetchFeedFailing();
+		fetchFeedFailing();
+		assertEquals(State.OPEN, circuitBreaker.getState("graph.facebook.com/feed"));
+		facebook.fetchConnections("me", "feed", Post.class);
+		assertEquals(State.CLOSED, circuitBreaker.getState("graph.facebook.com/feed"));
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_slowEndpointRejected() {
+		circuitBreaker.setSlowCallThreshold(Duration.ZERO, 100);
+		mockServer.expect(twice(), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		facebook.pageOperations().getPage("220817147947513");
+		facebook.pageOperations().getPage("220817147947513");
+		assertEquals(State.OPEN, circuitBreaker.getState("graph.facebook.com/object"));
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected CircuitBreakerOpenException");
+		} catch (CircuitBreakerOpenException e) {
+			assertEquals("graph.facebook.com/object", e.getCircuit());
+		}
+		mockServer.verify();
+	}
+
+	private void fetchFeedFailing() {
+		try {
+			facebook.fetchConnections("me", "feed", Post.class);
+			fail("Expected ServerException");
+		} catch (ServerException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.ExpiredAuthorizationException;
+import org.springframework.social.facebook.api.impl.GraphMetrics;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GraphMetricsTest extends AbstractFacebookApiTest {
+
+	private MeterRegistry registry;
+
+	@Before
+	public void setupMetrics() {
+		registry = new SimpleMeterRegistry();
+		facebook.setMetrics(new GraphMetrics(registry));
+	}
+
+	@Test
+	public void fetchObject() {
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		assertEquals("220817147947513", facebook.fetchObject("220817147947513", Page.class).getId());
+		mockServer.verify();
+
+		Timer requests = registry.get("facebook.graph.requests")
+				.tags("operation", "fetchObject", "connection", "none", "status", "200", "error.code", "none", "error.subcode", "none", "exception", "none")
+				.timer();
+		assertEquals(1, requests.count());
+		DistributionSummary size = registry.get("facebook.graph.response.size").tags("operation", "fetchObject").summary();
+		assertEquals(1, size.count());
+		assertTrue(size.totalAmount() > 0);
+		assertEquals(1, registry.get("facebook.graph.binding").tags("operation", "fetchObject", "type", "Page").timer().count());
+	}
+
+	@Test
+	public void fetchConnections() {
+		mockServer.expect(requestTo(fbUrl("me/feed")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("feed"), MediaType.APPLICATION_JSON));
+
+		facebook.fetchConnections("me", "feed", Post.class);
+		mockServer.verify();
+
+		assertEquals(1, registry.get("facebook.graph.requests").tags("operation", "fetchConnections", "connection", "feed", "status", "200").timer().count());
+		assertEquals(1, registry.get("facebook.graph.binding").tags("operation", "fetchConnections", "type", "Post").timer().count());
+	}
+
+	@Test
+	public void fetchObject_errorCodes() {
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-190-tokenExpired")).contentType(MediaType.APPLICATION_JSON));
+
+		try {
+			facebook.fetchObject("me", User.class);
+			fail("Expected ExpiredAuthorizationException");
+		} catch (ExpiredAuthorizationException e) {
+			// the error handler still reads the error from the response
+			assertTrue(e.getMessage().startsWith("Error validating access token"));
+		}
+		mockServer.verify();
+
+		assertEquals(1, registry.get("facebook.graph.requests")
+				.tags("operation", "fetchObject", "status", "400", "error.code", "190", "error.subcode", "463", "exception", "none")
+				.timer().count());
+	}
+
+	@Test
+	public void fetchConnections_ioError() {
+		mockServer.expect(requestTo(fbUrl("me/feed")))
+			.andExpect(method(GET))
+			.andRespond(request -> {
+				throw new IOException("Connection reset");
+			});
+
+		try {
+			facebook.fetchConnections("me", "feed", Post.class);
+			fail("Expected ResourceAccessException");
+		} catch (ResourceAccessException e) {
+		}
+		mockServer.verify();
+
+		assertEquals(1, registry.get("facebook.graph.requests")
+				.tags("operation", "fetchConnections", "connection", "feed", "status", "none", "exception", "IOException")
+				.timer().count());
+	}
+
+	@Test
+	public void fetchImage() {
+		mockServer.expect(requestTo(fbUrl("me/picture?type=normal")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(new ClassPathResource("tinyrod.jpg", getClass()), MediaType.IMAGE_JPEG));
+
+		facebook.userOperations().getUserProfileImage();
+		mockServer.verify();
+
+		assertEquals(1, registry.get("facebook.graph.requests").tags("operation", "fetchImage", "connection", "picture", "status", "200").timer().count());
+	}
+
+	@Test
+	public void publishAndDelete() {
+		mockServer.expect(requestTo(fbUrl("me/feed")))
+			.andExpect(method(POST))
+			.andRespond(withSuccess("{\"id\":\"123456_78901234\"}", MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("123456_78901234")))
+			.andExpect(method(POST))
+			.andExpect(content().string("method=delete"))
+			.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+		MultiValueMap<String, Object> data = new LinkedMultiValueMap<String, Object>();
+		data.set("message", "Hello Facebook World");
+		assertEquals("123456_78901234", facebook.publish("me", "feed", data));
+		facebook.feedOperations().deletePost("123456_78901234");
+		mockServer.verify();
+
+		assertEquals(1, registry.get("facebook.graph.requests").tags("operation", "publish", "connection", "feed", "status", "200").timer().count());
+		assertEquals(1, registry.get("facebook.graph.requests").tags("operation", "delete", "connection", "none", "status", "200").timer().count());
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.facebook.api.impl.GraphRateLimiter;
+
+public class GraphRateLimiterTest extends AbstractFacebookApiTest {
+
+	@Test
+	public void fetchObject_recordsUtilization() {
+		GraphRateLimiter rateLimiter = new GraphRateLimiter();
+		facebook.setRateLimiter(rateLimiter);
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-App-Usage", "{\"call_count\":40,\"total_time\":55,\"total_cputime\":10}");
+		headers.set("X-Page-Usage", "{\"call_count\":20,\"total_time\":5,\"total_cputime\":5}");
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(headers));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		facebook.pageOperations().getPage("220817147947513");
+		assertEquals(55, rateLimiter.getUtilization());
+		assertEquals(20, rateLimiter.getUtilization("220817147947513"));
+		assertEquals(0, rateLimiter.getUtilization("someOtherPage"));
+		facebook.pageOperations().getPage("220817147947513");
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_throttledRequestDelayed() {
+		GraphRateLimiter rateLimiter = new GraphRateLimiter();
+		rateLimiter.setThrottleThreshold(50);
+		rateLimiter.setMaximumDelay(Duration.ofMillis(200));
+		facebook.setRateLimiter(rateLimiter);
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-App-Usage", "{\"call_count\":75,\"total_time\":10,\"total_cputime\":10}");
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(headers));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		facebook.pageOperations().getPage("220817147947513");
+		long start = System.nanoTime();
+		facebook.pageOperations().getPage("220817147947513");
+		assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_rejectedWhileThrottledByFacebook() {
+		GraphRateLimiter rateLimiter = new GraphRateLimiter();
+		facebook.setRateLimiter(rateLimiter);
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Business-Use-Case-Usage", "{\"220817147947513\":[{\"type\":\"pages\",\"call_count\":100,\"total_cputime\":14,\"total_time\":20,\"estimated_time_to_regain_access\":5}]}");
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(headers));
+
+		facebook.pageOperations().getPage("220817147947513");
+		assertEquals(100, rateLimiter.getUtilization("220817147947513"));
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected RateLimitExceededException");
+		} catch (RateLimitExceededException e) {
+			// the request is rejected without being sent
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_pageUsageAppliesOnlyToItsPage() {
+		GraphRateLimiter rateLimiter = new GraphRateLimiter();
+		facebook.setRateLimiter(rateLimiter);
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-Page-Usage", "{\"call_count\":100,\"total_time\":5,\"total_cputime\":5}");
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(headers));
+		mockServer.expect(requestTo(fbUrl("1234567890")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		facebook.pageOperations().getPage("220817147947513");
+		assertEquals(100, rateLimiter.getUtilization("220817147947513"));
+		assertEquals(0, rateLimiter.getUtilization("1234567890"));
+		facebook.pageOperations().getPage("1234567890");
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected RateLimitExceededException");
+		} catch (RateLimitExceededException e) {
+			// only requests to the page that reached its limit are rejected
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_businessUseCaseUsageKeptPerType() {
+		GraphRateLimiter rateLimiter = new GraphRateLimiter();
+		facebook.setRateLimiter(rateLimiter);
+		HttpHeaders pagesHeaders = new HttpHeaders();
+		pagesHeaders.set("X-Business-Use-Case-Usage", "{\"220817147947513\":[{\"type\":\"pages\",\"call_count\":100,\"total_cputime\":14,\"total_time\":20,\"estimated_time_to_regain_access\":5}]}");
+		HttpHeaders adsHeaders = new HttpHeaders();
+		adsHeaders.set("X-Business-Use-Case-Usage", "{\"220817147947513\":[{\"type\":\"ads_management\",\"call_count\":10,\"total_cputime\":1,\"total_time\":1,\"estimated_time_to_regain_access\":0}]}");
+		mockServer.expect(requestTo(fbUrl("1234567890")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(pagesHeaders));
+		mockServer.expect(requestTo(fbUrl("1234567890")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(adsHeaders));
+
+		facebook.pageOperations().getPage("1234567890");
+		facebook.pageOperations().getPage("1234567890");
+		assertEquals(0, rateLimiter.getUtilization("1234567890"));
+		// the later reading of another use case doesn't replace the throttled one
+		assertEquals(100, rateLimiter.getUtilization("220817147947513"));
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected RateLimitExceededException");
+		} catch (RateLimitExceededException e) {
+			// the request is rejected without being sent
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_malformedUsageIgnored() {
+		GraphRateLimiter rateLimiter = new GraphRateLimiter();
+		facebook.setRateLimiter(rateLimiter);
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-App-Usage", "not json");
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(headers));
+
+		facebook.pageOperations().getPage("220817147947513");
+		assertEquals(0, rateLimiter.getUtilization());
+		mockServer.verify();
+	}
+
+}
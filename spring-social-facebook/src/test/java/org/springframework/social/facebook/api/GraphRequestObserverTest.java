@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.facebook.api.impl.FacebookTemplate;
+import org.springframework.social.facebook.api.impl.GraphRetryPolicy;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+public class GraphRequestObserverTest {
+
+	private FacebookTemplate facebook;
+
+	private MockRestServiceServer mockServer;
+
+	private List<GraphRequestTimings> observed = new ArrayList<GraphRequestTimings>();
+
+	@Before
+	public void setup() {
+		// the request factory is decorated, rather than replaced, so that the network phases are timed
+		RestTemplate mockRestTemplate = new RestTemplate();
+		mockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		facebook = new FacebookTemplate("someAccessToken");
+		facebook.setRequestFactory(mockRestTemplate.getRequestFactory());
+		facebook.setRequestObserver(observed::add);
+	}
+
+	@Test
+	public void fetchObject() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("x-fb-trace-id", "GbtCu/xhc4O");
+		headers.set("x-fb-rev", "3426472");
+		headers.set("x-fb-debug", "xcvF5ObwXh2Q==");
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/220817147947513"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).headers(headers));
+
+		assertEquals("220817147947513", facebook.fetchObject("220817147947513", Page.class).getId());
+		mockServer.verify();
+
+		assertEquals(1, observed.size());
+		GraphRequestTimings timings = observed.get(0);
+		assertEquals(GET, timings.getMethod());
+		assertEquals("/v2.10/220817147947513", timings.getUri().getPath());
+		assertEquals(200, timings.getStatusCode().intValue());
+		assertNull(timings.getException());
+		assertEquals(1, timings.getAttempts());
+		assertNotNull(timings.getQueueTime());
+		assertNotNull(timings.getTimeToFirstByte());
+		assertNotNull(timings.getBindingTime());
+		// the mock transport doesn't report connection phases
+		assertNull(timings.getConnectionAcquireTime());
+		assertNull(timings.getConnectTime());
+		assertNull(timings.getTlsHandshakeTime());
+		assertTrue(timings.getTotalTime().compareTo(timings.getQueueTime().plus(timings.getTimeToFirstByte())) >= 0);
+		assertEquals("GbtCu/xhc4O", timings.getTraceId());
+		assertEquals("3426472", timings.getRevision());
+		assertEquals("xcvF5ObwXh2Q==", timings.getDebug());
+	}
+
+	@Test
+	public void fetchObject_errorResponse() {
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/bogus"))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.NOT_FOUND).body(jsonResource("error-803-unknownAlias")).contentType(MediaType.APPLICATION_JSON));
+
+		try {
+			facebook.fetchObject("bogus", User.class);
+			fail("Expected ResourceNotFoundException");
+		} catch (ResourceNotFoundException e) {
+		}
+		mockServer.verify();
+
+		assertEquals(1, observed.size());
+		GraphRequestTimings timings = observed.get(0);
+		assertEquals(404, timings.getStatusCode().intValue());
+		assertNull(timings.getException());
+		assertNotNull(timings.getTimeToFirstByte());
+		assertNull(timings.getBindingTime());
+	}
+
+	@Test
+	public void fetchConnections_ioError() {
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me/feed"))
+			.andExpect(method(GET))
+			.andRespond(request -> {
+				throw new IOException("Connection reset");
+			});
+
+		try {
+			facebook.fetchConnections("me", "feed", Post.class);
+			fail("Expected ResourceAccessException");
+		} catch (ResourceAccessException e) {
+		}
+		mockServer.verify();
+
+		assertEquals(1, observed.size());
+		GraphRequestTimings timings = observed.get(0);
+		assertNull(timings.getStatusCode());
+		assertTrue(timings.getException() instanceof IOException);
+		assertEquals(1, timings.getAttempts());
+		assertNull(timings.getTimeToFirstByte());
+	}
+
+	@Test
+	public void fetchConnections_retried() {
+		GraphRetryPolicy retryPolicy = new GraphRetryPolicy();
+		retryPolicy.setBackoff(Duration.ofMillis(1), 2, Duration.ofMillis(10));
+		facebook.setRetryPolicy(retryPolicy);
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me/feed"))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me/feed"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("feed"), MediaType.APPLICATION_JSON));
+
+		facebook.fetchConnections("me", "feed", Post.class);
+		mockServer.verify();
+
+		// a retried request is observed once
+		assertEquals(1, observed.size());
+		GraphRequestTimings timings = observed.get(0);
+		assertEquals(2, timings.getAttempts());
+		assertEquals(200, timings.getStatusCode().intValue());
+		assertNotNull(timings.getQueueTime());
+		assertNotNull(timings.getBindingTime());
+	}
+
+	@Test
+	public void failingObserver() {
+		facebook.setRequestObserver(timings -> {
+			throw new IllegalStateException("Observer failed");
+		});
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/220817147947513"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		assertEquals("220817147947513", facebook.fetchObject("220817147947513", Page.class).getId());
+		mockServer.verify();
+	}
+
+	private Resource jsonResource(String filename) {
+		return new ClassPathResource(filename + ".json", getClass());
+	}
+
+}
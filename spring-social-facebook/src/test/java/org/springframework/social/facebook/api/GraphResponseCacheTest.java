@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.social.facebook.api.impl.FacebookTemplate;
+import org.springframework.social.facebook.api.impl.FacebookTemplateFactory;
+import org.springframework.social.facebook.api.impl.InMemoryGraphResponseCache;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+public class GraphResponseCacheTest extends AbstractFacebookApiTest {
+
+	@Test
+	public void fetchObject_cached() {
+		InMemoryGraphResponseCache cache = new InMemoryGraphResponseCache(100, Duration.ofMinutes(5));
+		facebook.setResponseCache(cache);
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		Page page = facebook.pageOperations().getPage("220817147947513");
+		assertSame(page, facebook.pageOperations().getPage("220817147947513"));
+		mockServer.verify();
+		assertEquals(1, cache.getStatistics().getHitCount());
+		assertEquals(1, cache.getStatistics().getMissCount());
+		assertEquals(0.5, cache.getStatistics().getHitRate(), 0.0001);
+	}
+
+	@Test
+	public void fetchObject_queryParameterOrderIgnored() {
+		facebook.setResponseCache(new InMemoryGraphResponseCache(100, Duration.ofMinutes(5)));
+		mockServer.expect(requestTo(fbUrl("me?fields=id%2Cname&locale=en_US")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON));
+
+		MultiValueMap<String, String> first = new LinkedMultiValueMap<String, String>();
+		first.set("fields", "id,name");
+		first.set("locale", "en_US");
+		MultiValueMap<String, String> second = new LinkedMultiValueMap<String, String>();
+		second.set("locale", "en_US");
+		second.set("fields", "id,name");
+		assertEquals("123456789", facebook.fetchObject("me", User.class, first).getId());
+		assertEquals("123456789", facebook.fetchObject("me", User.class, second).getId());
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchConnections_cached() {
+		facebook.setResponseCache(new InMemoryGraphResponseCache(100, Duration.ofMinutes(5)));
+		mockServer.expect(requestTo(fbUrl("me/friends")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("user-references"), MediaType.APPLICATION_JSON));
+
+		PagedList<Reference> friends = facebook.fetchConnections("me", "friends", Reference.class);
+		assertSame(friends, facebook.fetchConnections("me", "friends", Reference.class));
+		mockServer.verify();
+	}
+
+	@Test
+	public void timeToLivePerType() {
+		InMemoryGraphResponseCache cache = new InMemoryGraphResponseCache(100, Duration.ofMinutes(5));
+		cache.setTimeToLive(User.class, Duration.ZERO);
+		facebook.setResponseCache(cache);
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON));
+
+		facebook.fetchObject("me", User.class);
+		facebook.fetchObject("me", User.class);
+		mockServer.verify();
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getStatistics().getMissCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedEvicted() {
+		InMemoryGraphResponseCache cache = new InMemoryGraphResponseCache(1, Duration.ofMinutes(5));
+		facebook.setResponseCache(cache);
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON));
+
+		facebook.fetchObject("me", User.class);
+		facebook.fetchObject("220817147947513", Page.class);
+		facebook.fetchObject("me", User.class);
+		mockServer.verify();
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getStatistics().getEvictionCount());
+	}
+
+	@Test
+	public void cacheScopedByAccessToken() {
+		RestTemplate mockRestTemplate = new RestTemplate();
+		MockRestServiceServer sharedMockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		FacebookTemplateFactory factory = new FacebookTemplateFactory("APP_ID", null, "APP_NAMESPACE", mockRestTemplate.getRequestFactory());
+		factory.setResponseCache(new InMemoryGraphResponseCache(100, Duration.ofMinutes(5)));
+		sharedMockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(header("Authorization", "OAuth firstAccessToken"))
+			.andRespond(withSuccess(jsonResource("full-profile"), MediaType.APPLICATION_JSON));
+		sharedMockServer.expect(requestTo(fbUrl("me")))
+			.andExpect(header("Authorization", "OAuth secondAccessToken"))
+			.andRespond(withSuccess(jsonResource("minimal-profile"), MediaType.APPLICATION_JSON));
+
+		FacebookTemplate first = factory.createFacebookTemplate("firstAccessToken");
+		FacebookTemplate second = factory.createFacebookTemplate("secondAccessToken");
+		User firstUser = first.fetchObject("me", User.class);
+		User secondUser = second.fetchObject("me", User.class);
+		assertNotSame(firstUser, secondUser);
+		assertSame(firstUser, factory.createFacebookTemplate("firstAccessToken").fetchObject("me", User.class));
+		sharedMockServer.verify();
+	}
+
+}
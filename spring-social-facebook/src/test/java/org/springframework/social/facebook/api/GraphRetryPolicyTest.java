@@ -0,0 +1,220 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.ExpectedCount.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.ServerException;
+import org.springframework.social.facebook.api.impl.GraphCircuitBreaker;
+import org.springframework.social.facebook.api.impl.GraphRateLimiter;
+import org.springframework.social.facebook.api.impl.GraphRetryPolicy;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
+
+public class GraphRetryPolicyTest extends AbstractFacebookApiTest {
+
+	private GraphRetryPolicy retryPolicy;
+
+	@Before
+	public void setupRetryPolicy() {
+		retryPolicy = new GraphRetryPolicy();
+		retryPolicy.setBackoff(Duration.ofMillis(1), 2, Duration.ofMillis(10));
+		facebook.setRetryPolicy(retryPolicy);
+	}
+
+	@Test
+	public void fetchObject_serviceErrorRetried() {
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		Page page = facebook.pageOperations().getPage("220817147947513");
+		assertEquals("220817147947513", page.getId());
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_tooManyCallsAndServerErrorRetried() {
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.FORBIDDEN).body(jsonResource("error-4-tooManyCalls")).contentType(MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_GATEWAY));
+		mockServer.expect(requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		assertEquals("220817147947513", facebook.pageOperations().getPage("220817147947513").getId());
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_attemptsCapped() {
+		mockServer.expect(times(3), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected ServerException");
+		} catch (ServerException e) {
+			assertEquals("Service temporarily unavailable", e.getMessage());
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_retryBudgetExhausted() {
+		retryPolicy.setRetryBudget(4, 0.1);
+		mockServer.expect(times(3), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected ServerException");
+		} catch (ServerException e) {
+			// retried once before the budget ran low
+		}
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected ServerException");
+		} catch (ServerException e) {
+			// not retried at all
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_tooManyCallsNotRetriedWhileThrottled() {
+		facebook.setRateLimiter(new GraphRateLimiter());
+		facebook.setCircuitBreaker(new GraphCircuitBreaker());
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("X-App-Usage", "{\"call_count\":100,\"total_time\":25,\"total_cputime\":25}");
+		mockServer.expect(once(), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.FORBIDDEN).body(jsonResource("error-4-tooManyCalls")).contentType(MediaType.APPLICATION_JSON).headers(headers));
+
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected RateLimitExceededException");
+		} catch (RateLimitExceededException e) {
+			// the retry is rejected by the rate limiter without being sent
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_everyAttemptCountedByCircuitBreaker() {
+		GraphCircuitBreaker circuitBreaker = new GraphCircuitBreaker();
+		circuitBreaker.setWindow(2, 2);
+		circuitBreaker.setFailureRateThreshold(100);
+		facebook.setRateLimiter(new GraphRateLimiter());
+		facebook.setCircuitBreaker(circuitBreaker);
+		mockServer.expect(times(2), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-2-serviceUnavailable")).contentType(MediaType.APPLICATION_JSON));
+
+		try {
+			facebook.pageOperations().getPage("220817147947513");
+			fail("Expected CircuitBreakerOpenException");
+		} catch (CircuitBreakerOpenException e) {
+			// the circuit opened on the second failed attempt, so the third attempt is rejected without being sent
+		}
+		assertEquals(GraphCircuitBreaker.State.OPEN, circuitBreaker.getState("graph.facebook.com/object"));
+		mockServer.verify();
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void fetchObject_clientErrorNotRetried() {
+		mockServer.expect(once(), requestTo(fbUrl("bogus")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.NOT_FOUND).body(jsonResource("error-803-unknownAlias")).contentType(MediaType.APPLICATION_JSON));
+
+		facebook.fetchObject("bogus", Reference.class);
+	}
+
+	@Test
+	public void delete_ioErrorRetried() {
+		mockServer.expect(requestTo(fbUrl("123456_78901234")))
+			.andExpect(method(POST))
+			.andExpect(content().string("method=delete"))
+			.andRespond(request -> { throw new SocketTimeoutException(); });
+		mockServer.expect(requestTo(fbUrl("123456_78901234")))
+			.andExpect(method(POST))
+			.andExpect(content().string("method=delete"))
+			.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+		facebook.delete("123456_78901234");
+		mockServer.verify();
+	}
+
+	@Test
+	public void publish_notRetried() {
+		mockServer.expect(once(), requestTo(fbUrl("123456789/feed")))
+			.andExpect(method(POST))
+			.andRespond(request -> { throw new SocketTimeoutException(); });
+
+		MultiValueMap<String, Object> data = new LinkedMultiValueMap<String, Object>();
+		data.set("message", "Hello");
+		try {
+			facebook.publish("123456789", "feed", data);
+			fail("Expected ResourceAccessException");
+		} catch (ResourceAccessException e) {
+			assertTrue(e.getCause() instanceof SocketTimeoutException);
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void publish_multipartWithMethodPartNotRetried() {
+		mockServer.expect(once(), requestTo(fbUrl("123456789/photos")))
+			.andExpect(method(POST))
+			.andRespond(request -> { throw new SocketTimeoutException(); });
+
+		MultiValueMap<String, Object> data = new LinkedMultiValueMap<String, Object>();
+		data.set("method", "delete");
+		data.set("source", new ClassPathResource("tinyrod.jpg", getClass()));
+		try {
+			facebook.publish("123456789", "photos", data);
+			fail("Expected ResourceAccessException");
+		} catch (ResourceAccessException e) {
+			// only form-encoded bodies are taken to be deletions
+		}
+		mockServer.verify();
+	}
+
+}
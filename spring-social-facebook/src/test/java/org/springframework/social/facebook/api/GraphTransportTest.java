@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.time.Duration;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.social.facebook.api.impl.GraphTransport;
+import org.springframework.social.facebook.connect.FacebookServiceProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+public class GraphTransportTest {
+
+	@Test
+	public void createRequestFactory_pooledWhenHttpClientPresent() throws Exception {
+		GraphTransport transport = new GraphTransport();
+		transport.setMaxConnections(100, 20);
+		transport.setConnectTimeout(Duration.ofSeconds(2));
+		transport.setReadTimeout(Duration.ofSeconds(10));
+		transport.setConnectionRequestTimeout(Duration.ofSeconds(1));
+		transport.setKeepAlive(Duration.ofSeconds(30));
+		ClientHttpRequestFactory requestFactory = transport.createRequestFactory();
+		assertTrue(requestFactory instanceof HttpComponentsClientHttpRequestFactory);
+		HttpComponentsClientHttpRequestFactory pooledRequestFactory = (HttpComponentsClientHttpRequestFactory) requestFactory;
+		try {
+			PoolingHttpClientConnectionManager connectionManager =
+					(PoolingHttpClientConnectionManager) ReflectionTestUtils.getField(pooledRequestFactory.getHttpClient(), "connManager");
+			assertEquals(100, connectionManager.getMaxTotal());
+			assertEquals(20, connectionManager.getDefaultMaxPerRoute());
+			RequestConfig requestConfig = (RequestConfig) ReflectionTestUtils.getField(pooledRequestFactory, "requestConfig");
+			assertEquals(2000, requestConfig.getConnectTimeout());
+			assertEquals(10000, requestConfig.getSocketTimeout());
+			assertEquals(1000, requestConfig.getConnectionRequestTimeout());
+		} finally {
+			pooledRequestFactory.destroy();
+		}
+	}
+
+	@Test
+	public void createRequestFactory_defaults() throws Exception {
+		HttpComponentsClientHttpRequestFactory requestFactory = (HttpComponentsClientHttpRequestFactory) new GraphTransport().createRequestFactory();
+		try {
+			PoolingHttpClientConnectionManager connectionManager =
+					(PoolingHttpClientConnectionManager) ReflectionTestUtils.getField(requestFactory.getHttpClient(), "connManager");
+			assertEquals(200, connectionManager.getMaxTotal());
+			assertEquals(50, connectionManager.getDefaultMaxPerRoute());
+			RequestConfig requestConfig = (RequestConfig) ReflectionTestUtils.getField(requestFactory, "requestConfig");
+			assertEquals(5000, requestConfig.getConnectTimeout());
+			assertEquals(30000, requestConfig.getSocketTimeout());
+			assertEquals(5000, requestConfig.getConnectionRequestTimeout());
+		} finally {
+			requestFactory.destroy();
+		}
+	}
+
+	@Test
+	public void facebookServiceProvider_usesRequestFactory() {
+		RestTemplate mockRestTemplate = new RestTemplate();
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		FacebookServiceProvider serviceProvider = new FacebookServiceProvider("APP_ID", "APP_SECRET", "APP_NAMESPACE", mockRestTemplate.getRequestFactory());
+
+		mockServer.expect(requestTo(startsWith("https://graph.facebook.com/v2.10/me?appsecret_proof=")))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess(new ClassPathResource("minimal-profile.json", getClass()), MediaType.APPLICATION_JSON));
+
+		assertEquals("123456789", serviceProvider.getApi("someAccessToken").fetchObject("me", User.class).getId());
+		mockServer.verify();
+	}
+
+}
@@ -20,6 +20,8 @@ import static org.springframework.http.HttpMethod.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +30,7 @@ import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.social.facebook.api.Page.PriceRange;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Craig Walls
@@ -77,6 +80,40 @@ public class PageTemplateTest extends AbstractFacebookApiTest {
 		assertEquals("13:00", page.getHours().get("sun_1_close"));
 	}
 
+	@Test
+	public void getPages() {
+		mockServer.expect(requestTo(fbUrl("?ids=220817147947513%2C140804655931206")))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess(jsonResource("pages-by-id"), MediaType.APPLICATION_JSON));
+
+		Map<String, Page> pages = facebook.pageOperations().getPages(Arrays.asList("220817147947513", "140804655931206"));
+		assertEquals(2, pages.size());
+		assertEquals("Denton Square Donuts", pages.get("220817147947513").getName());
+		assertEquals("Restaurant/cafe", pages.get("220817147947513").getCategory());
+		assertEquals("Spring Social", pages.get("140804655931206").getName());
+	}
+
+	@Test
+	public void getPages_splitsIdsAcrossRequests() {
+		List<String> pageIds = new ArrayList<String>();
+		for (int i = 1; i <= GraphApi.MAX_OBJECTS_PER_REQUEST + 1; i++) {
+			pageIds.add(String.valueOf(i));
+		}
+		mockServer.expect(requestTo(fbUrl("?ids=" + StringUtils.collectionToDelimitedString(pageIds.subList(0, GraphApi.MAX_OBJECTS_PER_REQUEST), "%2C"))))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(pagesById(pageIds.subList(0, GraphApi.MAX_OBJECTS_PER_REQUEST)), MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(fbUrl("?ids=51")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(pagesById(pageIds.subList(GraphApi.MAX_OBJECTS_PER_REQUEST, pageIds.size())), MediaType.APPLICATION_JSON));
+
+		Map<String, Page> pages = facebook.pageOperations().getPages(pageIds);
+		mockServer.verify();
+		assertEquals(51, pages.size());
+		assertEquals("Page 1", pages.get("1").getName());
+		assertEquals("Page 51", pages.get("51").getName());
+	}
+
 	@Test
 	public void getPage_application() {
 		mockServer.expect(requestTo(fbUrl("140372495981006")))
@@ -317,4 +354,12 @@ public class PageTemplateTest extends AbstractFacebookApiTest {
 		return video;
 	}
 
+	private String pagesById(List<String> pageIds) {
+		StringBuilder builder = new StringBuilder("{");
+		for (String pageId : pageIds) {
+			builder.append(builder.length() > 1 ? "," : "").append("\"" + pageId + "\":{\"id\":\"" + pageId + "\",\"name\":\"Page " + pageId + "\"}");
+		}
+		return builder.append("}").toString();
+	}
+
 }
@@ -15,13 +15,20 @@
  */
 package org.springframework.social.facebook.api;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Test;
 
 import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
@@ -98,6 +105,78 @@ public class PagedListTest extends AbstractFacebookApiTest {
 		assertEquals(0, feedsPreviousPage1.size());
 	}
 
+	@Test
+	public void streamConnections() {
+		expectFeedPage("me/feed?limit=2", "feedPage1");
+		expectFeedPage("100001387295207/feed?format=json&limit=2&access_token=fakeToken&__paging_token=fakePage2Token", "feedPage2");
+		expectFeedPage("100001387295207/feed?format=json&limit=2&access_token=fakeToken&__paging_token=fakePage3Token", "feedPage3");
+		expectFeedPage("100001387295207/feed?format=json&limit=2&access_token=fakeToken&__paging_token=fakePage4Token", "emptyFeed");
+		facebook.setPrefetchExecutor(Runnable::run);
+
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		queryParameters.set("limit", "2");
+		try (Stream<Post> stream = facebook.streamConnections("me", "feed", Post.class, queryParameters)) {
+			List<Post> feed = stream.collect(Collectors.toList());
+			assertEquals(5, feed.size());
+			assertFeedEntriesPage1(feed.subList(0, 2));
+			assertFeedEntriesPage2(feed.subList(2, 4));
+			assertFeedEntriesPage3(feed.subList(4, 5));
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void streamConnections_iterator() {
+		expectFeedPage("me/feed?limit=2", "feedPage1");
+		expectFeedPage("100001387295207/feed?format=json&limit=2&access_token=fakeToken&__paging_token=fakePage2Token", "feedPage2");
+		facebook.setPrefetchExecutor(Runnable::run);
+
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		queryParameters.set("limit", "2");
+		Stream<Post> stream = facebook.streamConnections("me", "feed", Post.class, queryParameters);
+		Iterator<Post> iterator = stream.iterator();
+		assertEquals("100001387295207_160065090716400", iterator.next().getId());
+		assertEquals("100001387295207_160064384049804", iterator.next().getId());
+		// only the page after the current one has been prefetched
+		mockServer.verify();
+		stream.close();
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void fetchConnections_pagingBeforeData() {
+		mockServer.expect(requestTo(fbUrl("me/friends")))
+				.andExpect(method(GET))
+				.andExpect(header("Authorization", "OAuth someAccessToken"))
+				.andRespond(withSuccess("{\"summary\":{\"total_count\":3},\"unknown\":{\"data\":[1]}," +
+						"\"paging\":{\"next\":\"https://graph.facebook.com/v2.10/me/friends?limit=2&after=QVFI\"}," +
+						"\"data\":[{\"id\":\"1\",\"name\":\"One\"},{\"id\":\"2\",\"name\":\"Two\"}]}", MediaType.APPLICATION_JSON));
+		PagedList<Reference> friends = facebook.fetchConnections("me", "friends", Reference.class);
+		assertEquals(2, friends.size());
+		assertEquals("2", friends.get(1).getId());
+		assertEquals(3, friends.getTotalCount().intValue());
+		assertEquals("QVFI", friends.getNextPage().getAfter());
+		assertEquals(2, friends.getNextPage().getLimit().intValue());
+	}
+
+	@Test
+	public void fetchConnections_noData() {
+		mockServer.expect(requestTo(fbUrl("me/friends")))
+				.andExpect(method(GET))
+				.andExpect(header("Authorization", "OAuth someAccessToken"))
+				.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+		PagedList<Reference> friends = facebook.fetchConnections("me", "friends", Reference.class);
+		assertEquals(0, friends.size());
+		assertNull(friends.getNextPage());
+	}
+
+	private void expectFeedPage(String path, String resource) {
+		mockServer.expect(requestTo(fbUrl(path)))
+				.andExpect(method(GET))
+				.andExpect(header("Authorization", "OAuth someAccessToken"))
+				.andRespond(withSuccess(jsonResource(resource), MediaType.APPLICATION_JSON));
+	}
+
 	private void assertFeedEntriesPage1(List<Post> feed) {
 		assertEquals("100001387295207_160065090716400", feed.get(0).getId());
 		assertEquals("100001387295207_160064384049804", feed.get(1).getId());
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.InsufficientPermissionException;
+import org.springframework.social.facebook.api.impl.ReactiveGraphTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import reactor.core.scheduler.Schedulers;
+
+public class ReactiveGraphTemplateTest extends AbstractFacebookApiTest {
+
+	private static final String NEXT_PAGE_URL = "100001387295207/feed?format=json&limit=2&access_token=fakeToken&__paging_token=";
+
+	@Test
+	public void fetchConnections() {
+		expectFeedPage("me/feed?limit=2", "feedPage1");
+		expectFeedPage(NEXT_PAGE_URL + "fakePage2Token", "feedPage2");
+		expectFeedPage(NEXT_PAGE_URL + "fakePage3Token", "feedPage3");
+		expectFeedPage(NEXT_PAGE_URL + "fakePage4Token", "emptyFeed");
+
+		ReactiveGraphApi reactive = new ReactiveGraphTemplate(facebook, Schedulers.immediate(), 1);
+		List<Post> posts = reactive.fetchConnections("me", "feed", Post.class, limit(2)).collectList().block();
+		mockServer.verify();
+
+		assertEquals(5, posts.size());
+		assertEquals("100001387295207_160065090716400", posts.get(0).getId());
+		assertEquals("100001387295207_160064384049804", posts.get(1).getId());
+		assertEquals("100001387295207_153453231377586", posts.get(2).getId());
+		assertEquals("100001387295207_189394164450159", posts.get(3).getId());
+		assertEquals("100001387295207_189396471116595", posts.get(4).getId());
+	}
+
+	@Test
+	public void fetchPages() {
+		expectFeedPage("me/feed?limit=2", "feedPage1");
+		expectFeedPage(NEXT_PAGE_URL + "fakePage2Token", "feedPage2");
+		expectFeedPage(NEXT_PAGE_URL + "fakePage3Token", "feedPage3");
+		expectFeedPage(NEXT_PAGE_URL + "fakePage4Token", "emptyFeed");
+
+		ReactiveGraphApi reactive = new ReactiveGraphTemplate(facebook, Schedulers.immediate(), 1);
+		List<PagedList<Post>> pages = reactive.fetchPages("me", "feed", Post.class, limit(2)).collectList().block();
+		mockServer.verify();
+
+		assertEquals(3, pages.size());
+		assertEquals(2, pages.get(0).size());
+		assertEquals(2, pages.get(1).size());
+		assertEquals(1, pages.get(2).size());
+	}
+
+	@Test
+	public void fetchPages_onlyRequestsDemandedPages() {
+		expectFeedPage("me/feed?limit=2", "feedPage1");
+
+		ReactiveGraphApi reactive = new ReactiveGraphTemplate(facebook, Schedulers.immediate(), 0);
+		PagedList<Post> page = reactive.fetchPages("me", "feed", Post.class, limit(2)).blockFirst();
+		mockServer.verify();
+
+		assertEquals(2, page.size());
+	}
+
+	@Test(expected = InsufficientPermissionException.class)
+	public void fetchConnections_error() {
+		expectFeedPage("me/feed?limit=2", "feedPage1");
+		mockServer.expect(requestTo(fbUrl(NEXT_PAGE_URL + "fakePage2Token")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.BAD_REQUEST).body(jsonResource("error-10-permissionDenied")).contentType(MediaType.APPLICATION_JSON));
+
+		new ReactiveGraphTemplate(facebook, Schedulers.immediate(), 1).fetchConnections("me", "feed", Post.class, limit(2)).collectList().block();
+	}
+
+	private void expectFeedPage(String path, String resource) {
+		mockServer.expect(requestTo(fbUrl(path)))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess(jsonResource(resource), MediaType.APPLICATION_JSON));
+	}
+
+	private MultiValueMap<String, String> limit(int limit) {
+		MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<String, String>();
+		queryParameters.set("limit", String.valueOf(limit));
+		return queryParameters;
+	}
+
+}
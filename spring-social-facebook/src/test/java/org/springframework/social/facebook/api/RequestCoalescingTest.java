@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.ExpectedCount.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.social.facebook.api.impl.FacebookTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+public class RequestCoalescingTest extends AbstractFacebookApiTest {
+
+	@Override
+	protected FacebookTemplate createFacebookTemplate() {
+		FacebookTemplate facebook = super.createFacebookTemplate();
+		facebook.setCoalesceRequests(true);
+		return facebook;
+	}
+
+	@Test
+	public void fetchObject_concurrentIdenticalRequestsCoalesced() throws Exception {
+		CountDownLatch requestSent = new CountDownLatch(1);
+		CountDownLatch responseReleased = new CountDownLatch(1);
+		mockServer.expect(once(), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(request -> {
+				requestSent.countDown();
+				try {
+					responseReleased.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).createResponse(request);
+			});
+		// a second template for the same user, as when a template is created per web request
+		FacebookTemplate otherFacebook = createFacebookTemplate();
+		MockRestServiceServer otherMockServer = MockRestServiceServer.createServer(otherFacebook.getRestTemplate());
+
+		FutureTask<Page> first = new FutureTask<Page>(() -> facebook.pageOperations().getPage("220817147947513"));
+		start(first);
+		assertTrue(requestSent.await(5, TimeUnit.SECONDS));
+		FutureTask<Page> second = new FutureTask<Page>(() -> otherFacebook.pageOperations().getPage("220817147947513"));
+		awaitWaiting(start(second));
+		responseReleased.countDown();
+
+		Page page = first.get(5, TimeUnit.SECONDS);
+		assertEquals("220817147947513", page.getId());
+		assertSame(page, second.get(5, TimeUnit.SECONDS));
+		mockServer.verify();
+		otherMockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_completedRequestsNotRemembered() {
+		mockServer.expect(twice(), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON));
+
+		Page page = facebook.pageOperations().getPage("220817147947513");
+		assertNotSame(page, facebook.pageOperations().getPage("220817147947513"));
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_notCoalescedByDefault() throws Exception {
+		FacebookTemplate facebook = new FacebookTemplate(ACCESS_TOKEN);
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(facebook.getRestTemplate());
+		FacebookTemplate otherFacebook = new FacebookTemplate(ACCESS_TOKEN);
+		MockRestServiceServer otherMockServer = MockRestServiceServer.createServer(otherFacebook.getRestTemplate());
+		CountDownLatch requestSent = new CountDownLatch(1);
+		CountDownLatch otherRequestSent = new CountDownLatch(1);
+		// the first response is held back until the identical second request has been sent
+		mockServer.expect(once(), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(request -> {
+				requestSent.countDown();
+				try {
+					otherRequestSent.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).createResponse(request);
+			});
+		otherMockServer.expect(once(), requestTo(fbUrl("220817147947513")))
+			.andExpect(method(GET))
+			.andRespond(request -> {
+				otherRequestSent.countDown();
+				return withSuccess(jsonResource("place-with-hours-page"), MediaType.APPLICATION_JSON).createResponse(request);
+			});
+
+		FutureTask<Page> first = new FutureTask<Page>(() -> facebook.pageOperations().getPage("220817147947513"));
+		start(first);
+		assertTrue(requestSent.await(5, TimeUnit.SECONDS));
+		Page otherPage = otherFacebook.pageOperations().getPage("220817147947513");
+
+		assertNotSame(otherPage, first.get(5, TimeUnit.SECONDS));
+		mockServer.verify();
+		otherMockServer.verify();
+	}
+
+	private Thread start(Runnable task) {
+		Thread thread = new Thread(task);
+		thread.start();
+		return thread;
+	}
+
+	private void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(Thread.State.WAITING, thread.getState());
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.facebook.api.impl.FacebookTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+public class ResponseBufferingTest {
+
+	private static final String PROFILE = "{\"id\":\"12345\",\"name\":\"Craig Walls\"}";
+
+	private FacebookTemplate facebook;
+
+	private MockRestServiceServer mockServer;
+
+	private List<ClientHttpResponse> responses = new ArrayList<ClientHttpResponse>();
+
+	@Before
+	public void setup() {
+		// the request factory is decorated, rather than replaced, so that responses pass through the buffering decorations
+		RestTemplate mockRestTemplate = new RestTemplate();
+		mockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		facebook = new FacebookTemplate("someAccessToken");
+		facebook.setRequestFactory(mockRestTemplate.getRequestFactory());
+	}
+
+	@Test
+	public void successResponse_streamed() throws IOException {
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/12345"))
+			.andExpect(method(GET))
+			.andRespond(recorded(withSuccess(PROFILE, MediaType.APPLICATION_JSON)));
+
+		ClientHttpResponse response = execute("https://graph.facebook.com/v2.10/12345");
+		// the body is read straight from the underlying response, not from a copy of it
+		assertSame(responses.get(0).getBody(), response.getBody());
+		assertEquals(PROFILE, StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+		mockServer.verify();
+	}
+
+	@Test
+	public void successResponse_bound() {
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/12345"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(PROFILE, MediaType.APPLICATION_JSON));
+
+		Reference reference = facebook.fetchObject("12345", Reference.class);
+		assertEquals("Craig Walls", reference.getName());
+		mockServer.verify();
+	}
+
+	@Test
+	public void errorResponse_readRepeatedly() throws IOException {
+		String error = jsonResource("error-803-unknownAlias");
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/bogus"))
+			.andExpect(method(GET))
+			.andRespond(recorded(withStatus(HttpStatus.NOT_FOUND).body(error).contentType(MediaType.APPLICATION_JSON)));
+
+		ClientHttpResponse response = execute("https://graph.facebook.com/v2.10/bogus");
+		assertEquals(error, StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+		assertEquals(error, StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+		mockServer.verify();
+	}
+
+	@Test
+	public void errorResponse_translated() {
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/bogus"))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.NOT_FOUND).body(jsonResource("error-803-unknownAlias")).contentType(MediaType.APPLICATION_JSON));
+
+		try {
+			facebook.fetchObject("bogus", Reference.class);
+			fail("Expected ResourceNotFoundException");
+		} catch (ResourceNotFoundException e) {
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void bufferAllResponses() throws IOException {
+		facebook.setBufferAllResponses(true);
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/12345"))
+			.andExpect(method(GET))
+			.andRespond(recorded(withSuccess(PROFILE, MediaType.APPLICATION_JSON)));
+
+		ClientHttpResponse response = execute("https://graph.facebook.com/v2.10/12345");
+		assertNotSame(responses.get(0).getBody(), response.getBody());
+		assertEquals(PROFILE, StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+		assertEquals(PROFILE, StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+		mockServer.verify();
+	}
+
+	/**
+	 * Executes a request through the template's decorated request factory, returning the response as the message converters would see it.
+	 */
+	private ClientHttpResponse execute(String uri) throws IOException {
+		return facebook.getRestTemplate().getRequestFactory().createRequest(URI.create(uri), GET).execute();
+	}
+
+	private ResponseCreator recorded(ResponseCreator responseCreator) {
+		return request -> {
+			ClientHttpResponse response = responseCreator.createResponse(request);
+			responses.add(response);
+			return response;
+		};
+	}
+
+	private String jsonResource(String filename) {
+		try {
+			return StreamUtils.copyToString(new ClassPathResource(filename + ".json", getClass()).getInputStream(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.api;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.facebook.api.impl.CompressionStatistics;
+import org.springframework.social.facebook.api.impl.FacebookTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+public class ResponseCompressionTest {
+
+	@Test
+	public void fetchObject_compressedResponse() throws Exception {
+		RestTemplate mockRestTemplate = new RestTemplate();
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		FacebookTemplate facebook = new FacebookTemplate("someAccessToken");
+		facebook.setRequestFactory(mockRestTemplate.getRequestFactory());
+		byte[] body = StreamUtils.copyToByteArray(new ClassPathResource("place-with-hours-page.json", getClass()).getInputStream());
+
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/220817147947513"))
+			.andExpect(method(GET))
+			.andExpect(header("Accept-Encoding", "gzip"))
+			.andRespond(withSuccess(gzip(body), MediaType.APPLICATION_JSON).headers(contentEncoding("gzip")));
+
+		Page page = facebook.pageOperations().getPage("220817147947513");
+		assertEquals("220817147947513", page.getId());
+		CompressionStatistics statistics = facebook.getCompressionStatistics();
+		assertEquals(1, statistics.getCompressedResponses());
+		// the converter may stop reading once it has the whole JSON object
+		assertTrue(statistics.getUncompressedBytes() > 0 && statistics.getUncompressedBytes() <= body.length);
+		assertTrue(statistics.getCompressedBytes() > 0 && statistics.getCompressedBytes() <= gzip(body).length);
+		assertTrue(statistics.getCompressionRatio() < 1);
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_compressedErrorResponse() throws Exception {
+		RestTemplate mockRestTemplate = new RestTemplate();
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		FacebookTemplate facebook = new FacebookTemplate("someAccessToken");
+		facebook.setRequestFactory(mockRestTemplate.getRequestFactory());
+		byte[] body = StreamUtils.copyToByteArray(new ClassPathResource("error-803-unknownAlias.json", getClass()).getInputStream());
+
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/bogus"))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.NOT_FOUND).body(gzip(body)).contentType(MediaType.APPLICATION_JSON).headers(contentEncoding("gzip")));
+
+		try {
+			facebook.fetchObject("bogus", Reference.class);
+			fail("Expected ResourceNotFoundException");
+		} catch (ResourceNotFoundException e) {
+			// the error was read from the decompressed body
+		}
+		mockServer.verify();
+	}
+
+	@Test
+	public void fetchObject_compressionDisabled() throws Exception {
+		RestTemplate mockRestTemplate = new RestTemplate();
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(mockRestTemplate).build();
+		FacebookTemplate facebook = new FacebookTemplate("someAccessToken");
+		facebook.setRequestFactory(mockRestTemplate.getRequestFactory());
+		facebook.setCompressResponses(false);
+
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/220817147947513"))
+			.andExpect(method(GET))
+			.andExpect(request -> assertFalse(request.getHeaders().containsKey("Accept-Encoding")))
+			.andRespond(withSuccess(new ClassPathResource("place-with-hours-page.json", getClass()), MediaType.APPLICATION_JSON));
+
+		assertEquals("220817147947513", facebook.pageOperations().getPage("220817147947513").getId());
+		assertEquals(0, facebook.getCompressionStatistics().getCompressedResponses());
+		mockServer.verify();
+	}
+
+	private HttpHeaders contentEncoding(String encoding) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Content-Encoding", encoding);
+		return headers;
+	}
+
+	private byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(body);
+		}
+		return compressed.toByteArray();
+	}
+
+}
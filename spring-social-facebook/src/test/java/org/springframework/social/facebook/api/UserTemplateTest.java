@@ -20,6 +20,7 @@ import static org.springframework.http.HttpMethod.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -27,6 +28,7 @@ import java.util.Map;
 
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 
 /**
@@ -234,6 +236,29 @@ public class UserTemplateTest extends AbstractFacebookApiTest {
 		mockServer.verify();
 	}
 
+	@Test
+	public void getUserProfileImage_redirectFollowedWithoutAccessToken() {
+		String cdnUrl = "https://scontent.xx.fbcdn.net/v/t1.0-1/p50x50/1234567_n.jpg?oh=abc&oe=123";
+		mockServer.expect(requestTo(fbUrl("1234567/picture?type=normal")))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withStatus(HttpStatus.FOUND).location(URI.create(cdnUrl)));
+		mockServer.expect(requestTo(cdnUrl))
+			.andExpect(method(GET))
+			.andExpect(request -> assertFalse(request.getHeaders().containsKey("Authorization")))
+			.andRespond(withSuccess(new ClassPathResource("tinyrod.jpg", getClass()), MediaType.IMAGE_JPEG));
+		assertNotNull(facebook.userOperations().getUserProfileImage("1234567"));
+		mockServer.verify();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void getUserProfileImage_redirectWithoutLocation() {
+		mockServer.expect(requestTo(fbUrl("1234567/picture?type=normal")))
+			.andExpect(method(GET))
+			.andRespond(withStatus(HttpStatus.FOUND));
+		facebook.userOperations().getUserProfileImage("1234567");
+	}
+
 	@Test
 	public void getUserPermissions() {
 		mockServer.expect(requestTo(fbUrl("me/permissions")))
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.facebook.security;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+public class AppSecretProofProviderTest {
+
+	private static final String SOME_PROOF = "d4c26dcecfb6d31caa642ba8da7c839e2e7306053d507fec2c1d1e32f336e5c1";
+
+	private static final String OTHER_PROOF = "03ce087d305840492b45b0e56e68d6c993bbf92cc075b85af1eed7a5602eb5d4";
+
+	private static final String APP_TOKEN_PROOF = "6198dd353dafad26f7265ab4ad5e59e3a9ad0cf9435e6dba03747407f77e4cd8";
+
+	@Test
+	public void getProof() {
+		AppSecretProofProvider provider = new AppSecretProofProvider("someAppSecret");
+		assertEquals(SOME_PROOF, provider.getProof("someAccessToken"));
+		assertEquals(OTHER_PROOF, provider.getProof("otherAccessToken"));
+		// cached
+		assertSame(provider.getProof("someAccessToken"), provider.getProof("someAccessToken"));
+	}
+
+	@Test
+	public void getProof_bounded() {
+		AppSecretProofProvider provider = new AppSecretProofProvider("someAppSecret", 1);
+		String someProof = provider.getProof("someAccessToken");
+		String otherProof = provider.getProof("otherAccessToken");
+		// only one of the proofs is still cached, so the other is computed again
+		assertFalse(someProof == provider.getProof("someAccessToken") && otherProof == provider.getProof("otherAccessToken"));
+		assertEquals(SOME_PROOF, provider.getProof("someAccessToken"));
+		assertEquals(OTHER_PROOF, provider.getProof("otherAccessToken"));
+	}
+
+	@Test
+	public void getProof_concurrent() throws Exception {
+		AppSecretProofProvider provider = new AppSecretProofProvider("someAppSecret", 0);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+			for (int i = 0; i < 100; i++) {
+				String token = i % 2 == 0 ? "someAccessToken" : "otherAccessToken";
+				tasks.add(() -> provider.getProof(token));
+			}
+			List<Future<String>> proofs = executor.invokeAll(tasks);
+			for (int i = 0; i < proofs.size(); i++) {
+				assertEquals(i % 2 == 0 ? SOME_PROOF : OTHER_PROOF, proofs.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void forAppSecret_shared() {
+		assertSame(AppSecretProofProvider.forAppSecret("someAppSecret"), AppSecretProofProvider.forAppSecret("someAppSecret"));
+		assertNotSame(AppSecretProofProvider.forAppSecret("someAppSecret"), AppSecretProofProvider.forAppSecret("otherAppSecret"));
+	}
+
+	@Test
+	public void interceptor_sharedAcrossTokens() {
+		RestTemplate restTemplate = new RestTemplate();
+		List<ClientHttpRequestInterceptor> interceptors = new ArrayList<ClientHttpRequestInterceptor>();
+		interceptors.add(new FacebookAppSecretProofInterceptor(new AppSecretProofProvider("someAppSecret")));
+		restTemplate.setInterceptors(interceptors);
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/me?appsecret_proof=" + SOME_PROOF))
+			.andExpect(method(GET))
+			.andExpect(header("Authorization", "OAuth someAccessToken"))
+			.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo(allOf(containsString("access_token=otherAccessToken"), containsString("appsecret_proof=" + OTHER_PROOF))))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+		mockServer.expect(requestTo("https://graph.facebook.com/v2.10/oauth/access_token"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+		restTemplate.execute("https://graph.facebook.com/v2.10/me", GET, request -> request.getHeaders().set("Authorization", "OAuth someAccessToken"), null);
+		restTemplate.getForObject("https://graph.facebook.com/v2.10/me?access_token=otherAccessToken", String.class);
+		// requests without a token are not proven
+		restTemplate.getForObject("https://graph.facebook.com/v2.10/oauth/access_token", String.class);
+		mockServer.verify();
+	}
+
+	@Test
+	public void interceptor_appAccessTokenParameter() {
+		RestTemplate restTemplate = new RestTemplate();
+		List<ClientHttpRequestInterceptor> interceptors = new ArrayList<ClientHttpRequestInterceptor>();
+		interceptors.add(new FacebookAppSecretProofInterceptor(new AppSecretProofProvider("someAppSecret")));
+		restTemplate.setInterceptors(interceptors);
+		MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+		// the proof is of the decoded token, not of its encoded form in the URI
+		mockServer.expect(requestTo(allOf(containsString("access_token=123456%7Cabcdef"), containsString("appsecret_proof=" + APP_TOKEN_PROOF))))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+		restTemplate.getForObject("https://graph.facebook.com/v2.10/123456/subscriptions?access_token={token}", String.class, "123456|abcdef");
+		mockServer.verify();
+	}
+
+}